@@ -9,7 +9,6 @@ import android.app.Activity
 import android.os.Bundle
 import android.os.StrictMode
 import android.preference.PreferenceManager
-import android.util.TimingLogger
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.LifecycleObserver
 import androidx.lifecycle.OnLifecycleEvent
@@ -33,10 +32,15 @@ import org.mozilla.rocket.abtesting.LocalAbTesting
 import org.mozilla.rocket.di.AppComponent
 import org.mozilla.rocket.di.AppModule
 import org.mozilla.rocket.di.DaggerAppComponent
+import org.mozilla.rocket.favicon.FaviconStore
+import org.mozilla.rocket.privately.PrivateMode
 import org.mozilla.rocket.privately.PrivateMode.Companion.PRIVATE_PROCESS_NAME
 import org.mozilla.rocket.privately.PrivateMode.Companion.WEBVIEW_FOLDER_NAME
 import org.mozilla.rocket.privately.PrivateModeActivity
 import org.mozilla.rocket.settings.SettingsProvider
+import org.mozilla.rocket.startup.StartupOrchestrator
+import org.mozilla.threadutils.SlowTaskPolicy
+import org.mozilla.threadutils.ThreadUtils
 import java.io.File
 
 open class FocusApplication : LocaleAwareApplication(), LifecycleObserver {
@@ -127,27 +131,39 @@ open class FocusApplication : LocaleAwareApplication(), LifecycleObserver {
     }
 
     override fun onCreate() {
-        TimingLogger(TAG, "coldStart before firebase performance initialization").also {
-            TelemetryWrapper.init(this)
-            it.addSplit("init TelemetryWrapper")
-        }.dumpToLog()
-        FirebaseHelper.newTrace("coldStart")?.start()
-
         super.onCreate()
         ProcessLifecycleOwner.get().lifecycle.addObserver(this)
 
-        PreferenceManager.setDefaultValues(this, R.xml.settings, false)
-
-        enableStrictMode()
-
-        SearchEngineManager.getInstance().init(this)
-
-        LocalAbTesting.init(this)
-
-        BrowsingHistoryManager.getInstance().init(this)
-        ScreenshotManager.getInstance().init(this)
-        // initialize the NotificationUtil to configure the default notification channel. This is required for API 26+
-        NotificationUtil.init(this)
+        // MAIN initializers are cheap, and publish state the first activity reads without waiting for it
+        StartupOrchestrator("applicationStartup", ThreadUtils.getExecutor(ThreadUtils.Lane.DISK_IO))
+            // Firebase backs crash reporting and the traces of the initializers after it
+            .add("telemetry") {
+                TelemetryWrapper.init(this)
+                FirebaseHelper.newTrace("coldStart")?.start()
+            }
+            // The first activity reads settings right away, they must have their defaults
+            .add("defaultPreferences") { PreferenceManager.setDefaultValues(this, R.xml.settings, false) }
+            // The thread policy only applies to the thread setting it
+            .add("strictMode", dependencies = listOf("defaultPreferences")) { enableStrictMode() }
+            // Only starts loading on a worker, reading the engines before init throws
+            .add("searchEngines") { SearchEngineManager.getInstance().init(this) }
+            // Only keeps the context, which later lookups need
+            .add("abTesting") { LocalAbTesting.init(this) }
+            // Their AsyncQueryHandlers deliver results on the thread creating them
+            .add("history") { BrowsingHistoryManager.getInstance().init(this) }
+            .add("screenshots") { ScreenshotManager.getInstance().init(this) }
+            // initialize the NotificationUtil to configure the default notification channel. This is required for API 26+
+            // On the main thread, startForeground and FCM notifications may need the channels right away
+            .add("notificationChannels") { NotificationUtil.init(this) }
+            // Resuming the deletion and binding the session tracker are disk and binder work, the
+            // main thread only reads the tracked state later
+            .add("privateMode", StartupOrchestrator.Affinity.WORKER, dependencies = listOf("telemetry")) {
+                PrivateMode.getInstance(this).apply {
+                    resumeSanitizing()
+                    hasPrivateSession()
+                }
+            }
+            .start()
 
         monitorPrivateProcess()
     }
@@ -210,6 +226,7 @@ open class FocusApplication : LocaleAwareApplication(), LifecycleObserver {
 
         StrictMode.setThreadPolicy(threadPolicyBuilder.build())
         StrictMode.setVmPolicy(vmPolicyBuilder.build())
+        ThreadUtils.setSlowTaskPolicy(SlowTaskPolicy.Builder(SLOW_TASK_THRESHOLD_MS).penaltyLog().build())
     }
 
     @OnLifecycleEvent(Lifecycle.Event.ON_START)
@@ -220,9 +237,12 @@ open class FocusApplication : LocaleAwareApplication(), LifecycleObserver {
     @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
     fun onAppInBackground() {
         isForeground = false
+        BrowsingHistoryManager.getInstance().flush()
+        FaviconStore.getInstance(this).collectGarbageIfDue()
     }
 
     companion object {
         private const val TAG = "FocusApplication"
+        private const val SLOW_TASK_THRESHOLD_MS = 2000L
     }
 }
@@ -6,9 +6,11 @@
 package org.mozilla.focus.activity
 
 import android.app.Activity
+import android.app.ActivityManager
 import android.app.Dialog
 import android.app.PendingIntent
 import android.content.BroadcastReceiver
+import android.content.ComponentCallbacks2
 import android.content.Context
 import android.content.DialogInterface
 import android.content.Intent
@@ -17,10 +19,12 @@ import android.content.res.Resources
 import android.database.ContentObserver
 import android.net.Uri
 import android.os.Bundle
+import android.util.Log
 import android.view.View
 import android.view.ViewGroup
 import android.view.Window
 import android.view.WindowManager.LayoutParams.BRIGHTNESS_OVERRIDE_NONE
+import android.webkit.WebView
 import android.widget.Toast
 import androidx.annotation.UiThread
 import androidx.annotation.VisibleForTesting
@@ -34,6 +38,7 @@ import androidx.localbroadcastmanager.content.LocalBroadcastManager
 import com.google.android.material.snackbar.Snackbar
 import com.google.android.play.core.appupdate.AppUpdateManagerFactory
 import dagger.Lazy
+import org.mozilla.focus.BuildConfig
 import org.mozilla.focus.R
 import org.mozilla.focus.databinding.ActivityMainBinding
 import org.mozilla.focus.fragment.BrowserFragment
@@ -54,6 +59,7 @@ import org.mozilla.focus.utils.DialogUtils
 import org.mozilla.focus.utils.FirebaseHelper.FIREBASE_READY
 import org.mozilla.focus.utils.IntentUtils
 import org.mozilla.focus.utils.SafeIntent
+import org.mozilla.focus.utils.Settings
 import org.mozilla.focus.utils.ShortcutUtils
 import org.mozilla.focus.utils.SupportUtils
 import org.mozilla.focus.web.GeoPermissionCache
@@ -87,12 +93,15 @@ import org.mozilla.rocket.promotion.PromotionModel
 import org.mozilla.rocket.promotion.PromotionPresenter
 import org.mozilla.rocket.promotion.PromotionViewContract
 import org.mozilla.rocket.settings.defaultbrowser.data.DefaultBrowserRepository
+import org.mozilla.rocket.startup.StartupOrchestrator
 import org.mozilla.rocket.tabs.SessionManager
 import org.mozilla.rocket.tabs.TabView
 import org.mozilla.rocket.tabs.TabViewProvider
 import org.mozilla.rocket.tabs.TabsSessionProvider
+import org.mozilla.rocket.tabs.WarmTabViewProvider
 import org.mozilla.rocket.theme.ThemeManager
 import org.mozilla.rocket.widget.enqueue
+import org.mozilla.threadutils.ThreadUtils
 import java.net.URISyntaxException
 import java.util.Locale
 import java.util.concurrent.TimeUnit
@@ -137,6 +146,9 @@ class MainActivity :
 
     private var themeManager: ThemeManager? = null
     private var sessionManager: SessionManager? = null
+    private val tabViewProvider by lazy {
+        WarmTabViewProvider(MainTabViewProvider(this), listener = if (BuildConfig.DEBUG) TabViewLatencyLogger else null)
+    }
     private val dialogQueue = DialogQueue()
     private var exitToast: Toast? = null
     private var binding: ActivityMainBinding? = null
@@ -206,8 +218,16 @@ class MainActivity :
         if (chromeViewModel.shouldShowFirstrun) {
             themeManager?.resetDefaultTheme()
         }
-        restoreTabsFromPersistence()
-        WebViewProvider.preload(this)
+        StartupOrchestrator("activityStartup", ThreadUtils.getExecutor(ThreadUtils.Lane.DISK_IO))
+            // Only starts the query, its listener updates the views on the main thread
+            .add("restoreTabs") { restoreTabsFromPersistence() }
+            // Loading the blocklists competes with the first frame, no page can load before it anyway
+            .add("webViewPreload", deferred = true) { WebViewProvider.preload(this) }
+            .apply {
+                start()
+                releaseDeferredAfterFirstFrame(this@MainActivity)
+            }
+        tabViewProvider.warmUp()
 
         promotionModel = PromotionModel(this, intent).also {
             checkAndRunPromotion(it)
@@ -519,10 +539,28 @@ class MainActivity :
 
     public override fun onDestroy() {
         sessionManager?.destroy()
+        // Last, nothing may refill the pool afterwards
+        tabViewProvider.destroy()
         unregisterFirebaseEventReceiver()
         super.onDestroy()
     }
 
+    override fun onTrimMemory(level: Int) {
+        super.onTrimMemory(level)
+        if (level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN &&
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+        ) {
+            tabViewProvider.release()
+        }
+        sessionManager?.onTrimMemory(level)
+    }
+
+    override fun onLowMemory() {
+        super.onLowMemory()
+        tabViewProvider.release()
+        sessionManager?.onLowMemory()
+    }
+
     override fun onNewIntent(unsafeIntent: Intent) {
         super.onNewIntent(unsafeIntent)
         val intent = SafeIntent(unsafeIntent)
@@ -808,7 +846,13 @@ class MainActivity :
 
     override fun getSessionManager(): SessionManager =
         // TODO: Find a proper place to allocate and init SessionManager
-        sessionManager.takeIf { it != null } ?: SessionManager(MainTabViewProvider(this)).also {
+        sessionManager.takeIf { it != null } ?: SessionManager(tabViewProvider).also {
+            val activityManager = getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+            it.maxLiveTabViews = if (activityManager.isLowRamDevice) {
+                MAX_LIVE_TAB_VIEWS_LOW_RAM
+            } else {
+                MAX_LIVE_TAB_VIEWS
+            }
             sessionManager = it
         }
 
@@ -969,11 +1013,32 @@ class MainActivity :
             // but there is no promise about this.
             return WebViewProvider.create(this.activity, null) as TabView
         }
+
+        override fun isUpToDate(tabView: TabView): Boolean {
+            val settings = Settings.getInstance(activity)
+            val webSettings = (tabView as? WebView)?.settings ?: return true
+            return tabView.isBlockingEnabled() == settings.shouldUseTurboMode() &&
+                webSettings.blockNetworkImage == settings.shouldBlockImages() &&
+                webSettings.javaScriptEnabled == !settings.shouldBlockJavaScript()
+        }
+    }
+
+    private object TabViewLatencyLogger : WarmTabViewProvider.Listener {
+        override fun onTabViewProvided(fromPool: Boolean, latencyMillis: Long) {
+            Log.d(LOG_TAG, "TabView provided in ${latencyMillis}ms, from pool: $fromPool")
+        }
+
+        override fun onTabViewPrewarmed(latencyMillis: Long) {
+            Log.d(LOG_TAG, "TabView prewarmed in ${latencyMillis}ms")
+        }
     }
 
     companion object {
         const val REQUEST_CODE_IN_APP_UPDATE = 1024
         const val ACTION_INSTALL_IN_APP_UPDATE = "action_install_in_app_update"
+        private const val LOG_TAG = "MainActivity"
+        private const val MAX_LIVE_TAB_VIEWS = 6
+        private const val MAX_LIVE_TAB_VIEWS_LOW_RAM = 3
 
         @JvmField
         var shouldRunPromotion = true
@@ -11,14 +11,11 @@ import android.content.Context
 import android.content.Intent
 import android.content.pm.PackageManager
 import android.content.res.Configuration
-import android.graphics.Bitmap
-import android.graphics.Canvas
 import android.graphics.drawable.TransitionDrawable
 import android.os.Bundle
 import android.os.Handler
 import android.os.Parcelable
 import android.text.TextUtils
-import android.util.DisplayMetrics
 import android.util.Log
 import android.view.LayoutInflater
 import android.view.View
@@ -49,6 +46,7 @@ import org.mozilla.focus.navigation.ScreenNavigator
 import org.mozilla.focus.navigation.ScreenNavigator.BrowserScreen
 import org.mozilla.focus.screenshot.CaptureRunnable
 import org.mozilla.focus.screenshot.CaptureRunnable.CaptureStateListener
+import org.mozilla.focus.screenshot.TiledPageCapture
 import org.mozilla.focus.tabs.tabtray.TabTray
 import org.mozilla.focus.telemetry.TelemetryWrapper
 import org.mozilla.focus.telemetry.TelemetryWrapper.Extra_Value
@@ -145,6 +143,7 @@ class BrowserFragment : LocaleAwareFragment(), BrowserScreen, LifecycleOwner, Ba
     lateinit var permissionHandler: PermissionHandler
     private var hasPendingScreenCaptureTask = false
     private var pendingScreenCaptureTelemetryData: ScreenCaptureTelemetryData? = null
+    private var pageCapture: TiledPageCapture? = null
     private val sessionObserver = SessionObserver(this)
     private val managerObserver: SessionManager.Observer =
         SessionManagerObserver(this, sessionObserver)
@@ -838,6 +837,8 @@ class BrowserFragment : LocaleAwareFragment(), BrowserScreen, LifecycleOwner, Ba
     }
 
     override fun onDestroyView() {
+        pageCapture?.cancel()
+        pageCapture = null
         sessionManager.unregister(managerObserver)
         binding = null
         super.onDestroyView()
@@ -1088,8 +1089,8 @@ class BrowserFragment : LocaleAwareFragment(), BrowserScreen, LifecycleOwner, Ba
         sessionManager.focusSession?.engineSession?.tabView?.stopLoading()
     }
 
-    interface ScreenshotCallback {
-        fun onCaptureComplete(title: String?, url: String?, bitmap: Bitmap?)
+    interface ScreenshotCallback : TiledPageCapture.Listener {
+        fun getCaptureOutput(title: String?, url: String?): TiledPageCapture.Output
     }
 
     fun capturePage(callback: ScreenshotCallback): Boolean {
@@ -1100,9 +1101,19 @@ class BrowserFragment : LocaleAwareFragment(), BrowserScreen, LifecycleOwner, Ba
             return false
         }
         val webView = current as WebView
-        val content = getPageBitmap(webView) ?: return false
+        pageCapture?.cancel()
+        val capture = TiledPageCapture(
+            webView,
+            (webView.contentHeight * resources.displayMetrics.density).toInt(),
+            TiledPageCapture.Config.DEFAULT,
+            callback.getCaptureOutput(webView.title, webView.url),
+            callback
+        )
         // Failed to capture
-        callback.onCaptureComplete(current.title, current.url, content)
+        if (!capture.start()) {
+            return false
+        }
+        pageCapture = capture
         return true
     }
 
@@ -1124,27 +1135,6 @@ class BrowserFragment : LocaleAwareFragment(), BrowserScreen, LifecycleOwner, Ba
         }
     }
 
-    private fun getPageBitmap(webView: WebView): Bitmap? {
-        val displayMetrics = DisplayMetrics()
-        requireActivity().windowManager.defaultDisplay.getMetrics(displayMetrics)
-        return try {
-            val bitmap = Bitmap.createBitmap(
-                webView.width,
-                (webView.contentHeight * displayMetrics.density).toInt(),
-                Bitmap.Config.RGB_565
-            )
-            val canvas = Canvas(bitmap)
-            webView.draw(canvas)
-            bitmap
-            // OOM may occur, even if OOMError is not thrown, operations during Bitmap creation may
-            // throw other Exceptions such as NPE when the bitmap is very large.
-        } catch (ex: Exception) {
-            null
-        } catch (ex: OutOfMemoryError) {
-            null
-        }
-    }
-
     val isPopupWindowAllowed: Boolean
         get() = ScreenNavigator.get(context).isBrowserInForeground &&
             isAdded && !TabTray.isShowing(parentFragmentManager)
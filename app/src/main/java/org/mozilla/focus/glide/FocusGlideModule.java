@@ -12,14 +12,21 @@ import android.view.Display;
 import android.view.WindowManager;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
 import com.bumptech.glide.Registry;
 import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
 import com.bumptech.glide.module.AppGlideModule;
 
 import org.mozilla.focus.screenshot.RegionFileDecoder;
+import org.mozilla.focus.screenshot.ScreenshotThumbnail;
+import org.mozilla.focus.screenshot.ScreenshotThumbnailDecoder;
+import org.mozilla.focus.screenshot.ScreenshotThumbnailLoaderFactory;
 import org.mozilla.focus.tabs.tabtray.FaviconDecoder;
 import org.mozilla.focus.tabs.tabtray.FaviconModel;
 import org.mozilla.focus.tabs.tabtray.FaviconModelLoaderFactory;
+import org.mozilla.rocket.cache.CacheUsageReporter;
+import org.mozilla.rocket.cache.GlideMemoryTuner;
 
 import java.io.InputStream;
 
@@ -29,11 +36,20 @@ import java.io.InputStream;
 
 @GlideModule
 public class FocusGlideModule extends AppGlideModule {
+    @Override
+    public void applyOptions(Context context, GlideBuilder builder) {
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, CacheUsageReporter.GLIDE_DISK_CACHE_BYTES));
+        GlideMemoryTuner.getInstance(context).applyOptions(context, builder);
+    }
+
     @Override
     public void registerComponents(Context context, Glide glide, Registry registry) {
         registry.prepend(InputStream.class, Bitmap.class, new RegionFileDecoder(glide, getScreenWidth(context)));
         registry.prepend(FaviconModel.class, FaviconModel.class, new FaviconModelLoaderFactory());
         registry.prepend(FaviconModel.class, Bitmap.class, new FaviconDecoder(context, glide));
+        registry.prepend(ScreenshotThumbnail.class, ScreenshotThumbnail.class, new ScreenshotThumbnailLoaderFactory());
+        registry.prepend(ScreenshotThumbnail.class, Bitmap.class, new ScreenshotThumbnailDecoder(glide));
+        GlideMemoryTuner.getInstance(context).attach(context, glide);
     }
 
     private int getScreenWidth(Context context) {
@@ -0,0 +1,36 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.glide;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.davemorrissey.labs.subscaleview.TileBitmapPool;
+
+/**
+ * Lets SubsamplingScaleImageView decode tiles into bitmaps from Glide's pool, and give them back
+ * there, so the screenshot viewer and the thumbnails share the same bitmaps.
+ */
+public class GlideTileBitmapPool implements TileBitmapPool {
+    private final BitmapPool bitmapPool;
+
+    public GlideTileBitmapPool(BitmapPool bitmapPool) {
+        this.bitmapPool = bitmapPool;
+    }
+
+    @Override
+    public Bitmap get(int width, int height, @NonNull Bitmap.Config config) {
+        // Tiles are fully overwritten by the decoder, no need to erase them
+        return bitmapPool.getDirty(width, height, config);
+    }
+
+    @Override
+    public void put(@NonNull Bitmap bitmap) {
+        bitmapPool.put(bitmap);
+    }
+}
@@ -32,10 +32,13 @@ import java.util.ArrayList;
 
 public class BrowsingHistoryManager {
 
+    static final String LAST_ENTRY_SELECTION = BrowsingHistory._ID + " = ( SELECT " + BrowsingHistory._ID + " FROM " + HistoryContract.TABLE_NAME + " WHERE " + BrowsingHistory.URL + " = ? ORDER BY " + BrowsingHistory.LAST_VIEW_TIMESTAMP + " DESC)";
+
     private static BrowsingHistoryManager sInstance;
 
     private WeakReference<ContentResolver> mResolver;
     private QueryHandler mQueryHandler;
+    private HistoryJournal mJournal;
     private BrowsingHistoryContentObserver mContentObserver;
     private ArrayList<ContentChangeListener> mListeners;
 
@@ -68,6 +71,7 @@ public class BrowsingHistoryManager {
         ContentResolver resolver = context.getContentResolver();
         mResolver = new WeakReference<>(resolver);
         mQueryHandler = new QueryHandler(resolver);
+        mJournal = new HistoryJournal(context, resolver, mQueryHandler.getWorkerHandler());
         mContentObserver = new BrowsingHistoryContentObserver(null);
         mListeners = new ArrayList<>();
     }
@@ -104,6 +108,21 @@ public class BrowsingHistoryManager {
         return new Site(QueryHandler.LONG_NO_VALUE, title, url, QueryHandler.LONG_NO_VALUE, timeStamp, (String) QueryHandler.OBJECT_NO_VALUE);
     }
 
+    /**
+     * To record a visit. It is written to the database in a batch a few seconds later, repeated
+     * visits to the same url in a short time are counted once.
+     */
+    public void recordVisit(String url, String title, long timeStamp) {
+        mJournal.recordVisit(url, title, timeStamp);
+    }
+
+    /**
+     * To write recorded visits and updates to the database now, e.g. when the app goes to background.
+     */
+    public void flush() {
+        mJournal.flush();
+    }
+
     public void insert(final Site site, final AsyncInsertListener listener) {
         mQueryHandler.postWorker(new Runnable() {
             @Override
@@ -115,28 +134,33 @@ public class BrowsingHistoryManager {
     }
 
     public void delete(long id, AsyncDeleteListener listener) {
+        mJournal.flush();
         mQueryHandler.startDelete(QueryHandler.SITE_TOKEN, new AsyncDeleteWrapper(id, listener), BrowsingHistory.CONTENT_URI, BrowsingHistory._ID + " = ?", new String[]{Long.toString(id)});
     }
 
     public void deleteAll(AsyncDeleteListener listener) {
+        mJournal.clear();
         mQueryHandler.startDelete(QueryHandler.SITE_TOKEN, new AsyncDeleteWrapper(-1, listener), BrowsingHistory.CONTENT_URI, "1", null);
     }
 
     public void updateLastEntry(final Site site, final AsyncUpdateListener listener) {
+        mJournal.flush();
         mQueryHandler.postWorker(new Runnable() {
             @Override
             public void run() {
                 final ContentValues contentValues = QueryHandler.getContentValuesFromSite(site);
-                mQueryHandler.startUpdate(QueryHandler.SITE_TOKEN, listener, BrowsingHistory.CONTENT_URI, contentValues, BrowsingHistory._ID + " = ( SELECT " + BrowsingHistory._ID + " FROM " + HistoryContract.TABLE_NAME + " WHERE " + BrowsingHistory.URL + " = ? ORDER BY " + BrowsingHistory.LAST_VIEW_TIMESTAMP + " DESC)", new String[]{site.getUrl()});
+                mQueryHandler.startUpdate(QueryHandler.SITE_TOKEN, listener, BrowsingHistory.CONTENT_URI, contentValues, LAST_ENTRY_SELECTION, new String[]{site.getUrl()});
             }
         });
     }
 
     public void query(int offset, int limit, AsyncQueryListener listener) {
+        mJournal.flush();
         mQueryHandler.startQuery(QueryHandler.SITE_TOKEN, listener, Uri.parse(BrowsingHistory.CONTENT_URI.toString() + "?offset=" + offset + "&limit=" + limit), null, null, null, BrowsingHistory.LAST_VIEW_TIMESTAMP + " DESC");
     }
 
     public void queryTopSites(int limit, int minViewCount, AsyncQueryListener listener) {
+        mJournal.flush();
         mQueryHandler.startQuery(QueryHandler.SITE_TOKEN, listener, Uri.parse(BrowsingHistory.CONTENT_URI.toString() + "?limit=" + limit), null, BrowsingHistory.VIEW_COUNT + " >= ?", new String[]{Integer.toString(minViewCount)}, BrowsingHistory.VIEW_COUNT + " DESC");
     }
 
@@ -145,7 +169,7 @@ public class BrowsingHistoryManager {
     }
 
     public static void updateHistory(String title, String url, String fileUri) {
-        updateHistory(title, url, fileUri, null);
+        BrowsingHistoryManager.getInstance().mJournal.recordUpdate(url, title, fileUri);
     }
 
     public static void updateHistory(String title, String url, String fileUri, AsyncUpdateListener callback) {
@@ -0,0 +1,355 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.history;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.os.Handler;
+import android.os.RemoteException;
+import android.text.TextUtils;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.mozilla.focus.provider.HistoryContract;
+import org.mozilla.focus.provider.HistoryContract.BrowsingHistory;
+import org.mozilla.focus.provider.QueryHandler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Write-behind journal of browsing history. Visits and title/favicon updates are kept in memory,
+ * merged per url, and written to the history provider in a single transaction a few seconds later,
+ * or as soon as {@link #flush()} is called.
+ *
+ * Every record is appended and synced to a journal file before it is kept in memory, and the file
+ * is only truncated once the transaction is committed. Records left in the file by a killed process
+ * are replayed the next time the journal is used. The process may also have been killed between the
+ * commit and the truncation, so replayed visits the history already has are not counted again.
+ *
+ * All the work runs on the given worker, which is the one {@link QueryHandler} uses, so records
+ * are ordered with queries and deletions.
+ */
+class HistoryJournal {
+
+    private static final String TAG = "HistoryJournal";
+
+    static final long FLUSH_DELAY_MS = 3000;
+    static final long COALESCE_WINDOW_MS = 5000;
+
+    private static final String JOURNAL_FILE = "history_journal";
+    private static final String KEY_URL = "url";
+    private static final String KEY_TITLE = "title";
+    private static final String KEY_FAV_ICON_URI = "favIconUri";
+    private static final String KEY_TIMESTAMP = "timestamp";
+
+    private final Context context;
+    private final ContentResolver resolver;
+    private final Handler worker;
+
+    // Only accessed on worker thread
+    private final LinkedHashMap<String, Entry> pending = new LinkedHashMap<>();
+    private File journalFile;
+    private FileOutputStream journalStream;
+    private Writer journalWriter;
+    private boolean flushScheduled;
+    private boolean replayed;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled = false;
+            flushOnWorker();
+        }
+    };
+
+    HistoryJournal(Context context, ContentResolver resolver, Handler worker) {
+        this.context = context.getApplicationContext();
+        this.resolver = resolver;
+        this.worker = worker;
+    }
+
+    /**
+     * To record a finished page load.
+     */
+    void recordVisit(final String url, final String title, final long timestamp) {
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                append(url, title, null, timestamp);
+            }
+        });
+    }
+
+    /**
+     * To record a new title or favicon of the latest visit to the url. Null values are unchanged.
+     */
+    void recordUpdate(final String url, final String title, final String favIconUri) {
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                append(url, title, favIconUri, QueryHandler.LONG_NO_VALUE);
+            }
+        });
+    }
+
+    /**
+     * To write pending records now. Anything posted to the worker afterwards sees them.
+     */
+    void flush() {
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                flushOnWorker();
+            }
+        });
+    }
+
+    /**
+     * To drop pending records, when the history is going to be cleared.
+     */
+    void clear() {
+        worker.post(new Runnable() {
+            @Override
+            public void run() {
+                replayed = true;
+                pending.clear();
+                worker.removeCallbacks(flushRunnable);
+                flushScheduled = false;
+                truncateJournal();
+            }
+        });
+    }
+
+    private void append(String url, String title, String favIconUri, long timestamp) {
+        if (TextUtils.isEmpty(url)) {
+            return;
+        }
+        replayIfNeeded();
+
+        try {
+            final JSONObject record = new JSONObject();
+            record.put(KEY_URL, url);
+            record.putOpt(KEY_TITLE, title);
+            record.putOpt(KEY_FAV_ICON_URI, favIconUri);
+            record.put(KEY_TIMESTAMP, timestamp);
+            final Writer writer = getJournalWriter();
+            writer.write(record.toString());
+            writer.write('\n');
+            writer.flush();
+            journalStream.getFD().sync();
+        } catch (JSONException | IOException e) {
+            // Still keep it in memory, it is only lost if the process is killed before next flush
+            Log.w(TAG, "Failed to append history journal", e);
+            closeJournalWriter();
+        }
+
+        merge(url, title, favIconUri, timestamp);
+        scheduleFlush();
+    }
+
+    private void merge(String url, String title, String favIconUri, long timestamp) {
+        Entry entry = pending.get(url);
+        if (entry == null) {
+            entry = new Entry(url);
+            pending.put(url, entry);
+        }
+
+        if (timestamp != QueryHandler.LONG_NO_VALUE) {
+            // Reloads and repeated onPageFinished of the same page are one visit
+            if (entry.visits == 0 || timestamp - entry.lastViewTimestamp > COALESCE_WINDOW_MS) {
+                entry.visits++;
+            }
+            entry.lastViewTimestamp = timestamp;
+        }
+        if (title != null) {
+            entry.title = title;
+        }
+        if (favIconUri != null) {
+            entry.favIconUri = favIconUri;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            worker.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        }
+    }
+
+    private void flushOnWorker() {
+        worker.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        replayIfNeeded();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        for (Entry entry : pending.values()) {
+            entry.addOperations(operations);
+        }
+
+        try {
+            if (!operations.isEmpty()) {
+                resolver.applyBatch(HistoryContract.AUTHORITY, operations);
+            }
+        } catch (RemoteException | OperationApplicationException | SQLException e) {
+            // The transaction was rolled back, keep everything and try again later
+            Log.w(TAG, "Failed to flush history journal", e);
+            scheduleFlush();
+            return;
+        }
+
+        pending.clear();
+        truncateJournal();
+    }
+
+    /**
+     * Replay is deferred until the journal is used, so a process which never touches the history
+     * doesn't replay records another process is about to flush.
+     */
+    private void replayIfNeeded() {
+        if (replayed) {
+            return;
+        }
+        replayed = true;
+
+        final File file = getJournalFile();
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    final JSONObject record = new JSONObject(line);
+                    merge(record.getString(KEY_URL),
+                            record.optString(KEY_TITLE, null),
+                            record.optString(KEY_FAV_ICON_URI, null),
+                            record.optLong(KEY_TIMESTAMP, QueryHandler.LONG_NO_VALUE));
+                } catch (JSONException e) {
+                    // The last line might be cut if the process was killed while writing it
+                    Log.w(TAG, "Skip malformed history journal record");
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to replay history journal", e);
+        }
+
+        for (Entry entry : pending.values()) {
+            if (entry.visits > 0 && entry.lastViewTimestamp <= queryLastViewTimestamp(entry.url)) {
+                // Committed already, only the truncation was missed
+                entry.visits = 0;
+            }
+        }
+    }
+
+    private long queryLastViewTimestamp(String url) {
+        try (Cursor cursor = resolver.query(BrowsingHistory.CONTENT_URI,
+                new String[]{BrowsingHistory.LAST_VIEW_TIMESTAMP},
+                BrowsingHistory.URL + " = ?", new String[]{url},
+                BrowsingHistory.LAST_VIEW_TIMESTAMP + " DESC")) {
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
+        } catch (SQLException e) {
+            Log.w(TAG, "Failed to query history", e);
+        }
+        return QueryHandler.LONG_NO_VALUE;
+    }
+
+    private File getJournalFile() {
+        if (journalFile == null) {
+            journalFile = new File(context.getFilesDir(), JOURNAL_FILE);
+        }
+        return journalFile;
+    }
+
+    private Writer getJournalWriter() throws IOException {
+        if (journalWriter == null) {
+            journalStream = new FileOutputStream(getJournalFile(), true);
+            journalWriter = new OutputStreamWriter(journalStream, StandardCharsets.UTF_8);
+        }
+        return journalWriter;
+    }
+
+    private void closeJournalWriter() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (IOException e) {
+                // nothing we can do
+            }
+            journalWriter = null;
+            journalStream = null;
+        }
+    }
+
+    private void truncateJournal() {
+        closeJournalWriter();
+        final File file = getJournalFile();
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Failed to delete history journal");
+        }
+    }
+
+    private static final class Entry {
+        private final String url;
+        private String title;
+        private String favIconUri;
+        private long lastViewTimestamp = QueryHandler.LONG_NO_VALUE;
+        private int visits;
+
+        private Entry(String url) {
+            this.url = url;
+        }
+
+        private void addOperations(ArrayList<ContentProviderOperation> operations) {
+            for (int i = 0; i < visits; i++) {
+                final ContentProviderOperation.Builder builder = ContentProviderOperation
+                        .newInsert(BrowsingHistory.CONTENT_URI)
+                        .withValue(BrowsingHistory.URL, url)
+                        .withValue(BrowsingHistory.LAST_VIEW_TIMESTAMP, lastViewTimestamp);
+                addOptionalValues(builder);
+                operations.add(builder.build());
+            }
+
+            if (visits == 0 && (title != null || favIconUri != null)) {
+                final ContentProviderOperation.Builder builder = ContentProviderOperation
+                        .newUpdate(BrowsingHistory.CONTENT_URI)
+                        .withSelection(BrowsingHistoryManager.LAST_ENTRY_SELECTION, new String[]{url});
+                addOptionalValues(builder);
+                operations.add(builder.build());
+            }
+        }
+
+        private void addOptionalValues(ContentProviderOperation.Builder builder) {
+            if (title != null) {
+                builder.withValue(BrowsingHistory.TITLE, title);
+            }
+            if (favIconUri != null) {
+                builder.withValue(BrowsingHistory.FAV_ICON_URI, favIconUri);
+            }
+        }
+    }
+}
@@ -4,4 +4,5 @@ public class SocketTags {
     public static final int SEARCH_SUGGESTION = 10000;
     public static final int DOWNLOADS = 10001;
     public static final int SCREENSHOT_CATEGORY = 10003;
+    public static final int BLOCKLIST_UPDATE = 10004;
 }
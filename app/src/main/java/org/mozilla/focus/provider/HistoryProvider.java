@@ -11,8 +11,11 @@ import androidx.sqlite.db.SupportSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteQueryBuilder;
 import androidx.room.OnConflictStrategy;
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.net.Uri;
@@ -23,6 +26,8 @@ import org.mozilla.focus.provider.HistoryDatabaseHelper.Tables;
 import org.mozilla.focus.utils.ProviderUtils;
 import org.mozilla.rocket.persistance.History.HistoryDatabase;
 
+import java.util.ArrayList;
+
 public class HistoryProvider extends ContentProvider {
 
     private static final int BROWSING_HISTORY = 1;
@@ -33,6 +38,7 @@ public class HistoryProvider extends ContentProvider {
     }
 
     private SupportSQLiteOpenHelper mDbHelper;
+    private final ThreadLocal<Boolean> mApplyingBatch = new ThreadLocal<>();
 
     @Override
     public boolean onCreate() {
@@ -122,6 +128,29 @@ public class HistoryProvider extends ContentProvider {
         return count;
     }
 
+    /**
+     * Apply all operations in one transaction, and notify the change once.
+     */
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        final SupportSQLiteDatabase db = mDbHelper.getWritableDatabase();
+        final ContentProviderResult[] results;
+        mApplyingBatch.set(true);
+        db.beginTransaction();
+        try {
+            results = super.applyBatch(operations);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            mApplyingBatch.remove();
+        }
+
+        notifyBrowsingHistoryChange();
+        return results;
+    }
+
     private long insertWithUrlUnique(SupportSQLiteDatabase db, ContentValues values) {
         long id = -1;
         Cursor c = null;
@@ -155,6 +184,9 @@ public class HistoryProvider extends ContentProvider {
     }
 
     private void notifyBrowsingHistoryChange() {
+        if (Boolean.TRUE.equals(mApplyingBatch.get())) {
+            return;
+        }
         getContext().getContentResolver().notifyChange(BrowsingHistory.CONTENT_URI, null);
     }
 }
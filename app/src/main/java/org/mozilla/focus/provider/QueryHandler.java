@@ -76,6 +76,10 @@ public class QueryHandler extends AsyncQueryHandler {
         mWorkerHandler.post(r);
     }
 
+    public Handler getWorkerHandler() {
+        return mWorkerHandler;
+    }
+
     @Override
     protected void onInsertComplete(int token, Object cookie, Uri uri) {
         switch (token) {
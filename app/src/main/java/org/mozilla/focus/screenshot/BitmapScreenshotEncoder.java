@@ -0,0 +1,70 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Gathers the tiles into one bitmap and compresses it once complete, for formats Android can only
+ * encode from a whole bitmap. Only used for captures small enough, see
+ * {@link ScreenshotFormat#canEncode(int, int, long)}.
+ */
+/* package-private */ class BitmapScreenshotEncoder implements ScreenshotEncoder {
+
+    static final int BYTES_PER_PIXEL = 2; // RGB_565
+
+    private final OutputStream output;
+    private final Bitmap.CompressFormat format;
+    private final int quality;
+    private final Bitmap bitmap;
+    private final Canvas canvas;
+    private final Rect source = new Rect();
+    private final Rect destination = new Rect();
+    private int rowsWritten;
+
+    BitmapScreenshotEncoder(OutputStream output, int width, int height, Bitmap.CompressFormat format,
+                            int quality) throws IOException {
+        this.output = output;
+        this.format = format;
+        this.quality = quality;
+        try {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        } catch (OutOfMemoryError e) {
+            throw new IOException("Not enough memory for a " + width + "x" + height + " screenshot");
+        }
+        canvas = new Canvas(bitmap);
+    }
+
+    @Override
+    public void writeTile(Bitmap tile, int rows) {
+        source.set(0, 0, bitmap.getWidth(), rows);
+        destination.set(0, rowsWritten, bitmap.getWidth(), rowsWritten + rows);
+        canvas.drawBitmap(tile, source, destination, null);
+        rowsWritten += rows;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rowsWritten != bitmap.getHeight()) {
+            throw new IllegalStateException("Only " + rowsWritten + " of " + bitmap.getHeight() + " rows are written");
+        }
+        if (!bitmap.compress(format, quality, output)) {
+            throw new IOException("Failed to compress screenshot");
+        }
+        output.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        bitmap.recycle();
+        output.close();
+    }
+}
@@ -1,7 +1,6 @@
 package org.mozilla.focus.screenshot;
 
 import android.content.Context;
-import android.graphics.Bitmap;
 import android.text.TextUtils;
 import android.view.View;
 import android.widget.Toast;
@@ -56,30 +55,31 @@ public class CaptureRunnable extends ScreenshotCaptureTask implements Runnable,
     }
 
     @Override
-    public void onCaptureComplete(String title, String url, Bitmap bitmap) {
-        Context context = refContext.get();
-        if (context == null) {
-            return;
-        }
+    public TiledPageCapture.Output getCaptureOutput(String title, String url) {
+        setPage(title, url);
+        return this;
+    }
 
-        execute(title, url, bitmap);
+    @Override
+    public void onCaptureProgress(int capturedHeight, int totalHeight) {
+        // The dialog only shows an indeterminate animation
     }
 
     @Override
-    protected void onPostExecute(final String path) {
+    public void onCaptureComplete(boolean success) {
         ScreenCaptureDialogFragment screenCaptureDialogFragment = refScreenCaptureDialogFragment.get();
         if (screenCaptureDialogFragment == null) {
-            cancel(true);
             return;
         }
-        final boolean captureSuccess = !TextUtils.isEmpty(path);
+        final String path = getPath();
+        final boolean captureSuccess = success && !TextUtils.isEmpty(path);
         if (captureSuccess) {
             Settings.getInstance(refContext.get()).setHasUnreadMyShot(true);
         }
 
         promptScreenshotResult(captureSuccess);
 
-        if (TextUtils.isEmpty(path)) {
+        if (!captureSuccess) {
             screenCaptureDialogFragment.dismiss();
         } else {
             screenCaptureDialogFragment.dismiss(!AppConstants.isUnderEspressoTest());
@@ -0,0 +1,56 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Streams tiles into a {@link PngStreamWriter}, compressing strips in parallel.
+ *
+ * Tiles are read a few rows at a time, a copy of a whole tile would take twice the memory of its
+ * RGB_565 bitmap on top of the capture's bound.
+ */
+/* package-private */ class PngScreenshotEncoder implements ScreenshotEncoder {
+
+    // ARGB pixels read from a tile at once, 64 KB
+    private static final int BATCH_PIXELS = 16 * 1024;
+
+    private final PngStreamWriter writer;
+    private final int width;
+    private final int batchRows;
+    private final int[] pixels;
+
+    PngScreenshotEncoder(OutputStream output, int width, int height, Executor executor,
+                         int parallelism) throws IOException {
+        this.writer = new PngStreamWriter(output, width, height, executor, parallelism);
+        this.width = width;
+        this.batchRows = Math.max(1, BATCH_PIXELS / Math.max(1, width));
+        this.pixels = new int[batchRows * width];
+    }
+
+    @Override
+    public void writeTile(Bitmap tile, int rows) throws IOException {
+        for (int y = 0; y < rows; y += batchRows) {
+            final int count = Math.min(batchRows, rows - y);
+            tile.getPixels(pixels, 0, width, 0, y, width, count);
+            writer.writeRows(pixels, 0, count);
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.finish();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,274 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes an opaque 8-bit RGB PNG row by row, so an image never has to be in memory as a whole.
+ *
+ * Rows are gathered into strips of about {@link #STRIP_BYTES}, and each strip is deflated on its
+ * own, ending with a sync flush so the compressed strips simply follow each other in the zlib
+ * stream. With an executor, strips are compressed in parallel while later rows are still coming.
+ * Compressed strips are written out in order, in IDAT chunks as soon as a chunk is full.
+ */
+public class PngStreamWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    // Deflate with a 32K window and default compression
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9c};
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int STRIP_BYTES = 512 * 1024;
+    private static final int BYTES_PER_PIXEL = 3;
+    // Each byte minus the one of the pixel on its left, cheap and good for flat page backgrounds
+    private static final int FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final int rowBytes;
+    @Nullable
+    private final Executor executor;
+    private final int maxPendingStrips;
+    private final ArrayDeque<FutureTask<byte[]>> pendingStrips = new ArrayDeque<>();
+    private final Adler32 adler = new Adler32();
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength;
+    private byte[] strip;
+    private int stripLength;
+    private int rowsWritten;
+
+    public PngStreamWriter(OutputStream outputStream, int width, int height) throws IOException {
+        this(outputStream, width, height, null, 1);
+    }
+
+    /**
+     * @param executor compresses strips, or null to compress them on the calling thread
+     * @param maxPendingStrips how many strips may be compressing at once, each holds about
+     *                         {@link #STRIP_BYTES} until it's written
+     */
+    public PngStreamWriter(OutputStream outputStream, int width, int height,
+                           @Nullable Executor executor, int maxPendingStrips) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height);
+        }
+        this.out = new DataOutputStream(outputStream);
+        this.width = width;
+        this.height = height;
+        this.rowBytes = 1 + width * BYTES_PER_PIXEL;
+        this.executor = executor;
+        this.maxPendingStrips = Math.max(1, maxPendingStrips);
+
+        out.write(SIGNATURE);
+        final byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // bit depth
+        header[9] = 2; // color type: RGB
+        // compression, filter and interlace methods are all 0
+        writeChunk("IHDR", header, header.length);
+        appendImageData(ZLIB_HEADER, 0, ZLIB_HEADER.length);
+    }
+
+    /**
+     * @param pixels ARGB colors as returned by Bitmap.getPixels(), alpha is dropped
+     * @param offset index of the first pixel of the row
+     */
+    public void writeRow(int[] pixels, int offset) throws IOException {
+        writeRows(pixels, offset, 1);
+    }
+
+    /**
+     * @param pixels ARGB colors of consecutive rows, without padding between rows
+     * @param offset index of the first pixel of the first row
+     */
+    public void writeRows(int[] pixels, int offset, int rowCount) throws IOException {
+        if (rowsWritten + rowCount > height) {
+            throw new IllegalStateException("Only " + (height - rowsWritten) + " rows are left");
+        }
+        for (int y = 0; y < rowCount; y++) {
+            if (strip == null) {
+                strip = new byte[Math.max(1, STRIP_BYTES / rowBytes) * rowBytes];
+                stripLength = 0;
+            }
+            filterRow(pixels, offset + y * width, strip, stripLength);
+            stripLength += rowBytes;
+            rowsWritten++;
+            if (stripLength == strip.length) {
+                submitStrip();
+            }
+        }
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Completes the image, every row must have been written.
+     */
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows are written");
+        }
+        if (strip != null) {
+            submitStrip();
+        }
+        while (!pendingStrips.isEmpty()) {
+            writePendingStrip();
+        }
+
+        final byte[] lastBlock = deflate(new byte[0], 0, true);
+        appendImageData(lastBlock, 0, lastBlock.length);
+        final byte[] checksum = new byte[4];
+        writeInt(checksum, 0, (int) adler.getValue());
+        appendImageData(checksum, 0, checksum.length);
+        if (chunkLength > 0) {
+            writeChunk("IDAT", chunk, chunkLength);
+            chunkLength = 0;
+        }
+        writeChunk("IEND", chunk, 0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FutureTask<byte[]> task : pendingStrips) {
+            task.cancel(false);
+        }
+        pendingStrips.clear();
+        out.close();
+    }
+
+    private void filterRow(int[] pixels, int offset, byte[] buffer, int position) {
+        buffer[position] = FILTER_SUB;
+        int previousR = 0;
+        int previousG = 0;
+        int previousB = 0;
+        for (int x = 0, i = position + 1; x < width; x++, i += BYTES_PER_PIXEL) {
+            final int pixel = pixels[offset + x];
+            final int r = (pixel >> 16) & 0xff;
+            final int g = (pixel >> 8) & 0xff;
+            final int b = pixel & 0xff;
+            buffer[i] = (byte) (r - previousR);
+            buffer[i + 1] = (byte) (g - previousG);
+            buffer[i + 2] = (byte) (b - previousB);
+            previousR = r;
+            previousG = g;
+            previousB = b;
+        }
+    }
+
+    private void submitStrip() throws IOException {
+        final byte[] data = strip;
+        final int length = stripLength;
+        strip = null;
+        // The checksum covers the uncompressed data in order, it's cheap next to deflating
+        adler.update(data, 0, length);
+
+        final FutureTask<byte[]> task = new FutureTask<>(() -> deflate(data, length, false));
+        pendingStrips.add(task);
+        if (executor != null) {
+            executor.execute(task);
+        } else {
+            task.run();
+        }
+        while (pendingStrips.size() > maxPendingStrips) {
+            writePendingStrip();
+        }
+    }
+
+    private void writePendingStrip() throws IOException {
+        final FutureTask<byte[]> task = pendingStrips.poll();
+        // Compress it here if no thread of the executor picked it up yet, e.g. because we are
+        // running on the only one
+        task.run();
+        final byte[] compressed;
+        try {
+            compressed = task.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress image data", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing image data", e);
+        }
+        appendImageData(compressed, 0, compressed.length);
+    }
+
+    /**
+     * @param last true to end the deflate stream, false to end with a sync flush so more blocks
+     *             can follow
+     */
+    private static byte[] deflate(byte[] data, int length, boolean last) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data, 0, length);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(length / 4 + 64);
+            final byte[] buffer = new byte[CHUNK_SIZE];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    output.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void appendImageData(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            final int count = Math.min(length, CHUNK_SIZE - chunkLength);
+            System.arraycopy(data, offset, chunk, chunkLength, count);
+            chunkLength += count;
+            offset += count;
+            length -= count;
+            if (chunkLength == CHUNK_SIZE) {
+                writeChunk("IDAT", chunk, chunkLength);
+                chunkLength = 0;
+            }
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        final byte[] typeBytes = type.getBytes("US-ASCII");
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+}
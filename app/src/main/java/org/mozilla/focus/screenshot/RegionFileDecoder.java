@@ -44,17 +44,9 @@ public class RegionFileDecoder implements ResourceDecoder<InputStream, Bitmap> {
 
     @Override
     public Resource<Bitmap> decode(InputStream source, int width, int height, Options options) throws IOException {
-        int imageWidth = defaultWidth;
-        if (source.markSupported()) {
-            BitmapFactory.Options optionSize = new BitmapFactory.Options();
-            optionSize.inJustDecodeBounds = true;
-            source.mark(source.available());
-            BitmapFactory.decodeStream(source, new Rect(), optionSize);
-            source.reset();
-            imageWidth = optionSize.outWidth;
-        }
-
         BitmapRegionDecoder decoder = createDecoder(source, width, height);
+        // The decoder knows the dimensions, no need to buffer the stream for a bounds decode
+        int imageWidth = decoder.getWidth() > 0 ? decoder.getWidth() : defaultWidth;
         BitmapFactory.Options opts = new BitmapFactory.Options();
         // Algorithm from Glide's Downsampler.getRoundedSampleSize
         int sampleSize = (int) Math.ceil((double) imageWidth / (double) width);
@@ -63,8 +55,12 @@ public class RegionFileDecoder implements ResourceDecoder<InputStream, Bitmap> {
         opts.inSampleSize = sampleSize;
 
         // Although functionally equivalent to 0 for BitmapFactory, 1 is a safer default for our code than 0.
-        Bitmap bitmap = decoder.decodeRegion(new Rect(0, 0, imageWidth, imageWidth), opts);
-        return BitmapResource.obtain(bitmap, bitmapPool);
+        try {
+            Bitmap bitmap = decoder.decodeRegion(new Rect(0, 0, imageWidth, imageWidth), opts);
+            return BitmapResource.obtain(bitmap, bitmapPool);
+        } finally {
+            decoder.recycle();
+        }
     }
 
     private BitmapRegionDecoder createDecoder(InputStream source, int width, int height) throws IOException {
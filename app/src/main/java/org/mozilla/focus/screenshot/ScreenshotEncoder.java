@@ -0,0 +1,48 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import android.graphics.Bitmap;
+
+import org.mozilla.threadutils.ThreadUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes a capture handed over tile by tile, from top to bottom. Called on a single background
+ * thread at a time.
+ */
+public interface ScreenshotEncoder extends Closeable {
+
+    /**
+     * @param tile  the tile can be reused as soon as this returns
+     * @param rows  how many rows of the tile belong to the capture, from its top
+     */
+    void writeTile(Bitmap tile, int rows) throws IOException;
+
+    /**
+     * Completes the file, every row of the capture must have been written.
+     */
+    void finish() throws IOException;
+
+    /**
+     * @param quality 0 - 100, ignored by lossless formats
+     */
+    static ScreenshotEncoder create(ScreenshotFormat format, int quality, OutputStream output,
+                                    int width, int height) throws IOException {
+        if (format.isStreamed()) {
+            // Strips are compressed in parallel on the CPU lane, bounded by its parallelism
+            return new PngScreenshotEncoder(output, width, height,
+                    ThreadUtils.getExecutor(ThreadUtils.Lane.CPU), ThreadUtils.Lane.CPU.getParallelism());
+        }
+        if (format == ScreenshotFormat.WEBP_LOSSLESS) {
+            quality = 100;
+        }
+        return new BitmapScreenshotEncoder(output, width, height, format.getCompressFormat(), quality);
+    }
+}
@@ -0,0 +1,68 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import android.graphics.Bitmap;
+
+/**
+ * File formats screenshots can be saved in. Saved screenshots are decoded by content, so files of
+ * every format, including older PNG ones, keep working whatever format new ones use.
+ */
+public enum ScreenshotFormat {
+    /**
+     * Streamed to disk in strips, for captures of any size.
+     */
+    PNG("png", Integer.MAX_VALUE),
+    JPEG("jpg", 65500),
+    WEBP_LOSSY("webp", 16383),
+    /**
+     * Lossless from Android Q on, best quality lossy before.
+     */
+    WEBP_LOSSLESS("webp", 16383);
+
+    private final String extension;
+    private final int maxDimension;
+
+    ScreenshotFormat(String extension, int maxDimension) {
+        this.extension = extension;
+        this.maxDimension = maxDimension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Only PNG is written strip by strip, the other formats are compressed from a bitmap of the
+     * whole capture.
+     */
+    public boolean isStreamed() {
+        return this == PNG;
+    }
+
+    /**
+     * @return whether a capture of the given size can be written in this format, with at most the
+     * given memory for a bitmap of the whole capture when the format isn't streamed
+     */
+    public boolean canEncode(int width, int height, long maxBitmapBytes) {
+        if (width > maxDimension || height > maxDimension) {
+            return false;
+        }
+        return isStreamed() || (long) width * height * BitmapScreenshotEncoder.BYTES_PER_PIXEL <= maxBitmapBytes;
+    }
+
+    /* package-private */ Bitmap.CompressFormat getCompressFormat() {
+        switch (this) {
+            case JPEG:
+                return Bitmap.CompressFormat.JPEG;
+            case WEBP_LOSSY:
+            case WEBP_LOSSLESS:
+                return Bitmap.CompressFormat.WEBP;
+            default:
+                return Bitmap.CompressFormat.PNG;
+        }
+    }
+}
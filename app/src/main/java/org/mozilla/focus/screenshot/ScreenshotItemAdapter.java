@@ -6,6 +6,7 @@
 package org.mozilla.focus.screenshot;
 
 import android.app.Activity;
+import android.graphics.Bitmap;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import android.text.format.DateUtils;
@@ -15,6 +16,8 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+
 import org.mozilla.focus.R;
 import org.mozilla.focus.fragment.PanelFragment;
 import org.mozilla.focus.fragment.PanelFragmentStatusListener;
@@ -39,6 +42,7 @@ public class ScreenshotItemAdapter extends RecyclerView.Adapter<RecyclerView.Vie
     private static final int VIEW_TYPE_DATE = 2;
 
     private static final int PAGE_SIZE = 20;
+    private static final int THUMBNAIL_QUALITY = 80;
 
     private List mItems = new ArrayList();
     private RecyclerView mRecyclerView;
@@ -85,12 +89,16 @@ public class ScreenshotItemAdapter extends RecyclerView.Adapter<RecyclerView.Vie
             final GirdItemViewHolder gridVH = (GirdItemViewHolder) holder;
             gridVH.rootView.setOnClickListener(this);
             final Screenshot item = (Screenshot) mItems.get(position);
+            // The thumbnail is decoded from the full image once, then read back from the disk cache
             GlideApp
                     .with(mActivity)
                     .asBitmap()
                     .placeholder(R.drawable.placeholder)
                     .fitCenter()
-                    .load(item.getImageUri())
+                    .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                    .encodeFormat(Bitmap.CompressFormat.WEBP)
+                    .encodeQuality(THUMBNAIL_QUALITY)
+                    .load(new ScreenshotThumbnail(item.getImageUri()))
                     .into(gridVH.img);
         } else if (holder instanceof DateItemViewHolder) {
             final DateSection item = (DateSection) mItems.get(position);
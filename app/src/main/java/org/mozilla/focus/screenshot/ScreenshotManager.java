@@ -31,14 +31,12 @@ import org.mozilla.focus.utils.AppConfigWrapper;
 import org.mozilla.focus.utils.IOUtils;
 import org.mozilla.focus.web.WebViewProvider;
 import org.mozilla.threadutils.ThreadUtils;
-import org.mozilla.urlutils.UrlUtils;
+import org.mozilla.urlutils.DomainSuffixMap;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -59,8 +57,21 @@ public class ScreenshotManager {
 
     private static volatile ScreenshotManager sInstance;
 
-    HashMap<String, String> categories = new HashMap<>();
-    private int categoryVersion = 1;
+    /**
+     * Domains of a version of the category config, replaced as a whole when a new version arrives
+     * so lookups never see a partially built mapping.
+     */
+    private static final class Categories {
+        final int version;
+        final DomainSuffixMap<String> domains;
+
+        Categories(int version, DomainSuffixMap<String> domains) {
+            this.version = version;
+            this.domains = domains;
+        }
+    }
+
+    private volatile Categories categories = new Categories(1, DomainSuffixMap.<String>builder().build());
 
     private QueryHandler mQueryHandler;
 
@@ -98,7 +109,7 @@ public class ScreenshotManager {
     @WorkerThread
     private void lazyInitCategories(Context context) {
         try {
-            if (categories.size() != 0) {
+            if (!categories.domains.isEmpty()) {
                 return;
             }
             try {
@@ -138,7 +149,7 @@ public class ScreenshotManager {
     }
 
     private void handleRemoteDataAsync(Pair<Integer, String> integerStringPair, Runnable callback) {
-        ThreadUtils.postToBackgroundThread(() -> {
+        ThreadUtils.post(ThreadUtils.Lane.CPU, () -> {
             try {
                 if (integerStringPair == null) {
                     return;
@@ -159,7 +170,13 @@ public class ScreenshotManager {
 
     private void initWithJson(JSONObject json) {
         try {
-            categories.clear();
+            final int version = json.getInt("version");
+            final Categories current = categories;
+            // The cached and the downloaded config are usually the same version
+            if (version == current.version && !current.domains.isEmpty()) {
+                return;
+            }
+            final DomainSuffixMap.Builder<String> builder = DomainSuffixMap.builder();
             final JSONObject mapping = json.getJSONObject("mapping");
             final Iterator<String> iterator = mapping.keys();
             while (iterator.hasNext()) {
@@ -170,23 +187,23 @@ public class ScreenshotManager {
                     for (int i = 0; i < array.length(); i++) {
                         final Object domain = array.get(i);
                         if (domain instanceof String) {
-                            categories.put((String) domain, category);
+                            builder.put((String) domain, category);
                         }
                     }
                 }
             }
-            // Set version when all done.
-            categoryVersion = json.getInt("version");
+            categories = new Categories(version, builder.build());
         } catch (JSONException e) {
             Log.e(TAG, "ScreenshotManager init error with incorrect format: ", e);
         }
     }
 
     public int getCategoryVersion() {
-        if (categories.size() == 0) {
+        final Categories current = categories;
+        if (current.domains.isEmpty()) {
             throw new IllegalStateException("Screenshot category is not ready! Call init before get Version.");
         }
-        return categoryVersion;
+        return current.version;
     }
 
     public String getCategory(Context context, String url) {
@@ -195,16 +212,13 @@ public class ScreenshotManager {
 
         try {
             // if category is not ready, return empty string
-            if (categories.size() == 0) {
+            final DomainSuffixMap<String> domains = categories.domains;
+            if (domains.isEmpty()) {
                 throw new IllegalStateException("Screenshot category is not ready!");
             }
-            final String authority = UrlUtils.stripCommonSubdomains(new URL(url).getAuthority());
-            for (Map.Entry<String, String> entry : categories.entrySet()) {
-                if (authority.endsWith(entry.getKey())) {
-                    return entry.getValue();
-                }
-            }
-            return CATEGORY_DEFAULT;
+            // Subdomains like www. and m. match their parent domain
+            final String category = domains.get(new URL(url).getHost());
+            return category != null ? category : CATEGORY_DEFAULT;
 
         } catch (MalformedURLException e) {
             // if there's an exception, return error code
@@ -213,10 +227,10 @@ public class ScreenshotManager {
     }
 
     @VisibleForTesting
-    public HashMap<String, String> getCategories(Context context) {
+    public DomainSuffixMap<String> getCategories(Context context) {
 
         lazyInitCategories(context);
 
-        return categories;
+        return categories.domains;
     }
 }
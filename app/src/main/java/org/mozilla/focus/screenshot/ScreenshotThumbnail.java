@@ -0,0 +1,41 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import java.io.File;
+
+/**
+ * Glide model of the thumbnail of a screenshot in the grid. The thumbnail is decoded once from the
+ * full image, then Glide's disk cache keeps it under a key which only changes with the file.
+ *
+ * Glide's memory cache compares models, which are equal for the same path. Screenshots are never
+ * rewritten in place, so a rebind hits it without reading the file attributes again.
+ */
+public class ScreenshotThumbnail {
+    final String path;
+
+    public ScreenshotThumbnail(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Called on a Glide thread, it reads the file attributes.
+     */
+    String getCacheKey() {
+        final File file = new File(path);
+        return path + ":" + file.lastModified() + ":" + file.length();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ScreenshotThumbnail && ((ScreenshotThumbnail) obj).path.equals(path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+}
@@ -0,0 +1,67 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.ResourceDecoder;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.resource.bitmap.BitmapResource;
+
+import java.io.IOException;
+
+/**
+ * Decodes the top square of a screenshot, subsampled to about the requested width. Only runs when
+ * the thumbnail isn't in Glide's disk cache yet.
+ */
+public class ScreenshotThumbnailDecoder implements ResourceDecoder<ScreenshotThumbnail, Bitmap> {
+    private final BitmapPool bitmapPool;
+
+    public ScreenshotThumbnailDecoder(Glide glide) {
+        this.bitmapPool = glide.getBitmapPool();
+    }
+
+    @Override
+    public boolean handles(ScreenshotThumbnail source, Options options) {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Resource<Bitmap> decode(ScreenshotThumbnail source, int width, int height, Options options) throws IOException {
+        // Reading the file directly gives the dimensions without a separate bounds decode
+        final BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(source.path, false);
+        try {
+            final int imageWidth = decoder.getWidth();
+            final Rect region = new Rect(0, 0, imageWidth, Math.min(imageWidth, decoder.getHeight()));
+
+            final BitmapFactory.Options opts = new BitmapFactory.Options();
+            opts.inSampleSize = getSampleSize(imageWidth, width);
+            // Screenshots are opaque
+            opts.inPreferredConfig = Bitmap.Config.RGB_565;
+            return BitmapResource.obtain(decoder.decodeRegion(region, opts), bitmapPool);
+        } finally {
+            decoder.recycle();
+        }
+    }
+
+    private static int getSampleSize(int imageWidth, int width) {
+        if (width <= 0) {
+            return 1;
+        }
+        // Algorithm from Glide's Downsampler.getRoundedSampleSize
+        int sampleSize = (int) Math.ceil((double) imageWidth / (double) width);
+        sampleSize = sampleSize == 0 ? 0 : Integer.highestOneBit(sampleSize);
+        return Math.max(1, sampleSize);
+    }
+}
@@ -0,0 +1,78 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+public class ScreenshotThumbnailLoaderFactory implements ModelLoaderFactory<ScreenshotThumbnail, ScreenshotThumbnail> {
+
+    @Override
+    public ModelLoader<ScreenshotThumbnail, ScreenshotThumbnail> build(MultiModelLoaderFactory multiFactory) {
+        return new ScreenshotThumbnailLoader();
+    }
+
+    @Override
+    public void teardown() {
+    }
+
+    public static class ScreenshotThumbnailLoader implements ModelLoader<ScreenshotThumbnail, ScreenshotThumbnail> {
+
+        @Nullable
+        @Override
+        public LoadData<ScreenshotThumbnail> buildLoadData(ScreenshotThumbnail model, int width, int height, Options options) {
+            return new LoadData<>(new ObjectKey(model.getCacheKey()), new Fetcher(model));
+        }
+
+        @Override
+        public boolean handles(ScreenshotThumbnail thumbnail) {
+            return true;
+        }
+    }
+
+    public static class Fetcher implements DataFetcher<ScreenshotThumbnail> {
+        private ScreenshotThumbnail model;
+
+        Fetcher(ScreenshotThumbnail model) {
+            this.model = model;
+        }
+
+        @Override
+        public void loadData(Priority priority, DataCallback<? super ScreenshotThumbnail> callback) {
+            // The decoder reads the file itself, so only the region it needs is decoded
+            callback.onDataReady(model);
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @NonNull
+        @Override
+        public Class<ScreenshotThumbnail> getDataClass() {
+            return ScreenshotThumbnail.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+}
@@ -35,6 +35,7 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.app.ActivityCompat;
 
+import com.bumptech.glide.Glide;
 import com.davemorrissey.labs.subscaleview.ImageSource;
 import com.davemorrissey.labs.subscaleview.ImageViewState;
 import com.davemorrissey.labs.subscaleview.SubsamplingScaleImageView;
@@ -42,6 +43,7 @@ import com.google.android.material.snackbar.Snackbar;
 
 import org.mozilla.focus.R;
 import org.mozilla.focus.activity.BaseActivity;
+import org.mozilla.focus.glide.GlideTileBitmapPool;
 import org.mozilla.focus.provider.QueryHandler;
 import org.mozilla.focus.screenshot.model.ImageInfo;
 import org.mozilla.focus.screenshot.model.Screenshot;
@@ -172,6 +174,9 @@ public class ScreenshotViewerActivity extends BaseActivity implements View.OnCli
         mImgScreenshot.setMinScale(1);
         mImgScreenshot.setOnClickListener(this);
         mImgScreenshot.setOnImageEventListener(onImageEventListener);
+        // Full page screenshots have many tiles, load them in parallel into bitmaps shared with Glide
+        mImgScreenshot.setParallelLoadingEnabled(true);
+        mImgScreenshot.setTileBitmapPool(new GlideTileBitmapPool(Glide.get(this).getBitmapPool()));
 
         mProgressBar = (ProgressBar) findViewById(R.id.screenshot_progressbar);
 
@@ -204,6 +209,13 @@ public class ScreenshotViewerActivity extends BaseActivity implements View.OnCli
         super.onSaveInstanceState(outState);
     }
 
+    @Override
+    protected void onDestroy() {
+        // Give the cached tiles back to Glide's pool
+        mImgScreenshot.recycle();
+        super.onDestroy();
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
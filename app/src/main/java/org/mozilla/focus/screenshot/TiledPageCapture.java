@@ -0,0 +1,373 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.screenshot;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import org.mozilla.focus.BuildConfig;
+import org.mozilla.threadutils.ThreadUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures the whole content of a view, e.g. a WebView drawing its whole document, into an image
+ * file without holding the full page in memory unless it's small enough.
+ *
+ * The page is drawn on the main thread in tiles of at most one viewport, into a couple of reused
+ * bitmaps. Tiles are handed to the CPU lane which feeds them to a {@link ScreenshotEncoder} while
+ * the next one is drawn. Drawing one tile per main thread message keeps the UI responsive. The
+ * output is opened, closed and completed on the disk lane.
+ */
+public class TiledPageCapture {
+
+    private static final String TAG = "TiledPageCapture";
+
+    // Bitmaps drawn into alternately, so drawing a tile and encoding the previous one overlap
+    private static final int BUFFER_COUNT = 2;
+    private static final int BYTES_PER_PIXEL = 2; // RGB_565
+
+    public static final class Config {
+        // Lossless whatever the page length. Nothing in the app opts into the smaller formats yet,
+        // they are only reachable through a Config of its own.
+        public static final Config DEFAULT =
+                new Config(20000, 8 * 1024 * 1024, ScreenshotFormat.PNG, 100);
+
+        private final int maxOutputHeight;
+        private final long maxMemoryBytes;
+        private final ScreenshotFormat format;
+        private final int quality;
+
+        /**
+         * @param maxOutputHeight longer pages are cut at this many pixels
+         * @param maxMemoryBytes bound of the memory used by the tile bitmaps, and by the bitmap of
+         *                       the whole page for formats which aren't streamed
+         * @param format preferred format, captures it can't encode within the bounds are saved
+         *               as PNG
+         * @param quality 0 - 100, for lossy formats
+         */
+        public Config(int maxOutputHeight, long maxMemoryBytes, ScreenshotFormat format, int quality) {
+            this.maxOutputHeight = maxOutputHeight;
+            this.maxMemoryBytes = maxMemoryBytes;
+            this.format = format;
+            this.quality = quality;
+        }
+    }
+
+    /**
+     * Where the image goes. Called on a background thread.
+     */
+    public interface Output {
+        @WorkerThread
+        @NonNull
+        OutputStream open(ScreenshotFormat format) throws IOException;
+
+        /**
+         * Called once the stream returned by {@link #open(ScreenshotFormat)} is closed, or if
+         * opening it failed.
+         *
+         * @param success false if the capture failed or was cancelled, the output should be discarded
+         */
+        @WorkerThread
+        void onComplete(boolean success);
+    }
+
+    /**
+     * Called on the main thread.
+     */
+    public interface Listener {
+        void onCaptureProgress(int capturedHeight, int totalHeight);
+
+        void onCaptureComplete(boolean success);
+    }
+
+    private static class Tile {
+        final Bitmap bitmap;
+        final int top;
+        final int rows;
+
+        Tile(Bitmap bitmap, int top, int rows) {
+            this.bitmap = bitmap;
+            this.top = top;
+            this.rows = rows;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    private final View view;
+    private final int width;
+    private final int height;
+    private final int tileHeight;
+    private final int bufferCount;
+    private final ScreenshotFormat format;
+    private final int quality;
+    private final Output output;
+    private final Listener listener;
+    private final Executor encodeExecutor = ThreadUtils.getExecutor(ThreadUtils.Lane.CPU);
+    private final Executor ioExecutor = ThreadUtils.getExecutor(ThreadUtils.Lane.DISK_IO);
+
+    // Main thread only
+    private final ArrayDeque<Bitmap> freeBitmaps = new ArrayDeque<>();
+    private final ArrayDeque<Tile> drawnTiles = new ArrayDeque<>();
+    private final Runnable drawNextTile = this::drawNextTile;
+    private int nextTop;
+    private int encodedHeight;
+    private boolean encoding;
+    private boolean started;
+    private boolean cancelled;
+    private boolean completed;
+
+    // Background threads only, used by one task at a time: a single tile is encoded at a time, and
+    // the output is only opened before the first tile and closed once nothing is being encoded
+    private ScreenshotEncoder encoder;
+    private CountingOutputStream stream;
+    private long encodeNanos;
+
+    /**
+     * @param contentHeight height of the whole content in pixels
+     */
+    public TiledPageCapture(@NonNull View view, int contentHeight, @NonNull Config config,
+                            @NonNull Output output, @NonNull Listener listener) {
+        this.view = view;
+        this.width = view.getWidth();
+        this.height = Math.min(contentHeight, config.maxOutputHeight);
+        this.format = config.format.canEncode(width, height, config.maxMemoryBytes)
+                ? config.format : ScreenshotFormat.PNG;
+        this.quality = config.quality;
+        this.output = output;
+        this.listener = listener;
+
+        final long rowBytes = (long) Math.max(1, width) * BYTES_PER_PIXEL;
+        final int viewportHeight = Math.max(1, view.getHeight());
+        final long maxBufferRows = config.maxMemoryBytes / rowBytes;
+        if (maxBufferRows >= (long) viewportHeight * BUFFER_COUNT) {
+            tileHeight = viewportHeight;
+            bufferCount = BUFFER_COUNT;
+        } else {
+            // Smaller tiles are drawn and encoded in turn
+            tileHeight = (int) Math.max(1, Math.min(viewportHeight, maxBufferRows));
+            bufferCount = 1;
+        }
+    }
+
+    /**
+     * @return false if there is nothing to capture or the tiles can't be allocated, the listener
+     * isn't called then
+     */
+    @MainThread
+    public boolean start() {
+        if (started || width <= 0 || height <= 0) {
+            return false;
+        }
+        started = true;
+        try {
+            for (int i = 0; i < bufferCount; i++) {
+                freeBitmaps.add(Bitmap.createBitmap(width, Math.min(tileHeight, height), Bitmap.Config.RGB_565));
+            }
+        } catch (OutOfMemoryError e) {
+            recycleBitmaps();
+            return false;
+        }
+        view.post(drawNextTile);
+        return true;
+    }
+
+    /**
+     * Stop capturing, the listener is told the capture failed. Does nothing once it completed.
+     */
+    @MainThread
+    public void cancel() {
+        if (!started || cancelled || completed) {
+            return;
+        }
+        cancelled = true;
+        view.removeCallbacks(drawNextTile);
+        if (!encoding) {
+            complete(false);
+        }
+    }
+
+    @MainThread
+    private void drawNextTile() {
+        if (cancelled || completed || nextTop >= height || freeBitmaps.isEmpty()) {
+            return;
+        }
+        if (!view.isAttachedToWindow()) {
+            cancel();
+            return;
+        }
+
+        final Bitmap bitmap = freeBitmaps.poll();
+        final int rows = Math.min(tileHeight, height - nextTop);
+        try {
+            final Canvas canvas = new Canvas(bitmap);
+            canvas.translate(0, -nextTop);
+            view.draw(canvas);
+        } catch (Exception e) {
+            // Drawing a very long page may fail in the WebView
+            Log.w(TAG, "Failed to draw tile at " + nextTop, e);
+            freeBitmaps.add(bitmap);
+            cancel();
+            return;
+        }
+        drawnTiles.add(new Tile(bitmap, nextTop, rows));
+        nextTop += rows;
+
+        encodeNextTile();
+        if (nextTop < height && !freeBitmaps.isEmpty()) {
+            view.post(drawNextTile);
+        }
+    }
+
+    @MainThread
+    private void encodeNextTile() {
+        if (encoding || drawnTiles.isEmpty()) {
+            return;
+        }
+        encoding = true;
+        final Tile tile = drawnTiles.poll();
+        if (tile.top > 0) {
+            encodeExecutor.execute(() -> encode(tile));
+            return;
+        }
+        ioExecutor.execute(() -> {
+            try {
+                stream = new CountingOutputStream(output.open(format));
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to open screenshot", e);
+                ThreadUtils.postToMainThread(() -> onTileEncoded(tile, false));
+                return;
+            }
+            encodeExecutor.execute(() -> encode(tile));
+        });
+    }
+
+    @WorkerThread
+    private void encode(Tile tile) {
+        boolean success;
+        try {
+            encodeTile(tile);
+            success = true;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write screenshot", e);
+            success = false;
+        }
+        final boolean encoded = success;
+        ThreadUtils.postToMainThread(() -> onTileEncoded(tile, encoded));
+    }
+
+    @WorkerThread
+    private void encodeTile(Tile tile) throws IOException {
+        final long start = System.nanoTime();
+        if (encoder == null) {
+            // The stream is closed once the capture completes
+            encoder = ScreenshotEncoder.create(format, quality, stream, width, height);
+        }
+        encoder.writeTile(tile.bitmap, tile.rows);
+        if (tile.top + tile.rows == height) {
+            encoder.finish();
+        }
+        encodeNanos += System.nanoTime() - start;
+    }
+
+    @MainThread
+    private void onTileEncoded(Tile tile, boolean success) {
+        encoding = false;
+        if (completed) {
+            return;
+        }
+        freeBitmaps.add(tile.bitmap);
+        encodedHeight += tile.rows;
+        if (!success || cancelled) {
+            complete(false);
+            return;
+        }
+
+        listener.onCaptureProgress(encodedHeight, height);
+        if (encodedHeight == height) {
+            complete(true);
+            return;
+        }
+        encodeNextTile();
+        drawNextTile();
+    }
+
+    @MainThread
+    private void complete(boolean success) {
+        completed = true;
+        for (Tile tile : drawnTiles) {
+            freeBitmaps.add(tile.bitmap);
+        }
+        drawnTiles.clear();
+        recycleBitmaps();
+        // Nothing is being encoded anymore
+        ioExecutor.execute(() -> {
+            boolean saved = success;
+            if (encoder != null) {
+                try {
+                    encoder.close();
+                } catch (IOException e) {
+                    saved = false;
+                }
+            } else if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    saved = false;
+                }
+            }
+            if (saved && BuildConfig.DEBUG) {
+                Log.d(TAG, "Encoded " + width + "x" + height + " " + format + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(encodeNanos) + "ms, " + stream.getCount() + " bytes");
+            }
+            output.onComplete(saved);
+            final boolean result = saved;
+            ThreadUtils.postToMainThread(() -> listener.onCaptureComplete(result));
+        });
+    }
+
+    @MainThread
+    private void recycleBitmaps() {
+        for (Bitmap bitmap : freeBitmaps) {
+            bitmap.recycle();
+        }
+        freeBitmaps.clear();
+    }
+}
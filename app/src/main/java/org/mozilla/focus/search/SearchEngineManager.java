@@ -10,6 +10,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.res.AssetManager;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import android.util.Log;
@@ -20,25 +21,54 @@ import org.json.JSONObject;
 import org.mozilla.focus.locale.Locales;
 import org.mozilla.focus.utils.IOUtils;
 import org.mozilla.focus.utils.Settings;
+import org.mozilla.threadutils.ThreadUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SearchEngineManager extends BroadcastReceiver {
     private static final String LOG_TAG = SearchEngineManager.class.getSimpleName();
 
+    private static final String SEARCH_INDEX_PATH = "search/search_index.json";
+
     private static SearchEngineManager instance = new SearchEngineManager();
 
-    private List<SearchEngine> searchEngines;
+    /**
+     * The published, immutable list of search engines. Before the first load completes this may only
+     * contain the default search engine. Readers never take a lock, they only wait on the latches below.
+     */
+    private volatile List<SearchEngine> searchEngines;
+
+    /**
+     * Released once {@link #searchEngines} contains at least the default search engine.
+     */
+    private final CountDownLatch defaultEngineLoaded = new CountDownLatch(1);
+
+    /**
+     * Released once {@link #searchEngines} contains every search engine of the current locale.
+     */
+    private volatile CountDownLatch allEnginesLoaded = new CountDownLatch(1);
+
+    /**
+     * Incremented on every load so a stale load (e.g. after a locale change) never overwrites a newer one.
+     */
+    private final AtomicInteger loadGeneration = new AtomicInteger();
 
     /**
      * A flag indicating that data has been loaded, or is loading. This lets us detect if data
      * has been requested without a preceeding init().
      */
-    private boolean loadHasBeenTriggered = false;
+    private volatile boolean loadHasBeenTriggered = false;
 
     public static SearchEngineManager getInstance() {
         return instance;
@@ -65,20 +95,147 @@ public class SearchEngineManager extends BroadcastReceiver {
 
     @VisibleForTesting
     public void loadSearchEngines(final Context context) {
-        new Thread("SearchEngines-Load") {
-            @Override
-            public void run() {
-                loadFromDisk(context);
-            }
-        }.start();
+        final int generation = loadGeneration.incrementAndGet();
+        // Until the new list is complete we keep serving the engines of the previous locale, if any.
+        final CountDownLatch allLoadedLatch = new CountDownLatch(1);
+        allEnginesLoaded = allLoadedLatch;
+        loadHasBeenTriggered = true;
+
+        // Not on the CPU lane, the load waits there for the parsers
+        ThreadUtils.post(ThreadUtils.Lane.DISK_IO, () -> loadFromDisk(context, generation, allLoadedLatch));
     }
 
     @WorkerThread
-    private synchronized void loadFromDisk(Context context) {
-        loadHasBeenTriggered = true;
+    private void loadFromDisk(Context context, int generation, CountDownLatch allLoadedLatch) {
+        final AssetManager assetManager = context.getAssets();
+        List<SearchEngine> result = Collections.emptyList();
+
+        try {
+            final List<IndexEntry> entries = loadSearchEngineIndex(context);
+            if (entries.isEmpty()) {
+                return;
+            }
+
+            // Parse the engine the user is going to search with first, and publish it right away.
+            final String defaultSearch = Settings.getInstance(context).getDefaultSearchEngineName();
+            final int defaultPosition = findDefaultEntry(entries, defaultSearch);
+            final SearchEngine defaultEngine = entries.get(defaultPosition).parse(assetManager);
+            // Without display names in the index we can't tell whether the user's engine is in the list,
+            // so only publish early if we know the partial list resolves to the right default.
+            final boolean isDefaultResolved = defaultSearch == null
+                    || defaultSearch.equals(defaultEngine.getName())
+                    || entries.get(0).name != null;
+            if (searchEngines == null && isDefaultResolved) {
+                publish(generation, Collections.singletonList(defaultEngine));
+            }
+
+            final List<Callable<SearchEngine>> parsers = new ArrayList<>(entries.size());
+            for (IndexEntry entry : entries) {
+                parsers.add(() -> entry.parse(assetManager));
+            }
+            result = Collections.unmodifiableList(parseInParallel(parsers, defaultPosition, defaultEngine,
+                    ThreadUtils.getExecutor(ThreadUtils.Lane.CPU)));
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "IOException while loading search engines", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            publish(generation, result);
+            allLoadedLatch.countDown();
+        }
+    }
+
+    /**
+     * Run the parsers on the executor, except the one at knownPosition whose result is already known.
+     *
+     * @return the results in the order of the parsers, whatever order they complete in. Parsers which
+     * fail are logged and left out, a broken engine doesn't take the others with it.
+     */
+    @VisibleForTesting
+    static <T> List<T> parseInParallel(List<Callable<T>> parsers, int knownPosition, T known,
+                                       ExecutorService executor) throws InterruptedException {
+        final List<Future<T>> pending = new ArrayList<>(parsers.size());
+        for (int i = 0; i < parsers.size(); i++) {
+            pending.add(i == knownPosition ? null : executor.submit(parsers.get(i)));
+        }
+
+        final List<T> results = new ArrayList<>(parsers.size());
+        for (Future<T> future : pending) {
+            if (future == null) {
+                results.add(known);
+                continue;
+            }
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Log.e(LOG_TAG, "Exception while parsing search engine", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private void publish(int generation, List<SearchEngine> engines) {
+        if (generation != loadGeneration.get()) {
+            return;
+        }
+        if (engines.isEmpty() && searchEngines != null) {
+            // Loading failed, keep whatever we already have.
+            return;
+        }
+        searchEngines = engines;
+        defaultEngineLoaded.countDown();
+    }
+
+    private static int findDefaultEntry(List<IndexEntry> entries, @Nullable String defaultSearch) {
+        if (defaultSearch != null) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (defaultSearch.equals(entries.get(i).name)) {
+                    return i;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Read the build time generated search engine index for the current locale. Falls back to resolving
+     * the configuration against the asset folders if the index isn't packaged.
+     */
+    private List<IndexEntry> loadSearchEngineIndex(Context context) throws IOException {
+        final Locale locale = Locale.getDefault();
+        final JSONObject index;
+        try {
+            index = IOUtils.readAsset(context, SEARCH_INDEX_PATH);
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "No search engine index found, scanning assets");
+            return scanSearchEngineAssets(context);
+        }
+
+        try {
+            final JSONArray localeEntries;
+            if (index.has(Locales.getLanguageTag(locale))) {
+                localeEntries = index.getJSONArray(Locales.getLanguageTag(locale));
+            } else if (index.has(Locales.getLanguage(locale))) {
+                localeEntries = index.getJSONArray(Locales.getLanguage(locale));
+            } else {
+                localeEntries = index.getJSONArray("default");
+            }
+
+            final List<IndexEntry> entries = new ArrayList<>(localeEntries.length());
+            for (int i = 0; i < localeEntries.length(); i++) {
+                final JSONObject entry = localeEntries.getJSONObject(i);
+                entries.add(new IndexEntry(entry.getString("identifier"), entry.optString("name", null), entry.getString("path")));
+            }
+            return entries;
+        } catch (JSONException e) {
+            throw new AssertionError("Reading search engine index failed", e);
+        }
+    }
+
+    private List<IndexEntry> scanSearchEngineAssets(Context context) throws IOException {
         final AssetManager assetManager = context.getAssets();
         final Locale locale = Locale.getDefault();
-        final List<SearchEngine> searchEngines = new ArrayList<>();
+        final List<IndexEntry> entries = new ArrayList<>();
 
         try {
             final JSONArray engineNames = loadSearchEngineListForLocale(context);
@@ -96,24 +253,20 @@ public class SearchEngineManager extends BroadcastReceiver {
                 final String fileName = engineName + ".xml";
 
                 if (localeEngines.contains(fileName)) {
-                    searchEngines.add(SearchEngineParser.load(assetManager, engineName, localePath + "/" + fileName));
+                    entries.add(new IndexEntry(engineName, null, localePath + "/" + fileName));
                 } else if (languageEngines.contains(fileName)) {
-                    searchEngines.add(SearchEngineParser.load(assetManager, engineName, languagePath + "/" + fileName));
+                    entries.add(new IndexEntry(engineName, null, languagePath + "/" + fileName));
                 } else if (defaultEngines.contains(fileName)) {
-                    searchEngines.add(SearchEngineParser.load(assetManager, engineName, defaultPath + "/" + fileName));
+                    entries.add(new IndexEntry(engineName, null, defaultPath + "/" + fileName));
                 } else {
                     Log.e(LOG_TAG, "Couldn't find configuration for engine: " + engineName);
                 }
             }
-        } catch (IOException e) {
-            Log.e(LOG_TAG, "IOException while loading search engines", e);
         } catch (JSONException e) {
             throw new AssertionError("Reading search engine failed: ", e);
-        } finally {
-            this.searchEngines = searchEngines;
-
-            notifyAll();
         }
+
+        return entries;
     }
 
     private JSONArray loadSearchEngineListForLocale(Context context) throws IOException {
@@ -142,15 +295,17 @@ public class SearchEngineManager extends BroadcastReceiver {
         }
     }
 
-    public synchronized List<SearchEngine> getSearchEngines() {
-        awaitLoadingSearchEnginesLocked();
+    public List<SearchEngine> getSearchEngines() {
+        awaitLoadingSearchEngines(allEnginesLoaded);
 
         return searchEngines;
     }
 
-    public synchronized SearchEngine getDefaultSearchEngine(Context context) {
-        awaitLoadingSearchEnginesLocked();
+    public SearchEngine getDefaultSearchEngine(Context context) {
+        awaitLoadingSearchEngines(defaultEngineLoaded);
 
+        // The published list always contains the default engine, even while the others are still parsing.
+        final List<SearchEngine> searchEngines = this.searchEngines;
         final String defaultSearch = Settings.getInstance(context).getDefaultSearchEngineName();
         if (defaultSearch != null) {
             for (SearchEngine searchEngine : searchEngines) {
@@ -163,31 +318,70 @@ public class SearchEngineManager extends BroadcastReceiver {
         return searchEngines.get(0);
     }
 
-    public synchronized SearchEngine getSearchEngineWithName(String searchEngineName) {
-        awaitLoadingSearchEnginesLocked();
+    public SearchEngine getSearchEngineWithName(String searchEngineName) {
+        awaitLoadingSearchEngines(defaultEngineLoaded);
+
+        final SearchEngine searchEngine = findSearchEngine(searchEngines, searchEngineName);
+        if (searchEngine != null) {
+            return searchEngine;
+        }
+
+        awaitLoadingSearchEngines(allEnginesLoaded);
+
+        final SearchEngine loadedSearchEngine = findSearchEngine(searchEngines, searchEngineName);
+        return loadedSearchEngine != null ? loadedSearchEngine : searchEngines.get(0);
+    }
 
+    @Nullable
+    private static SearchEngine findSearchEngine(List<SearchEngine> searchEngines, String searchEngineName) {
         for (SearchEngine searchEngine : searchEngines) {
             if (searchEngine.name.equals(searchEngineName)) {
                 return searchEngine;
             }
         }
-
-        return searchEngines.get(0);
+        return null;
     }
 
-    // Our (searchEngines == null) check is deemed to be an unsynchronised access. Similarly loadHasBeenTriggered
-    // also doesn't need synchronisation:
-    public void awaitLoadingSearchEnginesLocked() {
+    private void awaitLoadingSearchEngines(CountDownLatch latch) {
         if (!loadHasBeenTriggered) {
             throw new IllegalStateException("Attempting to retrieve search engines without a corresponding init()");
         }
 
-        while (searchEngines == null) {
+        awaitLatch(latch);
+        // A superseded load releases its latch without publishing, make sure there is a list to read.
+        awaitLatch(defaultEngineLoaded);
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        while (latch.getCount() > 0) {
             try {
-                wait();
+                latch.await();
             } catch (InterruptedException ignored) {
                 // Ignore
             }
         }
     }
+
+    /**
+     * Wait until every search engine of the current locale has been loaded.
+     */
+    public void awaitLoadingSearchEnginesLocked() {
+        awaitLoadingSearchEngines(allEnginesLoaded);
+    }
+
+    private static class IndexEntry {
+        private final String identifier;
+        @Nullable private final String name;
+        private final String path;
+
+        IndexEntry(String identifier, @Nullable String name, String path) {
+            this.identifier = identifier;
+            this.name = name;
+            this.path = path;
+        }
+
+        SearchEngine parse(AssetManager assetManager) throws IOException {
+            return SearchEngineParser.load(assetManager, identifier, path);
+        }
+    }
 }
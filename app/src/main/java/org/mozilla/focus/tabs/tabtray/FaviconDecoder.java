@@ -17,6 +17,7 @@ import com.bumptech.glide.load.resource.bitmap.BitmapResource;
 
 import org.mozilla.focus.utils.DimenUtils;
 import org.mozilla.icon.FavIconUtils;
+import org.mozilla.rocket.favicon.FaviconStore;
 
 public class FaviconDecoder implements ResourceDecoder<FaviconModel, Bitmap> {
     private Context context;
@@ -40,11 +41,11 @@ public class FaviconDecoder implements ResourceDecoder<FaviconModel, Bitmap> {
             return null;
         }
 
-        Bitmap refinedBitmap = DimenUtils.getRefinedBitmap(context.getResources(), source.originalIcon,
-                FavIconUtils.getRepresentativeCharacter(source.url));
-        if (refinedBitmap == source.originalIcon) {
-            refinedBitmap = Bitmap.createBitmap(source.originalIcon);
-        }
-        return BitmapResource.obtain(refinedBitmap, glide.getBitmapPool());
+        final Bitmap refinedBitmap = FaviconStore.getInstance(context).getRefinedIcon(source.originalIcon,
+                icon -> DimenUtils.getRefinedBitmap(context.getResources(), icon,
+                        FavIconUtils.getRepresentativeCharacter(source.url)));
+        // Glide recycles the bitmaps it's given, the refined icon is shared
+        final Bitmap.Config config = refinedBitmap.getConfig() != null ? refinedBitmap.getConfig() : Bitmap.Config.ARGB_8888;
+        return BitmapResource.obtain(refinedBitmap.copy(config, false), glide.getBitmapPool());
     }
 }
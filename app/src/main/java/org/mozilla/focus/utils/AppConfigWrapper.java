@@ -76,6 +76,13 @@ public class AppConfigWrapper {
         return FirebaseHelper.getFirebase().getRcString(FirebaseHelper.SCREENSHOT_CATEGORY_MANIFEST);
     }
 
+    /**
+     * @return where to download newer tracking protection lists from, empty to keep the bundled ones
+     */
+    public static String getBlocklistUpdateUrl() {
+        return FirebaseHelper.getFirebase().getRcString(FirebaseHelper.STR_BLOCKLIST_UPDATE_URL);
+    }
+
     public static long getFirstLaunchWorkerTimer() {
         return FirebaseHelper.getFirebase().getRcLong(FirebaseHelper.FIRST_LAUNCH_TIMER_MINUTES);
     }
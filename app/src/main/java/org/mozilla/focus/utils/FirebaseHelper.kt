@@ -38,6 +38,7 @@ object FirebaseHelper {
     internal const val RATE_APP_NOTIFICATION_THRESHOLD = "rate_app_notification_threshold"
     internal const val SHARE_APP_DIALOG_THRESHOLD = "share_app_dialog_threshold"
     internal const val SCREENSHOT_CATEGORY_MANIFEST = "screenshot_category_manifest"
+    internal const val STR_BLOCKLIST_UPDATE_URL = "str_blocklist_update_url"
     internal const val FIRST_LAUNCH_TIMER_MINUTES = "first_launch_timer_minutes"
     internal const val FIRST_LAUNCH_NOTIFICATION = "first_launch_notification"
 
@@ -76,6 +77,12 @@ object FirebaseHelper {
     @JvmStatic
     fun getFirebase() = firebaseContract
 
+    /**
+     * @return whether [init] was called, nothing else may be used before
+     */
+    @JvmStatic
+    fun isInitialized() = ::firebaseContract.isInitialized
+
     /**
      * The entry point to inject FirebaseContract and start the library. This method can only
      * be called once or a IllegalStateException will be thrown.
@@ -119,6 +126,7 @@ object FirebaseHelper {
     @VisibleForTesting
     fun replaceContract(contract: FirebaseContract) {
         firebaseContract = contract
+        RemoteConfigCache.invalidate()
     }
 
     /**
@@ -193,6 +201,7 @@ object FirebaseHelper {
             applicationContext,
             object : FirebaseContract.Callback {
                 override fun onRemoteConfigFetched() {
+                    RemoteConfigCache.invalidate()
                     LocalBroadcastManager.getInstance(applicationContext)
                         .sendBroadcast(Intent(FIREBASE_READY))
                 }
@@ -242,6 +251,7 @@ object FirebaseHelper {
         map[RATE_APP_NOTIFICATION_THRESHOLD] = DialogUtils.APP_CREATE_THRESHOLD_FOR_RATE_NOTIFICATION
         map[SHARE_APP_DIALOG_THRESHOLD] = DialogUtils.APP_CREATE_THRESHOLD_FOR_SHARE_DIALOG
         map[SCREENSHOT_CATEGORY_MANIFEST] = ScreenshotManager.SCREENSHOT_CATEGORY_MANIFEST_DEFAULT
+        map[STR_BLOCKLIST_UPDATE_URL] = ""
         map[FIRST_LAUNCH_TIMER_MINUTES] = FirstLaunchWorker.TIMER_DISABLED
         map[RC_KEY_ENABLE_SHOPPING_SEARCH_V2_5] = AppConfigWrapper.RC_KEY_ENABLE_SHOPPING_SEARCH_DEFAULT
 
@@ -255,7 +265,12 @@ object FirebaseHelper {
 
     @JvmStatic
     fun refreshRemoteConfig(callback: (Boolean, e: Exception?) -> Unit) {
-        firebaseContract.refreshRemoteConfig(callback)
+        firebaseContract.refreshRemoteConfig { success, e ->
+            if (success) {
+                RemoteConfigCache.invalidate()
+            }
+            callback(success, e)
+        }
     }
 
     private fun enablePerformanceCollection(enabled: Boolean) {
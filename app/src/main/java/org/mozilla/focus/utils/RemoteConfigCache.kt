@@ -0,0 +1,68 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.utils
+
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MutableLiveData
+import org.mozilla.rocket.extension.map
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Remote config values decoded into typed objects. Each key is decoded once per activated config,
+ * FirebaseHelper invalidates the cache whenever a newly fetched config is activated.
+ *
+ * Decoded values are shared by every caller, so they must be immutable.
+ */
+object RemoteConfigCache {
+
+    /**
+     * @param name the remote config key
+     * @param decode turns the non-empty remote config string into a value, or null if it's invalid
+     */
+    class Key<T : Any>(val name: String, internal val decode: (String) -> T?)
+
+    private class Entry(val generation: Int, val value: Any?)
+
+    private val generation = AtomicInteger()
+    private val entries = ConcurrentHashMap<Key<*>, Entry>()
+    private val generationData = MutableLiveData(0)
+
+    /**
+     * @return the decoded value of the key, or null if it isn't set or can't be decoded
+     */
+    @Suppress("UNCHECKED_CAST")
+    fun <T : Any> get(key: Key<T>): T? {
+        val current = generation.get()
+        val entry = entries[key]
+        if (entry != null && entry.generation == current) {
+            return entry.value as T?
+        }
+
+        // Two threads may both decode a missing key, they get equal values and either is kept.
+        // A value decoded while the cache is invalidated is stored with the old generation and
+        // decoded again on the next call.
+        val value = FirebaseHelper.getFirebase().getRcString(key.name)
+            .takeIf { it.isNotEmpty() }
+            ?.let(key.decode)
+        entries[key] = Entry(current, value)
+        return value
+    }
+
+    /**
+     * @return the decoded value of the key, updated whenever a new config is activated
+     */
+    fun <T : Any> observe(key: Key<T>): LiveData<T?> = generationData.map { get(key) }
+
+    /**
+     * Called by FirebaseHelper once a fetched config is activated, or the contract is replaced.
+     */
+    internal fun invalidate() {
+        val current = generation.incrementAndGet()
+        entries.clear()
+        generationData.postValue(current)
+    }
+}
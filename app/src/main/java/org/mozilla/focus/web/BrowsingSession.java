@@ -24,26 +24,18 @@ public class BrowsingSession {
         return instance;
     }
 
-    private int blockedTrackers;
     private MutableLiveData<Integer> blockedCountData = new MutableLiveData<>();
 
     private BrowsingSession() {
         blockedCountData.postValue(0);
     }
 
-    public void countBlockedTracker() {
-        blockedTrackers++;
-        blockedCountData.postValue(blockedTrackers);
-    }
-
     public void setBlockedTrackerCount(int count) {
-        blockedTrackers = count;
         blockedCountData.postValue(count);
     }
 
     public void resetTrackerCount() {
-        blockedTrackers = 0;
-        blockedCountData.postValue(blockedTrackers);
+        blockedCountData.postValue(0);
     }
 
     public LiveData<Integer> getBlockedTrackerCount() {
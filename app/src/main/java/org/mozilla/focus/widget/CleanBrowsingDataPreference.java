@@ -52,7 +52,7 @@ public class CleanBrowsingDataPreference extends MultiSelectListPreference {
             for (String value : getValues()) {
                 if (resources.getString(R.string.pref_value_clear_browsing_history).equals(value)) {
                     final Runnable runnable = new FileUtils.DeleteFolderRunnable(FileUtils.getFaviconFolder(getContext()));
-                    ThreadUtils.postToBackgroundThread(runnable);
+                    ThreadUtils.post(ThreadUtils.Lane.CLEANUP, runnable);
                     BrowsingHistoryManager.getInstance().deleteAll(null);
                 } else if (resources.getString(R.string.pref_value_clear_cookies).equals(value)) {
                     CookieManager.getInstance().removeAllCookies(null);
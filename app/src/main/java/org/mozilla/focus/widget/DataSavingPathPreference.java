@@ -35,7 +35,7 @@ public class DataSavingPathPreference extends ListPreference {
 
         buildList();
         // Put pingRemovableStorage() in background thread to avoid strict mode violation: disk I/O on main thread.
-        ThreadUtils.postToBackgroundThread(new Runnable() {
+        ThreadUtils.post(ThreadUtils.Lane.DISK_IO, new Runnable() {
             @Override
             public void run() {
                 pingRemovableStorage();
@@ -14,6 +14,7 @@ import org.mozilla.focus.history.model.Site
 import org.mozilla.focus.repository.BookmarkRepository
 import org.mozilla.focus.utils.DimenUtils
 import org.mozilla.icon.FavIconUtils
+import org.mozilla.rocket.favicon.FaviconStore
 import org.mozilla.rocket.persistance.History.HistoryRepository
 import org.mozilla.rocket.tabs.SessionManager
 import java.util.Locale
@@ -193,7 +194,7 @@ class FrecensySuggestionProvider(
     private fun chooseTheRightBitmap(awesomeBarSite: AwesomeBarSite): Bitmap? {
         val favIconUri: String = awesomeBarSite.site.favIconUri ?: ""
 
-        val bitmapFromUri: Bitmap? = FavIconUtils.getBitmapFromUri(context, favIconUri)
+        val bitmapFromUri: Bitmap? = FaviconStore.getInstance(context).getBitmap(context, favIconUri)
 
         return if (bitmapFromUri == null || DimenUtils.iconTooBlurry(
                 context.resources,
@@ -0,0 +1,109 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.rocket.cache
+
+import android.content.Context
+import android.os.SystemClock
+import android.util.Log
+import androidx.annotation.VisibleForTesting
+import androidx.annotation.WorkerThread
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.MutableLiveData
+import com.bumptech.glide.load.engine.cache.DiskCache
+import org.mozilla.fileutils.FileUtils
+import org.mozilla.focus.BuildConfig
+import org.mozilla.threadutils.ThreadUtils
+import java.io.File
+import java.util.concurrent.Executor
+
+/**
+ * Measures our caches on disk against the byte budgets they are expected to stay within, and holds
+ * the disk budget handed to Glide.
+ *
+ * None of these caches is trimmed here: Glide and Chromium keep their caches within their own limits
+ * behind their own indexes, favicons are deleted by FaviconStore once nothing refers to them, and
+ * tabs_cache holds the state of open tabs. Measuring walks every cache, so it's only done on demand.
+ */
+class CacheUsageReporter @VisibleForTesting internal constructor(
+    private val budgets: List<Budget>,
+    private val executor: Executor = ThreadUtils.getExecutor(ThreadUtils.Lane.CLEANUP)
+) {
+
+    /**
+     * @param directory resolved on a worker thread, as looking up app directories may create them
+     */
+    class Budget(
+        val name: String,
+        val maxBytes: Long,
+        val directory: () -> File?
+    )
+
+    data class Usage(
+        val name: String,
+        val bytes: Long,
+        val files: Int,
+        val maxBytes: Long
+    )
+
+    private val usageData = MutableLiveData<List<Usage>>()
+
+    /**
+     * Usage of every cache as of the last [measure].
+     */
+    val usage: LiveData<List<Usage>> = usageData
+
+    fun measure() {
+        executor.execute {
+            val start = SystemClock.elapsedRealtime()
+            val usage = budgets.map { measure(it) }
+            if (BuildConfig.DEBUG) {
+                Log.d(TAG, "Measured caches in ${SystemClock.elapsedRealtime() - start}ms: $usage")
+            }
+            usageData.postValue(usage)
+        }
+    }
+
+    @WorkerThread
+    private fun measure(budget: Budget): Usage {
+        var bytes = 0L
+        var files = 0
+        budget.directory()?.walkTopDown()?.filter { it.isFile }?.forEach {
+            bytes += it.length()
+            files++
+        }
+        return Usage(budget.name, bytes, files, budget.maxBytes)
+    }
+
+    companion object {
+        private const val TAG = "CacheUsageReporter"
+
+        // Where the WebView keeps its HTTP cache, the rest of its directory is cookies and storage
+        private const val WEBVIEW_CACHE_FOLDER_NAME = "org.chromium.android_webview"
+        private const val TABS_CACHE_FOLDER_NAME = "tabs_cache"
+
+        private const val WEBVIEW_CACHE_BYTES = 64L * 1024 * 1024
+        private const val FAVICON_BYTES = 10L * 1024 * 1024
+        private const val TABS_CACHE_BYTES = 20L * 1024 * 1024
+        /** Handed to Glide, which keeps its disk cache within it. */
+        const val GLIDE_DISK_CACHE_BYTES = 64 * 1024 * 1024
+
+        @Volatile private var INSTANCE: CacheUsageReporter? = null
+
+        @JvmStatic
+        fun getInstance(context: Context): CacheUsageReporter =
+            INSTANCE ?: synchronized(this) {
+                INSTANCE ?: CacheUsageReporter(createBudgets(context.applicationContext)).also { INSTANCE = it }
+            }
+
+        private fun createBudgets(context: Context) = listOf(
+            Budget("webview", WEBVIEW_CACHE_BYTES) { File(context.cacheDir, WEBVIEW_CACHE_FOLDER_NAME) },
+            Budget("favicons", FAVICON_BYTES) { FileUtils.getFaviconFolder(context) },
+            Budget("tabs", TABS_CACHE_BYTES) { File(context.cacheDir, TABS_CACHE_FOLDER_NAME) },
+            Budget("glide", GLIDE_DISK_CACHE_BYTES.toLong()) {
+                File(context.cacheDir, DiskCache.Factory.DEFAULT_DISK_CACHE_DIR)
+            }
+        )
+    }
+}
@@ -0,0 +1,254 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.rocket.cache
+
+import android.app.ActivityManager
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.SharedPreferences
+import android.content.res.Configuration
+import android.os.Build
+import android.preference.PreferenceManager
+import android.util.Log
+import androidx.annotation.VisibleForTesting
+import com.bumptech.glide.Glide
+import com.bumptech.glide.GlideBuilder
+import com.bumptech.glide.MemoryCategory
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool
+import com.bumptech.glide.load.engine.cache.LruResourceCache
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator
+import org.mozilla.focus.BuildConfig
+
+/**
+ * Sizes Glide's memory cache, bitmap pool and array pool for the device, and tunes them with what
+ * was measured in the previous session.
+ *
+ * A cache which evicted a lot while missing most lookups was too small for what was shown, it
+ * gets bigger next time. A session which got memory pressure signals makes all of them smaller
+ * next time, bigger caches only get the app killed sooner. Sizes change by [SCALE_STEP] a session
+ * at most, within the range of the [DeviceClass].
+ *
+ * Glide trims itself once the UI is hidden, but ignores the signals sent while it's visible. Those
+ * shrink the caches here until the UI is hidden.
+ */
+class GlideMemoryTuner @VisibleForTesting internal constructor(
+    private val preferences: SharedPreferences,
+    private val deviceClass: DeviceClass
+) : ComponentCallbacks2 {
+
+    enum class DeviceClass(val initialScale: Float, val minScale: Float, val maxScale: Float) {
+        LOW_RAM(0.5f, 0.5f, 1f),
+        NORMAL(1f, 0.5f, 1.5f),
+        HIGH_RAM(1f, 0.5f, 2f)
+    }
+
+    data class Stats(
+        val name: String,
+        val hits: Int,
+        val misses: Int,
+        val evictions: Int,
+        val maxBytes: Int
+    ) {
+        val requests: Int
+            get() = hits + misses
+    }
+
+    @Volatile private var memoryCache: LruResourceCache? = null
+    @Volatile private var bitmapPool: LruBitmapPool? = null
+    @Volatile private var arrayPool: LruArrayPool? = null
+    @Volatile private var glide: Glide? = null
+    @Volatile private var maxBytes = IntArray(3)
+    // Main thread only
+    private var underPressure = false
+
+    /**
+     * Statistics of the caches since they were created, empty before Glide is.
+     */
+    val stats: List<Stats>
+        get() {
+            val memoryCache = memoryCache ?: return emptyList()
+            val bitmapPool = bitmapPool ?: return emptyList()
+            val arrayPool = arrayPool ?: return emptyList()
+            return listOf(
+                Stats(MEMORY_CACHE, memoryCache.hitCount(), memoryCache.missCount(), memoryCache.evictionCount(), maxBytes[0]),
+                Stats(BITMAP_POOL, bitmapPool.hitCount(), bitmapPool.missCount(), bitmapPool.evictionCount(), maxBytes[1]),
+                Stats(ARRAY_POOL, arrayPool.hitCount(), arrayPool.missCount(), arrayPool.evictionCount(), maxBytes[2])
+            )
+        }
+
+    fun applyOptions(context: Context, builder: GlideBuilder) {
+        val scales = tuneScales()
+        val calculator = MemorySizeCalculator.Builder(context)
+            .setMemoryCacheScreens(MEMORY_CACHE_SCREENS * scales[0])
+            .setBitmapPoolScreens(getBitmapPoolScreens() * scales[1])
+            .setArrayPoolSize((ARRAY_POOL_BYTES * scales[2]).toInt())
+            .build()
+        maxBytes = intArrayOf(calculator.memoryCacheSize, calculator.bitmapPoolSize, calculator.arrayPoolSizeInBytes)
+        val memoryCache = LruResourceCache(calculator.memoryCacheSize)
+        val bitmapPool = LruBitmapPool(calculator.bitmapPoolSize)
+        val arrayPool = LruArrayPool(calculator.arrayPoolSizeInBytes)
+        builder.setMemoryCache(memoryCache)
+            .setBitmapPool(bitmapPool)
+            .setArrayPool(arrayPool)
+        this.memoryCache = memoryCache
+        this.bitmapPool = bitmapPool
+        this.arrayPool = arrayPool
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "Sized for $deviceClass with scales ${scales.contentToString()}: ${maxBytes.contentToString()}")
+        }
+    }
+
+    /**
+     * Starts following the memory signals, once Glide is created.
+     */
+    fun attach(context: Context, glide: Glide) {
+        this.glide = glide
+        context.applicationContext.registerComponentCallbacks(this)
+    }
+
+    override fun onTrimMemory(level: Int) {
+        val glide = glide ?: return
+        when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN -> {
+                // Glide trims itself from here on, full size again for when the UI is visible
+                glide.setMemoryCategory(MemoryCategory.NORMAL)
+                saveSession()
+            }
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> {
+                underPressure = true
+                glide.setMemoryCategory(MemoryCategory.LOW)
+                glide.clearMemory()
+            }
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> {
+                underPressure = true
+                glide.setMemoryCategory(MemoryCategory.LOW)
+            }
+        }
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "Trim memory, level=$level: $stats")
+        }
+    }
+
+    override fun onLowMemory() {
+        // Glide clears itself
+        underPressure = true
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {
+        // Do nothing.
+    }
+
+    private fun saveSession() {
+        val editor = preferences.edit().putBoolean(PREF_KEY_UNDER_PRESSURE, underPressure)
+        for (stats in stats) {
+            editor.putInt(getPrefKey(stats.name, HITS), stats.hits)
+                .putInt(getPrefKey(stats.name, MISSES), stats.misses)
+                .putInt(getPrefKey(stats.name, EVICTIONS), stats.evictions)
+        }
+        editor.apply()
+    }
+
+    /**
+     * Tunes the scales with the previous session, which is then forgotten so it's used only once.
+     */
+    private fun tuneScales(): FloatArray {
+        val underPressure = preferences.getBoolean(PREF_KEY_UNDER_PRESSURE, false)
+        val editor = preferences.edit().remove(PREF_KEY_UNDER_PRESSURE)
+        val scales = NAMES.map { name ->
+            val lastStats = if (preferences.contains(getPrefKey(name, HITS))) {
+                Stats(name, preferences.getInt(getPrefKey(name, HITS), 0),
+                    preferences.getInt(getPrefKey(name, MISSES), 0),
+                    preferences.getInt(getPrefKey(name, EVICTIONS), 0), 0)
+            } else {
+                null
+            }
+            val scale = tune(preferences.getFloat(getPrefKey(name, SCALE), deviceClass.initialScale),
+                lastStats, underPressure, deviceClass)
+            editor.putFloat(getPrefKey(name, SCALE), scale)
+                .remove(getPrefKey(name, HITS))
+                .remove(getPrefKey(name, MISSES))
+                .remove(getPrefKey(name, EVICTIONS))
+            scale
+        }
+        editor.apply()
+        return scales.toFloatArray()
+    }
+
+    private fun getBitmapPoolScreens(): Float = when {
+        // As in MemorySizeCalculator, hardware bitmaps need barely any pool and low RAM devices use them
+        Build.VERSION.SDK_INT < Build.VERSION_CODES.O -> 4f
+        deviceClass == DeviceClass.LOW_RAM -> 0f
+        else -> 1f
+    }
+
+    companion object {
+        private const val TAG = "GlideMemoryTuner"
+
+        private const val MEMORY_CACHE = "memory_cache"
+        private const val BITMAP_POOL = "bitmap_pool"
+        private const val ARRAY_POOL = "array_pool"
+        private val NAMES = listOf(MEMORY_CACHE, BITMAP_POOL, ARRAY_POOL)
+
+        private const val PREF_KEY_PREFIX = "glide_"
+        private const val PREF_KEY_UNDER_PRESSURE = PREF_KEY_PREFIX + "under_pressure"
+        private const val SCALE = "scale"
+        private const val HITS = "hits"
+        private const val MISSES = "misses"
+        private const val EVICTIONS = "evictions"
+
+        // Defaults of MemorySizeCalculator
+        private const val MEMORY_CACHE_SCREENS = 2f
+        private const val ARRAY_POOL_BYTES = 4 * 1024 * 1024
+
+        private const val LOW_RAM_MEMORY_CLASS = 96
+        private const val HIGH_RAM_MEMORY_CLASS = 256
+
+        private const val SCALE_STEP = 0.25f
+        // Fewer lookups tell nothing about the size
+        private const val MIN_REQUESTS = 100
+        private const val THRASHING_HIT_RATE = 0.5f
+        private const val THRASHING_EVICTION_RATE = 0.25f
+
+        @Volatile private var INSTANCE: GlideMemoryTuner? = null
+
+        @JvmStatic
+        fun getInstance(context: Context): GlideMemoryTuner =
+            INSTANCE ?: synchronized(this) {
+                INSTANCE ?: context.applicationContext.let {
+                    GlideMemoryTuner(PreferenceManager.getDefaultSharedPreferences(it), getDeviceClass(it))
+                }.also { INSTANCE = it }
+            }
+
+        /**
+         * @param lastStats of the previous session, null if it didn't hide its UI
+         * @param underPressure whether the previous session got memory pressure signals
+         */
+        @VisibleForTesting
+        internal fun tune(scale: Float, lastStats: Stats?, underPressure: Boolean, deviceClass: DeviceClass): Float {
+            val tuned = when {
+                underPressure -> scale - SCALE_STEP
+                lastStats != null && isThrashing(lastStats) -> scale + SCALE_STEP
+                else -> scale
+            }
+            return tuned.coerceIn(deviceClass.minScale, deviceClass.maxScale)
+        }
+
+        private fun isThrashing(stats: Stats) = stats.requests >= MIN_REQUESTS &&
+            stats.hits < stats.requests * THRASHING_HIT_RATE &&
+            stats.evictions >= stats.requests * THRASHING_EVICTION_RATE
+
+        private fun getDeviceClass(context: Context): DeviceClass {
+            val manager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+            return when {
+                manager.isLowRamDevice || manager.memoryClass <= LOW_RAM_MEMORY_CLASS -> DeviceClass.LOW_RAM
+                manager.memoryClass >= HIGH_RAM_MEMORY_CLASS -> DeviceClass.HIGH_RAM
+                else -> DeviceClass.NORMAL
+            }
+        }
+
+        private fun getPrefKey(name: String, value: String) = PREF_KEY_PREFIX + name + "_" + value
+    }
+}
@@ -8,6 +8,7 @@ import android.app.PendingIntent
 import android.app.Service
 import android.content.Context
 import android.content.Intent
+import android.os.Binder
 import android.os.Build
 import android.os.IBinder
 import org.mozilla.focus.R
@@ -27,8 +28,11 @@ import org.mozilla.rocket.privately.PrivateModeActivity
 
 class PrivateSessionNotificationService : Service() {
 
+    // Bound by PrivateSessionTracker to follow whether the service is alive, nothing is called on it
+    private val binder = Binder()
+
     override fun onBind(intent: Intent): IBinder? {
-        return null
+        return binder
     }
 
     override fun onStartCommand(intent: Intent?, flags: Int, startId: Int): Int {
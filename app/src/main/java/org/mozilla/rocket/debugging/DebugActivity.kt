@@ -6,6 +6,7 @@ import android.content.Context
 import android.content.Intent
 import android.content.SharedPreferences
 import android.os.Bundle
+import android.text.format.Formatter
 import android.widget.ArrayAdapter
 import android.widget.Toast
 import androidx.appcompat.app.AlertDialog
@@ -16,6 +17,8 @@ import org.json.JSONArray
 import org.mozilla.focus.databinding.ActivityDebugBinding
 import org.mozilla.focus.utils.FirebaseHelper
 import org.mozilla.focus.utils.Settings
+import org.mozilla.rocket.cache.CacheUsageReporter
+import org.mozilla.rocket.cache.GlideMemoryTuner
 import org.mozilla.rocket.preference.stringLiveData
 import java.util.concurrent.TimeUnit
 
@@ -33,8 +36,27 @@ class DebugActivity : AppCompatActivity() {
         initDebugLocale(binding)
         initDebugMissionReminderNotification(binding)
         initDebugServerPush(binding)
+        initDebugCacheUsage(binding)
     }
 
+    private fun initDebugCacheUsage(binding: ActivityDebugBinding) {
+        val cacheUsageReporter = CacheUsageReporter.getInstance(this)
+        cacheUsageReporter.usage.observe(this) { usage ->
+            binding.debugCacheUsageText.text = usage.joinToString("\n") {
+                "${it.name}: ${formatSize(it.bytes)} / ${formatSize(it.maxBytes)} in ${it.files} files"
+            } + GlideMemoryTuner.getInstance(this).stats.joinToString("") {
+                "\nglide ${it.name}: ${formatSize(it.maxBytes.toLong())}, ${it.hits} hits, ${it.misses} misses," +
+                    " ${it.evictions} evictions"
+            }
+        }
+        binding.debugCacheUsage.setOnClickListener {
+            cacheUsageReporter.measure()
+        }
+        cacheUsageReporter.measure()
+    }
+
+    private fun formatSize(bytes: Long) = Formatter.formatShortFileSize(this, bytes)
+
     private fun initDebugServerPush(binding: ActivityDebugBinding) {
         binding.switchDisableServerPush.isChecked = Settings.getInstance(this).isServerPushDebugging
         binding.switchDisableServerPush.setOnCheckedChangeListener { _, isChecked ->
@@ -0,0 +1,281 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.rocket.favicon
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.net.Uri
+import android.os.SystemClock
+import android.util.Log
+import android.util.LruCache
+import androidx.annotation.VisibleForTesting
+import androidx.annotation.WorkerThread
+import org.mozilla.fileutils.FileUtils
+import org.mozilla.focus.BuildConfig
+import org.mozilla.focus.history.model.Site
+import org.mozilla.focus.provider.HistoryContract.BrowsingHistory
+import org.mozilla.focus.utils.DimenUtils
+import org.mozilla.icon.FavIconUtils
+import org.mozilla.rocket.home.topsites.data.SharedPreferencePinSiteDelegate
+import org.mozilla.threadutils.ThreadUtils
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.security.MessageDigest
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Favicons on disk, named by the hash of their pixels so every page of a site shares one file.
+ *
+ * The history keeps the icon of each page url, the store only keeps the icons. Saves are queued
+ * and written in batches on the disk lane, icons already on disk are not encoded again. Icons
+ * nothing refers to anymore are deleted by [collectGarbage].
+ *
+ * Decoded icons are kept in [memoryCache], shared by everything showing favicons.
+ */
+class FaviconStore @VisibleForTesting internal constructor(
+    private val directory: () -> File,
+    private val referencedUris: () -> Collection<String?>?,
+    private val executor: Executor = ThreadUtils.getExecutor(ThreadUtils.Lane.DISK_IO),
+    private val callbackExecutor: Executor = Executor { ThreadUtils.postToMainThread(it) },
+    private val now: () -> Long = System::currentTimeMillis
+) {
+
+    private class Request(val icon: Bitmap?, val encodedIcon: ByteArray?, val callback: (String?) -> Unit)
+
+    // Guarded by itself
+    private val pending = ArrayList<Request>()
+    // Guarded by pending
+    private var drainScheduled = false
+    // Names of the icon files known to be on disk, loaded by the first batch
+    private val storedNames: MutableSet<String> = Collections.newSetFromMap(ConcurrentHashMap())
+    @Volatile
+    private var storedNamesLoaded = false
+    // Main thread only
+    private var lastGarbageCollectionTime = 0L
+
+    /**
+     * Decoded icons and icons refined for display, by file uri or [getContentKey].
+     */
+    val memoryCache = object : LruCache<String, Bitmap>(MEMORY_CACHE_BYTES) {
+        override fun sizeOf(key: String, value: Bitmap) = value.byteCount
+    }
+
+    /**
+     * @param callback gets the uri of the icon file on the main thread, or null if it can't be saved
+     */
+    fun save(icon: Bitmap, callback: FavIconUtils.Consumer<String?>) {
+        enqueue(listOf(Request(icon, null) { callback.accept(it) }))
+    }
+
+    /**
+     * @param encodedIcons icons as compressed images
+     * @param callback gets the uris of the icon files in the same order, null for icons which
+     * can't be saved
+     */
+    fun saveEncoded(encodedIcons: List<ByteArray>, callback: FavIconUtils.Consumer<List<String?>>) {
+        val uris = arrayOfNulls<String>(encodedIcons.size)
+        var remaining = encodedIcons.size
+        if (remaining == 0) {
+            callbackExecutor.execute { callback.accept(emptyList()) }
+            return
+        }
+        // Callbacks are called in order on the callback executor
+        enqueue(encodedIcons.mapIndexed { index, bytes ->
+            Request(null, bytes) { uri ->
+                uris[index] = uri
+                if (--remaining == 0) {
+                    callback.accept(uris.toList())
+                }
+            }
+        })
+    }
+
+    /**
+     * @return the icon of the uri, which may be an asset uri, or null if it can't be decoded. The
+     * bitmap is shared and must not be modified nor recycled.
+     */
+    fun getBitmap(context: Context, uri: String): Bitmap? {
+        memoryCache.get(uri)?.let { return it }
+        return FavIconUtils.getBitmapFromUri(context, uri)?.also { memoryCache.put(uri, it) }
+    }
+
+    /**
+     * @return the cached result of refining the icon, e.g. scaling it to the size it's shown at.
+     * The bitmap is shared and must not be modified nor recycled.
+     */
+    fun getRefinedIcon(icon: Bitmap, refine: (Bitmap) -> Bitmap): Bitmap {
+        val key = REFINED_KEY_PREFIX + getContentKey(icon)
+        memoryCache.get(key)?.let { return it }
+        return refine(icon).also { memoryCache.put(key, it) }
+    }
+
+    /**
+     * Deletes the icons nothing refers to, unless it was done in the last
+     * [GARBAGE_COLLECTION_INTERVAL_MILLIS].
+     */
+    fun collectGarbageIfDue() {
+        val time = SystemClock.elapsedRealtime()
+        if (lastGarbageCollectionTime != 0L && time - lastGarbageCollectionTime < GARBAGE_COLLECTION_INTERVAL_MILLIS) {
+            return
+        }
+        lastGarbageCollectionTime = time
+        collectGarbage()
+    }
+
+    /**
+     * Deletes the icons nothing refers to. Icons written recently are kept, the history may not
+     * refer to them yet.
+     */
+    fun collectGarbage() {
+        executor.execute {
+            val start = SystemClock.elapsedRealtime()
+            val referenced = referencedUris()?.mapNotNullTo(HashSet()) { uri ->
+                uri?.let { Uri.parse(it).lastPathSegment }
+            } ?: return@execute
+            val recent = now() - GARBAGE_GRACE_MILLIS
+            var deleted = 0
+            directory().listFiles()?.forEach { file ->
+                if (file.name !in referenced && file.lastModified() < recent && file.delete()) {
+                    storedNames.remove(file.name)
+                    memoryCache.remove(Uri.fromFile(file).toString())
+                    deleted++
+                }
+            }
+            if (BuildConfig.DEBUG) {
+                Log.d(TAG, "Deleted $deleted unused icons in ${SystemClock.elapsedRealtime() - start}ms")
+            }
+        }
+    }
+
+    private fun enqueue(requests: List<Request>) {
+        synchronized(pending) {
+            pending.addAll(requests)
+            if (drainScheduled) {
+                return
+            }
+            drainScheduled = true
+        }
+        executor.execute { drain() }
+    }
+
+    @WorkerThread
+    private fun drain() {
+        val batch = synchronized(pending) {
+            drainScheduled = false
+            ArrayList(pending).also { pending.clear() }
+        }
+        val dir = directory()
+        if (!storedNamesLoaded) {
+            dir.list()?.let { storedNames.addAll(it) }
+            storedNamesLoaded = true
+        }
+
+        // Pages of the same site tend to be saved together
+        val savedUris = HashMap<String, String?>()
+        val uris = batch.map { request ->
+            val icon = request.icon ?: request.encodedIcon?.let { BitmapFactory.decodeByteArray(it, 0, it.size) }
+            icon?.let {
+                val key = getContentKey(it)
+                savedUris.getOrPut(key) { write(dir, key, it) }
+            }
+        }
+        callbackExecutor.execute {
+            batch.forEachIndexed { index, request -> request.callback(uris[index]) }
+        }
+    }
+
+    @WorkerThread
+    private fun write(dir: File, key: String, icon: Bitmap): String? {
+        val name = key + FILE_EXTENSION
+        val file = File(dir, name)
+        if (name in storedNames && file.exists()) {
+            // The history may not refer to it before the next garbage collection, keep it as if new
+            file.setLastModified(now())
+            return Uri.fromFile(file).toString()
+        }
+        if (!FileUtils.ensureDir(dir)) {
+            return null
+        }
+        var temp: File? = null
+        try {
+            // Written aside, so a file named by its content is always complete
+            temp = File.createTempFile(key, null, dir)
+            FileOutputStream(temp).use { icon.compress(Bitmap.CompressFormat.PNG, DimenUtils.PNG_QUALITY_DONT_CARE, it) }
+            if (!temp.renameTo(file)) {
+                return null
+            }
+            storedNames.add(name)
+            return Uri.fromFile(file).toString()
+        } catch (e: IOException) {
+            Log.w(TAG, "Failed to save icon", e)
+            return null
+        } finally {
+            temp?.takeIf { it.exists() }?.delete()
+        }
+    }
+
+    companion object {
+        private const val TAG = "FaviconStore"
+
+        private const val FILE_EXTENSION = ".png"
+        private const val REFINED_KEY_PREFIX = "refined:"
+        private const val MEMORY_CACHE_BYTES = 2 * 1024 * 1024
+        private val GARBAGE_COLLECTION_INTERVAL_MILLIS = TimeUnit.DAYS.toMillis(1)
+        private val GARBAGE_GRACE_MILLIS = TimeUnit.DAYS.toMillis(1)
+
+        @Volatile private var INSTANCE: FaviconStore? = null
+
+        @JvmStatic
+        fun getInstance(context: Context): FaviconStore =
+            INSTANCE ?: synchronized(this) {
+                INSTANCE ?: context.applicationContext.let { appContext ->
+                    FaviconStore({ FileUtils.getFaviconFolder(appContext) }, { getReferencedUris(appContext) })
+                }.also { INSTANCE = it }
+            }
+
+        /**
+         * @return the hex SHA-1 of the size and pixels of the icon
+         */
+        @JvmStatic
+        fun getContentKey(icon: Bitmap): String {
+            val width = icon.width
+            val height = icon.height
+            val pixels = IntArray(width * height)
+            icon.getPixels(pixels, 0, width, 0, 0, width, height)
+            val buffer = ByteBuffer.allocate((pixels.size + 2) * 4)
+            buffer.putInt(width).putInt(height).asIntBuffer().put(pixels)
+            val digest = MessageDigest.getInstance("SHA-1").digest(buffer.array())
+            val key = StringBuilder(digest.size * 2)
+            for (byte in digest) {
+                key.append(Character.forDigit(byte.toInt() shr 4 and 0xf, 16))
+                key.append(Character.forDigit(byte.toInt() and 0xf, 16))
+            }
+            return key.toString()
+        }
+
+        /**
+         * @return the icon uris of the history and pinned sites, or null if the history can't be read
+         */
+        @WorkerThread
+        private fun getReferencedUris(context: Context): Collection<String?>? {
+            val uris = ArrayList<String?>()
+            val cursor = context.contentResolver.query(BrowsingHistory.CONTENT_URI,
+                arrayOf(BrowsingHistory.FAV_ICON_URI), null, null, null) ?: return null
+            cursor.use {
+                while (it.moveToNext()) {
+                    uris.add(it.getString(0))
+                }
+            }
+            SharedPreferencePinSiteDelegate(context).getPinSites().mapTo(uris, Site::getFavIconUri)
+            return uris
+        }
+    }
+}
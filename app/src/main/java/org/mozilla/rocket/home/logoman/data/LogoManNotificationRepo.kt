@@ -4,7 +4,8 @@ import android.content.Context
 import androidx.lifecycle.LiveData
 import org.json.JSONException
 import org.json.JSONObject
-import org.mozilla.focus.utils.FirebaseHelper
+import org.mozilla.focus.utils.RemoteConfigCache
+import org.mozilla.rocket.extension.combineLatest
 import org.mozilla.rocket.extension.map
 import org.mozilla.rocket.preference.stringLiveData
 import org.mozilla.strictmodeviolator.StrictModeViolation
@@ -21,12 +22,10 @@ class LogoManNotificationRepo(appContext: Context) {
     )
 
     fun getNotification(): LiveData<Notification?> =
-        getLastReadNotificationId().map { lastReadId ->
-            FirebaseHelper.getFirebase().getRcString(STR_LOGO_MAN_NOTIFICATION)
-                .takeIf { it.isNotEmpty() }
-                ?.jsonStringToNotification()
-                ?.takeIf { it.messageId != lastReadId }
-        }
+        combineLatest(RemoteConfigCache.observe(LOGO_MAN_NOTIFICATION), getLastReadNotificationId())
+            .map { (notification, lastReadId) ->
+                notification?.takeIf { it.messageId != lastReadId }
+            }
 
     fun getLastReadNotificationId(): LiveData<String> =
         preference.stringLiveData(SHARED_PREF_KEY_READ_NOTIFICATION_ID, "")
@@ -37,6 +36,8 @@ class LogoManNotificationRepo(appContext: Context) {
 
     companion object {
         private const val STR_LOGO_MAN_NOTIFICATION = "str_logo_man_notification"
+        private val LOGO_MAN_NOTIFICATION =
+            RemoteConfigCache.Key(STR_LOGO_MAN_NOTIFICATION) { it.jsonStringToNotification() }
 
         private const val PREF_NAME = "logo_man_notification"
         private const val SHARED_PREF_KEY_READ_NOTIFICATION_ID = "shared_pref_key_read_notification_id"
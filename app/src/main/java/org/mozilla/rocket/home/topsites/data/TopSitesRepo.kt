@@ -2,7 +2,6 @@ package org.mozilla.rocket.home.topsites.data
 
 import android.content.Context
 import android.database.Cursor
-import android.graphics.Bitmap
 import android.os.Handler
 import android.os.Looper
 import android.os.Message
@@ -12,17 +11,17 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
 import org.json.JSONException
 import org.json.JSONObject
-import org.mozilla.fileutils.FileUtils
 import org.mozilla.focus.R
 import org.mozilla.focus.history.BrowsingHistoryManager
 import org.mozilla.focus.history.model.Site
 import org.mozilla.focus.provider.HistoryContract
 import org.mozilla.focus.provider.HistoryDatabaseHelper
 import org.mozilla.focus.provider.QueryHandler
-import org.mozilla.focus.utils.DimenUtils
 import org.mozilla.focus.utils.FirebaseHelper
+import org.mozilla.focus.utils.RemoteConfigCache
 import org.mozilla.focus.utils.TopSitesUtils
 import org.mozilla.icon.FavIconUtils
+import org.mozilla.rocket.favicon.FaviconStore
 import org.mozilla.rocket.home.topsites.data.TopSitesRepo.Companion.JSON_KEY_ID
 import org.mozilla.rocket.home.topsites.data.TopSitesRepo.Companion.JSON_KEY_SITES
 import org.mozilla.rocket.persistance.History.HistoryDatabase
@@ -41,9 +40,7 @@ class TopSitesRepo(
     private var needToCheckDbVersion = true
 
     fun getConfiguredFixedSites(): List<Site>? =
-        FirebaseHelper.getFirebase().getRcString(FirebaseHelper.STR_TOP_SITES_FIXED_ITEM_V2_5)
-            .takeIf { it.isNotEmpty() }
-            ?.jsonStringToSites()
+        RemoteConfigCache.get(CONFIGURED_FIXED_SITES)?.map { it.copy() }
 
     fun getDefaultFixedSites(): List<Site>? =
         AssetsUtils.loadStringFromRawResource(appContext, R.raw.fixedsites)
@@ -93,16 +90,8 @@ class TopSitesRepo(
         ?.apply { forEach { it.isDefault = true } }
 
     fun getConfiguredDefaultSiteGroups(): List<SiteGroup>? =
-        FirebaseHelper.getFirebase().getRcString(FirebaseHelper.STR_TOP_SITES_DEFAULT_ITEMS_V2_5)
-            .takeIf { it.isNotEmpty() }
-            ?.jsonStringToSiteGroups()
-            ?.apply {
-                forEach { group ->
-                    group.sites.forEach { site ->
-                        site.isDefault = true
-                    }
-                }
-            }
+        RemoteConfigCache.get(CONFIGURED_DEFAULT_SITE_GROUPS)
+            ?.map { group -> group.copy(sites = group.sites.map { it.copy() }) }
 
     fun getDefaultSites(resId: Int): List<Site>? =
         AssetsUtils.loadStringFromRawResource(appContext, resId)
@@ -186,7 +175,6 @@ class TopSitesRepo(
             val columns = arrayOf(HistoryContract.BrowsingHistory._ID, HistoryContract.BrowsingHistory.URL, HistoryContract.BrowsingHistory.FAV_ICON)
             builder.columns(columns)
             val query = builder.create()
-            val faviconFolder = FileUtils.getFaviconFolder(appContext)
             val urls = ArrayList<String>()
             val icons = ArrayList<ByteArray>()
             db.query(query).use { cursor ->
@@ -200,11 +188,8 @@ class TopSitesRepo(
             if (icons.size == 0) {
                 scheduleRefresh(handler)
             } else {
-                // Refresh is still scheduled implicitly in SaveBitmapsTask
-                FavIconUtils.SaveBitmapsTask(
-                    faviconFolder, urls, icons, UpdateHistoryWrapper(urls, handler),
-                    Bitmap.CompressFormat.PNG, DimenUtils.PNG_QUALITY_DONT_CARE
-                ).execute()
+                // Refresh is still scheduled implicitly once the icons are saved
+                FaviconStore.getInstance(appContext).saveEncoded(icons, UpdateHistoryWrapper(urls, handler))
             }
             db.execSQL("DROP TABLE " + HistoryDatabaseHelper.Tables.BROWSING_HISTORY_LEGACY)
             PreferenceManager.getDefaultSharedPreferences(appContext).edit().putBoolean(TOP_SITES_V2_PREF, true).apply()
@@ -226,9 +211,9 @@ class TopSitesRepo(
     private class UpdateHistoryWrapper(
         private val urls: List<String>,
         private val handler: Handler
-    ) : FavIconUtils.Consumer<List<String>> {
+    ) : FavIconUtils.Consumer<List<String?>> {
 
-        override fun accept(fileUris: List<String>) {
+        override fun accept(fileUris: List<String?>) {
             val listener = QueryHandler.AsyncUpdateListener {
                 scheduleRefresh(handler)
             }
@@ -253,6 +238,19 @@ class TopSitesRepo(
         const val TOP_SITES_QUERY_MIN_VIEW_COUNT = 6
         private const val TOP_SITES_V2_PREF = "top_sites_v2_complete"
         private const val STR_RECOMMENDED_SITES = "str_recommended_sites"
+        // Sites are mutable, the cached ones are only handed out as copies
+        private val CONFIGURED_FIXED_SITES =
+            RemoteConfigCache.Key(FirebaseHelper.STR_TOP_SITES_FIXED_ITEM_V2_5) { it.jsonStringToSites() }
+        private val CONFIGURED_DEFAULT_SITE_GROUPS =
+            RemoteConfigCache.Key(FirebaseHelper.STR_TOP_SITES_DEFAULT_ITEMS_V2_5) { json ->
+                json.jsonStringToSiteGroups()?.apply {
+                    forEach { group ->
+                        group.sites.forEach { site ->
+                            site.isDefault = true
+                        }
+                    }
+                }
+            }
         private const val MSG_ID_REFRESH = 8269
         const val JSON_KEY_ID = "id"
         const val JSON_KEY_SITES = "sites"
@@ -297,6 +295,9 @@ private fun String.jsonStringToSites(): List<Site>? {
     }
 }
 
+private fun Site.copy(): Site =
+    Site(id, title, url, viewCount, lastViewTimestamp, favIconUri).also { it.isDefault = isDefault }
+
 private fun String.jsonStringToRecommendedSitesResult(context: Context): RecommendedSitesResult? {
     return try {
         val categoryList =
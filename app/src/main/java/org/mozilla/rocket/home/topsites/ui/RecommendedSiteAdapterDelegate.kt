@@ -12,6 +12,7 @@ import org.mozilla.focus.utils.DimenUtils
 import org.mozilla.icon.FavIconUtils
 import org.mozilla.rocket.adapter.AdapterDelegate
 import org.mozilla.rocket.adapter.DelegateAdapter
+import org.mozilla.rocket.favicon.FaviconStore
 import org.mozilla.rocket.nightmode.themed.ThemedTextView
 import org.mozilla.strictmodeviolator.StrictModeViolation
 
@@ -54,7 +55,7 @@ class RecommendedSiteViewHolder(
         val faviconUri = site.iconUri
         var favicon: Bitmap? = null
         if (faviconUri != null) {
-            favicon = FavIconUtils.getBitmapFromUri(context, faviconUri)
+            favicon = FaviconStore.getInstance(context).getBitmap(context, faviconUri)
         }
 
         return getBestFavicon(context.resources, site.url, favicon)
@@ -19,6 +19,7 @@ import org.mozilla.icon.FavIconUtils
 import org.mozilla.rocket.adapter.AdapterDelegate
 import org.mozilla.rocket.adapter.DelegateAdapter
 import org.mozilla.rocket.chrome.ChromeViewModel
+import org.mozilla.rocket.favicon.FaviconStore
 import org.mozilla.rocket.nightmode.themed.ThemedTextView
 import org.mozilla.strictmodeviolator.StrictModeViolation
 
@@ -115,7 +116,7 @@ class SiteViewHolder(
         val faviconUri = site.iconUri
         var favicon: Bitmap? = null
         if (faviconUri != null) {
-            favicon = FavIconUtils.getBitmapFromUri(context, faviconUri)
+            favicon = FaviconStore.getInstance(context).getBitmap(context, faviconUri)
         }
 
         return getBestFavicon(context.resources, site.url, favicon)
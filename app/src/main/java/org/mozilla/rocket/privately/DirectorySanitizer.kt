@@ -0,0 +1,158 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.rocket.privately
+
+import android.os.SystemClock
+import android.util.Log
+import androidx.annotation.WorkerThread
+import org.mozilla.focus.BuildConfig
+import org.mozilla.threadutils.ThreadUtils
+import java.io.File
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Deletes directories without holding back other background work.
+ *
+ * Each directory is first renamed into [tombstoneRoot], which makes its content unreachable at
+ * once however large it is. The tombstones are then deleted in parallel batches on the low
+ * priority clean up lane. Tombstones left behind when the process dies are deleted by [resume],
+ * e.g. on the next start.
+ */
+class DirectorySanitizer(
+    private val tombstoneRoot: File,
+    private val renameExecutor: Executor = ThreadUtils.getExecutor(ThreadUtils.Lane.DISK_IO),
+    private val deleteExecutor: Executor = ThreadUtils.getExecutor(ThreadUtils.Lane.CLEANUP),
+    parallelism: Int = ThreadUtils.Lane.CLEANUP.parallelism,
+    private val onReport: (Report) -> Unit = { if (BuildConfig.DEBUG) Log.d(TAG, it.toString()) }
+) {
+
+    /**
+     * @param complete false if some files couldn't be deleted, they are retried by [resume]
+     */
+    data class Report(
+        val directories: Int,
+        val files: Int,
+        val bytes: Long,
+        val millis: Long,
+        val complete: Boolean
+    )
+
+    private class Tally(var remainingBatches: Int) {
+        val files = AtomicInteger()
+        val bytes = AtomicLong()
+    }
+
+    // More batches than threads, so a thread done early takes over the rest
+    private val batchCount = Math.max(1, parallelism * BATCHES_PER_THREAD)
+    // Tombstones this process is deleting
+    private val deleting = HashSet<String>()
+    private val tombstoneCount = AtomicInteger()
+
+    /**
+     * @param directories resolved on a worker thread, as looking up app directories may create them
+     */
+    fun sanitize(directories: () -> List<File>) {
+        renameExecutor.execute {
+            delete(directories().mapNotNull { bury(it) })
+        }
+    }
+
+    /**
+     * Deletes the tombstones left by a previous process.
+     */
+    fun resume() {
+        renameExecutor.execute {
+            delete(tombstoneRoot.listFiles()?.toList() ?: emptyList())
+        }
+    }
+
+    @WorkerThread
+    private fun bury(directory: File): File? {
+        if (!directory.exists()) {
+            return null
+        }
+        val tombstone = File(tombstoneRoot, "${directory.name}-${System.currentTimeMillis()}-${tombstoneCount.getAndIncrement()}")
+        if ((tombstoneRoot.isDirectory || tombstoneRoot.mkdirs()) && directory.renameTo(tombstone)) {
+            return tombstone
+        }
+        // Still deleted, it just stays reachable until then and isn't resumed
+        Log.w(TAG, "Failed to move ${directory.name} aside, deleting it in place")
+        return directory
+    }
+
+    @WorkerThread
+    private fun delete(tombstones: List<File>) {
+        // The same tombstone may be found by resume() while a sanitize() deletes it
+        val claimed = synchronized(deleting) {
+            tombstones.filter { deleting.add(it.absolutePath) }
+        }
+        if (claimed.isEmpty()) {
+            return
+        }
+        val start = SystemClock.elapsedRealtime()
+
+        // Batches are made of entries a couple of levels down, a WebView cache is mostly a single
+        // directory of many files
+        val entries = ArrayList<File>()
+        claimed.forEach { collectEntries(it, SPLIT_DEPTH, entries) }
+        val batches = List(Math.max(1, Math.min(batchCount, entries.size))) { ArrayList<File>() }
+        entries.forEachIndexed { index, file -> batches[index % batches.size].add(file) }
+
+        val tally = Tally(batches.size)
+        batches.forEach { batch ->
+            deleteExecutor.execute {
+                batch.forEach { deleteRecursively(it, tally) }
+                val last = synchronized(tally) { --tally.remainingBatches == 0 }
+                if (last) {
+                    finish(claimed, tally, start)
+                }
+            }
+        }
+    }
+
+    @WorkerThread
+    private fun finish(tombstones: List<File>, tally: Tally, start: Long) {
+        // Only the emptied directories are left
+        tombstones.forEach { deleteRecursively(it, tally) }
+        val complete = tombstones.none { it.exists() }
+        synchronized(deleting) {
+            tombstones.forEach { deleting.remove(it.absolutePath) }
+        }
+        onReport(Report(tombstones.size, tally.files.get(), tally.bytes.get(),
+            SystemClock.elapsedRealtime() - start, complete))
+    }
+
+    private fun collectEntries(directory: File, depth: Int, entries: MutableList<File>) {
+        val children = directory.listFiles() ?: return
+        for (child in children) {
+            if (depth > 1 && child.isDirectory) {
+                collectEntries(child, depth - 1, entries)
+            } else {
+                entries.add(child)
+            }
+        }
+    }
+
+    private fun deleteRecursively(file: File, tally: Tally) {
+        if (file.isDirectory) {
+            file.listFiles()?.forEach { deleteRecursively(it, tally) }
+            file.delete()
+        } else {
+            val length = file.length()
+            if (file.delete()) {
+                tally.files.incrementAndGet()
+                tally.bytes.addAndGet(length)
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "DirectorySanitizer"
+        private const val BATCHES_PER_THREAD = 4
+        private const val SPLIT_DEPTH = 2
+    }
+}
@@ -4,64 +4,47 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.mozilla.rocket.privately
 
-import android.app.ActivityManager
 import android.content.Context
 import android.content.Context.MODE_PRIVATE
 import android.preference.PreferenceManager
-import org.mozilla.fileutils.FileUtils
-import org.mozilla.rocket.component.PrivateSessionNotificationService
 import org.mozilla.threadutils.ThreadUtils
 import java.io.File
 
 // Describe when to clear the private mode session
 class PrivateMode private constructor(context: Context) {
     private val appContext: Context = context.applicationContext
+    private val sessionTracker = PrivateSessionTracker(appContext)
+    private val sanitizer = DirectorySanitizer(File(appContext.applicationInfo.dataDir, TOMBSTONE_FOLDER_NAME))
 
     fun sanitize() {
-        ThreadUtils.postToBackgroundThread {
-
-            appContext.cacheDir?.let { dir ->
-                clean(dir, appContext)
-            }
+        sanitizer.sanitize {
+            listOfNotNull(appContext.cacheDir, appContext.getDir(WEBVIEW_FOLDER_NAME, MODE_PRIVATE))
+        }
+    }
 
-            appContext.getDir(WEBVIEW_FOLDER_NAME, MODE_PRIVATE)?.let { dir ->
-                clean(dir, appContext)
-            }
+    /**
+     * Finish deleting the private session data of a process which died while sanitizing.
+     */
+    fun resumeSanitizing() {
+        ThreadUtils.post(ThreadUtils.Lane.DISK_IO) {
+            // Written by older versions, which had no way to resume
+            PreferenceManager.getDefaultSharedPreferences(appContext).edit().remove(PREF_KEY_SANITIZE_REMINDER).apply()
         }
+        sanitizer.resume()
     }
 
     /**
      * A helper function to report whether this service is alive.
      * When there's a private session, it implies a PrivateSessionNotificationService is running.
+     * Cheap enough to be called whenever needed, the state is tracked by PrivateSessionTracker.
      *
-     * @param context
      * @return true if this service is alive
      */
-    @Suppress("deprecation")
-    fun hasPrivateSession(): Boolean {
-        val manager = appContext.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
-        // Although this method is no longer available to third party applications.  For backwards compatibility,
-        // it will still return the caller's own services.
-        for (service in manager.getRunningServices(Integer.MAX_VALUE)) {
-            if (PrivateSessionNotificationService::class.java.name == service.service.className) {
-                return true
-            }
-        }
-
-        return false
-    }
-
-    private fun clean(dir: File, context: Context) {
-
-        val delete = FileUtils.deleteDirectory(dir)
-        if (!delete) {
-            // TODO:remember to clear the  SANITIZE_REMINDER when the app launch next time
-            PreferenceManager.getDefaultSharedPreferences(context)?.edit()?.putString(PREF_KEY_SANITIZE_REMINDER, dir.absolutePath)?.apply()
-        }
-    }
+    fun hasPrivateSession(): Boolean = sessionTracker.isActive
 
     companion object {
-        const val PREF_KEY_SANITIZE_REMINDER = "pref_key_sanitize_reminder"
+        private const val PREF_KEY_SANITIZE_REMINDER = "pref_key_sanitize_reminder"
+        private const val TOMBSTONE_FOLDER_NAME = "private_mode_tombstones"
 
         const val INTENT_EXTRA_SANITIZE = "intent_extra_sanitize"
         const val PRIVATE_PROCESS_NAME = "private_mode"
@@ -0,0 +1,80 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.rocket.privately
+
+import android.app.ActivityManager
+import android.content.ComponentName
+import android.content.Context
+import android.content.Intent
+import android.content.ServiceConnection
+import android.os.IBinder
+import org.mozilla.rocket.component.PrivateSessionNotificationService
+
+/**
+ * Knows whether a private session is alive, i.e. whether PrivateSessionNotificationService runs in
+ * the private mode process, without asking the system each time.
+ *
+ * The tracker stays bound to the service without creating it. The system connects the binding
+ * whenever the service starts and disconnects it when the service stops or its process dies, so
+ * the state also follows crashes. Only the state before the first callback is looked up once.
+ */
+internal class PrivateSessionTracker(private val appContext: Context) : ServiceConnection {
+
+    @Volatile
+    private var active = false
+    private var started = false
+
+    /**
+     * @return true if a private session is alive, as of the last service connection callback
+     */
+    val isActive: Boolean
+        get() {
+            ensureStarted()
+            return active
+        }
+
+    @Synchronized
+    private fun ensureStarted() {
+        if (started) {
+            return
+        }
+        started = true
+        // Connection callbacks can only come once bound, so they are never overwritten by this
+        active = isServiceRunning()
+        val intent = Intent(appContext, PrivateSessionNotificationService::class.java)
+        // No BIND_AUTO_CREATE, binding must not start the service nor keep it alive
+        if (!appContext.bindService(intent, this, 0)) {
+            // Not tracked, look it up every time as before
+            started = false
+        }
+    }
+
+    override fun onServiceConnected(name: ComponentName?, service: IBinder?) {
+        active = true
+    }
+
+    override fun onServiceDisconnected(name: ComponentName?) {
+        active = false
+    }
+
+    override fun onBindingDied(name: ComponentName?) {
+        // The binding can't reconnect anymore, e.g. the app was updated. Bind again.
+        active = false
+        appContext.unbindService(this)
+        synchronized(this) {
+            started = false
+        }
+    }
+
+    @Suppress("deprecation")
+    private fun isServiceRunning(): Boolean {
+        val manager = appContext.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+        // Although this method is no longer available to third party applications.  For backwards compatibility,
+        // it will still return the caller's own services.
+        return manager.getRunningServices(Integer.MAX_VALUE).any {
+            PrivateSessionNotificationService::class.java.name == it.service.className
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.mozilla.rocket.shopping.search.data
+
+import android.util.JsonReader
+import android.util.JsonToken
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.ensureActive
+import mozilla.components.concept.fetch.Client
+import mozilla.components.concept.fetch.Request
+import mozilla.components.lib.fetch.httpurlconnection.HttpURLConnectionClient
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStreamReader
+import java.nio.charset.StandardCharsets
+import java.util.Locale
+import java.util.concurrent.TimeUnit
+import kotlin.coroutines.coroutineContext
+
+/**
+ * Fetches search suggestions for a keyword prefix.
+ *
+ * - One [Client] is shared by every request so HttpURLConnection can reuse kept-alive connections.
+ * - Results are kept in a small LRU cache for [cacheTtlMillis]. A longer prefix is answered from a
+ *   cached shorter prefix when that result was already complete (fewer than [maxSuggestions] items).
+ * - Identical in-flight queries share one request, and starting a new query cancels the superseded ones.
+ * - Responses are parsed by streaming, only the first [maxSuggestions] suggestions are materialized.
+ */
+class SearchSuggestionClient(
+    private val client: Client = HttpURLConnectionClient(),
+    private val maxSuggestions: Int = DEFAULT_MAX_SUGGESTIONS,
+    private val cacheSize: Int = DEFAULT_CACHE_SIZE,
+    private val cacheTtlMillis: Long = DEFAULT_CACHE_TTL_MILLIS,
+    private val clock: () -> Long = { System.currentTimeMillis() }
+) {
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private val cache = object : LinkedHashMap<String, CacheEntry>(cacheSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, CacheEntry>?): Boolean =
+            size > cacheSize
+    }
+
+    private val inFlight = HashMap<String, Deferred<List<String>>>()
+
+    /**
+     * Returns the suggestions for [keyword]. [buildUrl] is only invoked if the suggestions can't be
+     * served from the cache.
+     *
+     * @throws IOException if the request fails or the response can't be parsed
+     */
+    suspend fun fetchSuggestions(keyword: String, buildUrl: (String) -> String): List<String> {
+        val key = keyword.toLowerCase(Locale.getDefault())
+        val request = synchronized(this) {
+            getCachedLocked(key)?.let { return it }
+
+            // Anything the user typed before this keyword is no longer interesting.
+            inFlight.filterKeys { it != key }.values.forEach { it.cancel() }
+
+            inFlight[key] ?: scope.async { load(key, buildUrl(keyword)) }.also { deferred ->
+                inFlight[key] = deferred
+                deferred.invokeOnCompletion {
+                    synchronized(this) {
+                        if (inFlight[key] === deferred) {
+                            inFlight.remove(key)
+                        }
+                    }
+                }
+            }
+        }
+        return request.await()
+    }
+
+    fun clearCache() = synchronized(this) {
+        cache.clear()
+    }
+
+    private fun getCachedLocked(key: String): List<String>? {
+        val now = clock()
+        cache[key]?.let { entry ->
+            if (entry.isValid(now)) {
+                return entry.suggestions
+            }
+            cache.remove(key)
+        }
+
+        // Look for the longest cached prefix whose result was complete, it already contains every
+        // suggestion that can match the longer keyword.
+        for (length in key.length - 1 downTo 1) {
+            val entry = cache[key.substring(0, length)] ?: continue
+            if (entry.isValid(now) && entry.suggestions.size < maxSuggestions) {
+                return entry.suggestions.filter { it.toLowerCase(Locale.getDefault()).startsWith(key) }
+            }
+        }
+        return null
+    }
+
+    private suspend fun load(key: String, url: String): List<String> {
+        val request = Request(
+            url = url,
+            method = Request.Method.GET,
+            connectTimeout = Pair(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS),
+            readTimeout = Pair(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+        )
+        val suggestions = client.fetch(request).use { response ->
+            if (response.status !in 200..299) {
+                throw IOException("Unexpected status code ${response.status}")
+            }
+            response.body.useStream { parseSuggestions(InputStreamReader(it, StandardCharsets.UTF_8)) }
+        }
+        coroutineContext.ensureActive()
+
+        synchronized(this) {
+            cache[key] = CacheEntry(suggestions, clock())
+        }
+        return suggestions
+    }
+
+    private suspend fun parseSuggestions(reader: InputStreamReader): List<String> {
+        val suggestions = ArrayList<String>(maxSuggestions)
+        try {
+            JsonReader(reader).use { json ->
+                if (isEmpty(json)) {
+                    return suggestions
+                }
+                // The response looks like ["query", ["suggestion 1", "suggestion 2", ...], ...]
+                json.beginArray()
+                json.skipValue()
+                if (json.hasNext() && json.peek() == JsonToken.BEGIN_ARRAY) {
+                    json.beginArray()
+                    while (json.hasNext()) {
+                        coroutineContext.ensureActive()
+                        if (suggestions.size < maxSuggestions && json.peek() == JsonToken.STRING) {
+                            suggestions.add(json.nextString())
+                        } else {
+                            json.skipValue()
+                        }
+                    }
+                    json.endArray()
+                }
+                // Consume the rest of the body so the connection can go back to the keep-alive pool.
+                while (json.hasNext()) {
+                    json.skipValue()
+                }
+                json.endArray()
+            }
+        } catch (e: CancellationException) {
+            // Also an IllegalStateException, but the query was superseded rather than malformed
+            throw e
+        } catch (e: IllegalStateException) {
+            throw IOException("Malformed suggestion response", e)
+        }
+        return suggestions
+    }
+
+    private fun isEmpty(json: JsonReader): Boolean = try {
+        json.peek()
+        false
+    } catch (e: EOFException) {
+        true
+    }
+
+    private inner class CacheEntry(val suggestions: List<String>, private val createdAt: Long) {
+        fun isValid(now: Long) = now - createdAt < cacheTtlMillis
+    }
+
+    companion object {
+        const val DEFAULT_MAX_SUGGESTIONS = 5
+        private const val DEFAULT_CACHE_SIZE = 32
+        private val DEFAULT_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5)
+        private const val TIMEOUT_MILLIS = 5000L
+    }
+}
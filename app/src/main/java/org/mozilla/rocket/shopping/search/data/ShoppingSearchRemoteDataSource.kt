@@ -3,6 +3,7 @@ package org.mozilla.rocket.shopping.search.data
 import org.json.JSONException
 import org.json.JSONObject
 import org.mozilla.focus.utils.FirebaseHelper
+import org.mozilla.focus.utils.RemoteConfigCache
 import org.mozilla.rocket.shopping.search.data.ShoppingSearchRemoteDataSource.Companion.JSON_KEY_ID
 import org.mozilla.rocket.shopping.search.data.ShoppingSearchRemoteDataSource.Companion.JSON_KEY_IS_ENABLED
 import org.mozilla.rocket.util.toJsonArray
@@ -13,18 +14,11 @@ class ShoppingSearchRemoteDataSource : ShoppingSearchDataSource {
         "[{\"title\":\"Google\",\"searchUrl\":\"https://www.google.com/search?q=\",\"displayUrl\":\"google.com\",\"showPrompt\":false},{\"title\":\"eBay\",\"searchUrl\":\"https://www.ebay.com/sch/i.html?_nkw=\",\"displayUrl\":\"ebay.com\"},{\"title\":\"Aliexpress\",\"searchUrl\":\"https://www.aliexpress.com/wholesale?SearchText=\",\"displayUrl\":\"aliexpress.com\"}]"
 
     override fun getHomeShoppingSearchEnabledGroups(): List<HomeShoppingSearchEnabledGroup>? =
-        FirebaseHelper.getFirebase().getRcString(RC_KEY_ENABLE_SHOPPING_SEARCH_V2_5)
-            .takeIf { it.isNotEmpty() }
-            ?.jsonStringToHomeShoppingSearchEnabledGroups()
+        RemoteConfigCache.get(HOME_SHOPPING_SEARCH_ENABLED_GROUPS)
 
     override fun getShoppingSites(): List<ShoppingSite> {
-        val shoppingSearchSites =
-            FirebaseHelper.getFirebase().getRcString(RC_KEY_STR_SHOPPING_SEARCH_SITES)
-        if (shoppingSearchSites.isNotEmpty()) {
-            return shoppingSearchSites.toPreferenceSiteList()
-        }
-
-        return emptyList()
+        // ShoppingSite is mutable, the cached ones are only handed out as copies
+        return RemoteConfigCache.get(SHOPPING_SEARCH_SITES)?.map { it.copy() } ?: emptyList()
     }
 
     override fun getDefaultShoppingSites(): List<ShoppingSite> {
@@ -70,6 +64,11 @@ class ShoppingSearchRemoteDataSource : ShoppingSearchDataSource {
 
         const val JSON_KEY_ID = "id"
         const val JSON_KEY_IS_ENABLED = "is_enabled"
+
+        private val HOME_SHOPPING_SEARCH_ENABLED_GROUPS =
+            RemoteConfigCache.Key(RC_KEY_ENABLE_SHOPPING_SEARCH_V2_5) { it.jsonStringToHomeShoppingSearchEnabledGroups() }
+        private val SHOPPING_SEARCH_SITES =
+            RemoteConfigCache.Key(RC_KEY_STR_SHOPPING_SEARCH_SITES) { it.toPreferenceSiteList() }
     }
 }
 
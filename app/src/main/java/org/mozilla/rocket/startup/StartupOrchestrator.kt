@@ -0,0 +1,246 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.rocket.startup
+
+import android.app.Activity
+import android.os.Looper
+import android.os.SystemClock
+import android.util.Log
+import android.util.TimingLogger
+import android.view.ViewTreeObserver
+import androidx.annotation.MainThread
+import org.mozilla.focus.BuildConfig
+import org.mozilla.focus.utils.FirebaseHelper
+import org.mozilla.focus.utils.FirebaseHelper.stopAndClose
+import org.mozilla.threadutils.ThreadUtils
+import java.util.concurrent.Executor
+
+/**
+ * Runs the initializers of a startup stage in dependency order.
+ *
+ * Each initializer declares what it depends on and which thread it needs. Initializers whose
+ * dependencies are done run right away: MAIN ones on the main thread, WORKER ones in parallel on
+ * [workerExecutor]. Deferred initializers wait for [releaseDeferred], usually called once the first
+ * frame is drawn, so they don't hold back the first screen.
+ *
+ * MAIN initializers which are ready when [start] is called run before it returns, so code after
+ * [start] can rely on every critical MAIN initializer without a WORKER dependency being done.
+ */
+class StartupOrchestrator(
+    private val name: String,
+    private val workerExecutor: Executor,
+    private val mainExecutor: Executor = Executor { ThreadUtils.postToMainThread(it) },
+    private val tracer: Tracer = DefaultTracer
+) {
+
+    enum class Affinity {
+        MAIN,
+        WORKER
+    }
+
+    interface Tracer {
+        fun trace(stage: String, block: () -> Unit)
+    }
+
+    private class Initializer(
+        val name: String,
+        val affinity: Affinity,
+        val dependencies: List<String>,
+        val deferred: Boolean,
+        val task: () -> Unit
+    ) {
+        val dependents = mutableListOf<Initializer>()
+        var remaining = dependencies.size
+    }
+
+    private val lock = Any()
+    private val initializers = LinkedHashMap<String, Initializer>()
+    // Initializers whose dependencies are done, guarded by lock
+    private val ready = mutableListOf<Initializer>()
+    private var deferredReleased = false
+    private var started = false
+
+    fun add(
+        name: String,
+        affinity: Affinity = Affinity.MAIN,
+        dependencies: List<String> = emptyList(),
+        deferred: Boolean = false,
+        task: () -> Unit
+    ): StartupOrchestrator {
+        check(!started) { "$name added after start" }
+        check(!initializers.containsKey(name)) { "Duplicate initializer $name" }
+        initializers[name] = Initializer(name, affinity, dependencies, deferred, task)
+        return this
+    }
+
+    /**
+     * @throws IllegalStateException if a dependency is unknown or cyclic, or if a critical
+     * initializer depends on a deferred one
+     */
+    @MainThread
+    fun start() {
+        check(!started) { "$name already started" }
+        started = true
+        validate()
+
+        for (initializer in initializers.values) {
+            for (dependency in initializer.dependencies) {
+                initializers.getValue(dependency).dependents.add(initializer)
+            }
+        }
+        synchronized(lock) {
+            initializers.values.filterTo(ready) { it.remaining == 0 }
+        }
+
+        val timingLogger = TimingLogger(TAG, name)
+        dispatchReady(true, timingLogger)
+        timingLogger.dumpToLog()
+    }
+
+    /**
+     * Let deferred initializers run once their dependencies are done.
+     */
+    @MainThread
+    fun releaseDeferred() {
+        synchronized(lock) {
+            if (deferredReleased) {
+                return
+            }
+            deferredReleased = true
+        }
+        dispatchReady(true, null)
+    }
+
+    /**
+     * Call [releaseDeferred] right after the first frame of the given activity is drawn.
+     */
+    @MainThread
+    fun releaseDeferredAfterFirstFrame(activity: Activity) {
+        val decorView = activity.window.decorView
+        decorView.viewTreeObserver.addOnPreDrawListener(object : ViewTreeObserver.OnPreDrawListener {
+            override fun onPreDraw(): Boolean {
+                decorView.viewTreeObserver.removeOnPreDrawListener(this)
+                // Posted from the pre-draw pass, so it runs after the frame is drawn
+                mainExecutor.execute { releaseDeferred() }
+                return true
+            }
+        })
+    }
+
+    private fun validate() {
+        for (initializer in initializers.values) {
+            for (dependency in initializer.dependencies) {
+                val required = checkNotNull(initializers[dependency]) {
+                    "${initializer.name} depends on unknown initializer $dependency"
+                }
+                check(initializer.deferred || !required.deferred) {
+                    "${initializer.name} is critical but depends on deferred initializer $dependency"
+                }
+            }
+        }
+
+        val visited = HashSet<String>()
+        val visiting = HashSet<String>()
+        fun visit(initializer: Initializer) {
+            if (initializer.name in visited) {
+                return
+            }
+            check(visiting.add(initializer.name)) { "Dependency cycle through ${initializer.name}" }
+            initializer.dependencies.forEach { visit(initializers.getValue(it)) }
+            visiting.remove(initializer.name)
+            visited.add(initializer.name)
+        }
+        initializers.values.forEach { visit(it) }
+    }
+
+    /**
+     * Hand out every ready initializer. MAIN initializers run inline when we are on the main thread,
+     * and are posted to it otherwise.
+     */
+    private fun dispatchReady(onMainThread: Boolean, timingLogger: TimingLogger?) {
+        while (true) {
+            val inline = mutableListOf<Initializer>()
+            val posted = mutableListOf<Initializer>()
+            val workers = mutableListOf<Initializer>()
+            synchronized(lock) {
+                val iterator = ready.iterator()
+                while (iterator.hasNext()) {
+                    val initializer = iterator.next()
+                    if (initializer.deferred && !deferredReleased) {
+                        continue
+                    }
+                    iterator.remove()
+                    when {
+                        initializer.affinity == Affinity.WORKER -> workers.add(initializer)
+                        onMainThread -> inline.add(initializer)
+                        else -> posted.add(initializer)
+                    }
+                }
+            }
+
+            // Executors are called outside the lock, they may run the task right away
+            for (initializer in workers) {
+                workerExecutor.execute { runAndDispatch(initializer, false) }
+            }
+            for (initializer in posted) {
+                mainExecutor.execute { runAndDispatch(initializer, true) }
+            }
+            if (inline.isEmpty()) {
+                return
+            }
+            for (initializer in inline) {
+                run(initializer)
+                timingLogger?.addSplit(initializer.name)
+            }
+        }
+    }
+
+    private fun runAndDispatch(initializer: Initializer, onMainThread: Boolean) {
+        run(initializer)
+        dispatchReady(onMainThread, null)
+    }
+
+    private fun run(initializer: Initializer) {
+        tracer.trace("${name}_${initializer.name}", initializer.task)
+        synchronized(lock) {
+            for (dependent in initializer.dependents) {
+                dependent.remaining--
+                if (dependent.remaining == 0) {
+                    ready.add(dependent)
+                }
+            }
+        }
+    }
+
+    /**
+     * Logs how long each initializer took in debug builds, and reports those running on the main thread as Firebase
+     * traces. FirebaseHelper keeps its traces in a map only ever touched from the main thread, so
+     * WORKER initializers are only logged, they aren't on the critical path anyway.
+     */
+    private object DefaultTracer : Tracer {
+        override fun trace(stage: String, block: () -> Unit) {
+            // Firebase itself is set up by an initializer
+            val trace = if (Looper.myLooper() == Looper.getMainLooper() && FirebaseHelper.isInitialized()) {
+                FirebaseHelper.newTrace(stage)?.apply { start() }
+            } else {
+                null
+            }
+            val startTime = SystemClock.elapsedRealtime()
+            try {
+                block()
+            } finally {
+                trace?.stopAndClose()
+                if (BuildConfig.DEBUG) {
+                    Log.d(TAG, "$stage took ${SystemClock.elapsedRealtime() - startTime}ms on ${Thread.currentThread().name}")
+                }
+            }
+        }
+    }
+
+    companion object {
+        private const val TAG = "StartupOrchestrator"
+    }
+}
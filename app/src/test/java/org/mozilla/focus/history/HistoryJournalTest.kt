@@ -0,0 +1,170 @@
+package org.mozilla.focus.history
+
+import android.content.ContentProvider
+import android.content.ContentUris
+import android.content.ContentValues
+import android.content.Context
+import android.database.Cursor
+import android.database.MatrixCursor
+import android.net.Uri
+import android.os.Build
+import android.os.Handler
+import android.os.Looper
+import androidx.test.core.app.ApplicationProvider
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mozilla.focus.provider.HistoryContract
+import org.mozilla.focus.provider.HistoryContract.BrowsingHistory
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.shadows.ShadowLooper
+import java.io.File
+
+@RunWith(RobolectricTestRunner::class)
+@Config(maxSdk = Build.VERSION_CODES.P, minSdk = Build.VERSION_CODES.LOLLIPOP)
+class HistoryJournalTest {
+
+    private lateinit var context: Context
+    private lateinit var provider: FakeHistoryProvider
+    private val worker = Handler(Looper.getMainLooper())
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        provider = Robolectric.setupContentProvider(FakeHistoryProvider::class.java, HistoryContract.AUTHORITY)
+        journalFile().delete()
+    }
+
+    @Test
+    fun coalescesRepeatedLoadsOfAPage() {
+        val journal = createJournal()
+
+        journal.recordVisit(URL, "title", 1000L)
+        // A reload within the window is the same visit
+        journal.recordVisit(URL, null, 1000L + HistoryJournal.COALESCE_WINDOW_MS / 2)
+        journal.recordUpdate(URL, null, "icon")
+        journal.recordVisit(URL, null, 1000L + HistoryJournal.COALESCE_WINDOW_MS * 2)
+        runWorker()
+        assertTrue(provider.rows.isEmpty())
+
+        journal.flush()
+        runWorker()
+
+        val row = provider.rows.getValue(URL)
+        assertEquals(2, row.viewCount)
+        assertEquals(1000L + HistoryJournal.COALESCE_WINDOW_MS * 2, row.lastViewTimestamp)
+        assertEquals("title", row.title)
+        assertEquals("icon", row.favIconUri)
+    }
+
+    @Test
+    fun truncatesTheJournalOnceCommitted() {
+        val journal = createJournal()
+
+        journal.recordVisit(URL, "title", 1000L)
+        runWorker()
+        assertTrue(journalFile().length() > 0)
+
+        journal.flush()
+        runWorker()
+        assertFalse(journalFile().exists())
+    }
+
+    @Test
+    fun replaysRecordsOfAKilledProcess() {
+        createJournal().recordVisit(URL, "title", 1000L)
+        runWorker()
+
+        // The next process
+        val journal = createJournal()
+        journal.flush()
+        runWorker()
+
+        val row = provider.rows.getValue(URL)
+        assertEquals(1, row.viewCount)
+        assertEquals("title", row.title)
+        assertFalse(journalFile().exists())
+    }
+
+    @Test
+    fun doesNotCountCommittedVisitsTwice() {
+        val journal = createJournal()
+        journal.recordVisit(URL, "title", 1000L)
+        journal.recordVisit(OTHER_URL, "other", 2000L)
+        runWorker()
+        val records = journalFile().readBytes()
+        journal.flush()
+        runWorker()
+
+        // Killed after the commit, before the truncation
+        journalFile().writeBytes(records)
+        val nextJournal = createJournal()
+        nextJournal.recordVisit(OTHER_URL, null, 2000L + HistoryJournal.COALESCE_WINDOW_MS * 2)
+        nextJournal.flush()
+        runWorker()
+
+        assertEquals(1, provider.rows.getValue(URL).viewCount)
+        assertEquals(2, provider.rows.getValue(OTHER_URL).viewCount)
+    }
+
+    private fun createJournal() = HistoryJournal(context, context.contentResolver, worker)
+
+    private fun journalFile() = File(context.filesDir, "history_journal")
+
+    private fun runWorker() = ShadowLooper.idleMainLooper()
+
+    class FakeHistoryProvider : ContentProvider() {
+
+        class Row(var viewCount: Int, var lastViewTimestamp: Long, var title: String?, var favIconUri: String?)
+
+        val rows = LinkedHashMap<String, Row>()
+
+        override fun onCreate() = true
+
+        override fun insert(uri: Uri, values: ContentValues?): Uri? {
+            val url = values!!.getAsString(BrowsingHistory.URL)
+            val row = rows.getOrPut(url) { Row(0, 0L, null, null) }
+            row.viewCount++
+            row.lastViewTimestamp = values.getAsLong(BrowsingHistory.LAST_VIEW_TIMESTAMP)
+            setOptionalValues(row, values)
+            return ContentUris.withAppendedId(uri, rows.keys.indexOf(url).toLong())
+        }
+
+        override fun update(uri: Uri, values: ContentValues?, selection: String?, selectionArgs: Array<out String>?): Int {
+            val row = rows[selectionArgs!![0]] ?: return 0
+            setOptionalValues(row, values!!)
+            return 1
+        }
+
+        override fun query(
+            uri: Uri,
+            projection: Array<out String>?,
+            selection: String?,
+            selectionArgs: Array<out String>?,
+            sortOrder: String?
+        ): Cursor {
+            val cursor = MatrixCursor(arrayOf(BrowsingHistory.LAST_VIEW_TIMESTAMP))
+            rows[selectionArgs!![0]]?.let { cursor.addRow(arrayOf(it.lastViewTimestamp)) }
+            return cursor
+        }
+
+        override fun delete(uri: Uri, selection: String?, selectionArgs: Array<out String>?) = 0
+
+        override fun getType(uri: Uri): String? = null
+
+        private fun setOptionalValues(row: Row, values: ContentValues) {
+            values.getAsString(BrowsingHistory.TITLE)?.let { row.title = it }
+            values.getAsString(BrowsingHistory.FAV_ICON_URI)?.let { row.favIconUri = it }
+        }
+    }
+
+    companion object {
+        private const val URL = "https://mozilla.org/"
+        private const val OTHER_URL = "https://example.com/"
+    }
+}
@@ -0,0 +1,89 @@
+package org.mozilla.focus.screenshot;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+
+public class PngStreamWriterTest {
+
+    @Test
+    public void testRowsDecodeToSameColors() throws Exception {
+        final int width = 300;
+        final int height = 400;
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final PngStreamWriter writer = new PngStreamWriter(output, width, height);
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = color(x, y);
+            }
+            writer.writeRow(row, 0);
+        }
+        writer.finish();
+        writer.close();
+
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(color(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testStripsCompressedInParallel() throws Exception {
+        final int width = 500;
+        final int height = 3000;
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final PngStreamWriter writer = new PngStreamWriter(output, width, height, executor, 3);
+        final int tileHeight = 700;
+        final int[] tile = new int[width * tileHeight];
+        for (int top = 0; top < height; top += tileHeight) {
+            final int rows = Math.min(tileHeight, height - top);
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x < width; x++) {
+                    tile[y * width + x] = color(x, top + y);
+                }
+            }
+            writer.writeRows(tile, 0, rows);
+        }
+        writer.finish();
+        writer.close();
+        executor.shutdown();
+
+        final BufferedImage image = ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(color(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFinishRequiresAllRows() throws Exception {
+        final PngStreamWriter writer = new PngStreamWriter(new ByteArrayOutputStream(), 2, 2);
+        writer.writeRow(new int[2], 0);
+        writer.finish();
+    }
+
+    private static int color(int x, int y) {
+        // Noise, so the compressed image needs more than one IDAT chunk
+        int hash = x * 0x9e3779b1 ^ y * 0x85ebca6b;
+        hash ^= hash >>> 15;
+        hash *= 0x2c1b3c6d;
+        hash ^= hash >>> 12;
+        return 0xff000000 | (hash & 0xffffff);
+    }
+}
@@ -0,0 +1,125 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.focus.search;
+
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(maxSdk = Build.VERSION_CODES.P, minSdk = Build.VERSION_CODES.LOLLIPOP)
+public class SearchEngineManagerTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void keepsOrderOfParsersWhateverOrderTheyComplete() throws Exception {
+        final CountDownLatch firstMayFinish = new CountDownLatch(1);
+        final CountDownLatch lastFinished = new CountDownLatch(1);
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+        final List<Callable<String>> parsers = Arrays.asList(
+                () -> {
+                    threads.add(Thread.currentThread().getName());
+                    // Completes after the last one
+                    assertTrue(firstMayFinish.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                    return "first";
+                },
+                () -> {
+                    threads.add(Thread.currentThread().getName());
+                    return "second";
+                },
+                () -> {
+                    threads.add(Thread.currentThread().getName());
+                    lastFinished.countDown();
+                    return "last";
+                });
+
+        new Thread(() -> {
+            try {
+                lastFinished.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            firstMayFinish.countDown();
+        }).start();
+
+        final List<String> results = SearchEngineManager.parseInParallel(parsers, -1, null, executor);
+
+        assertEquals(Arrays.asList("first", "second", "last"), results);
+        assertFalse(threads.contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void usesKnownResultInItsPosition() throws Exception {
+        final String known = "default";
+        final List<Callable<String>> parsers = new ArrayList<>(Arrays.asList(
+                () -> "first",
+                () -> {
+                    fail("The known result must not be parsed again");
+                    return null;
+                },
+                () -> "last"));
+
+        final List<String> results = SearchEngineManager.parseInParallel(parsers, 1, known, executor);
+
+        assertEquals(Arrays.asList("first", known, "last"), results);
+        assertSame(known, results.get(1));
+    }
+
+    @Test
+    public void skipsFailingParsers() throws Exception {
+        final String known = "default";
+        final List<Callable<String>> parsers = Arrays.asList(
+                () -> {
+                    throw new IllegalStateException("Broken plugin");
+                },
+                () -> "second",
+                () -> known,
+                () -> {
+                    throw new IOException("Missing plugin");
+                });
+
+        final List<String> results = SearchEngineManager.parseInParallel(parsers, 2, known, executor);
+
+        assertEquals(Arrays.asList("second", known), results);
+    }
+
+    @Test
+    public void returnsNothingWithoutParsers() throws Exception {
+        assertEquals(Collections.emptyList(),
+                SearchEngineManager.parseInParallel(Collections.<Callable<String>>emptyList(), -1, null, executor));
+    }
+}
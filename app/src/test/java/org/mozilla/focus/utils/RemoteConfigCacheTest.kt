@@ -0,0 +1,63 @@
+package org.mozilla.focus.utils
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.mozilla.rocket.util.LiveDataTestUtil
+
+class RemoteConfigCacheTest {
+
+    @get:Rule
+    var instantTaskExecutorRule = InstantTaskExecutorRule()
+
+    private val remoteConfig = HashMap<String, Any>()
+    private var decodeCount = 0
+    private val key = RemoteConfigCache.Key(KEY) {
+        decodeCount++
+        it.split(",")
+    }
+
+    @Before
+    fun setUp() {
+        FirebaseHelper.replaceContract(FirebaseNoOpImp(remoteConfig))
+    }
+
+    @Test
+    fun decodesOncePerConfig() {
+        remoteConfig[KEY] = "a,b"
+
+        assertEquals(listOf("a", "b"), RemoteConfigCache.get(key))
+        assertEquals(listOf("a", "b"), RemoteConfigCache.get(key))
+        assertEquals(1, decodeCount)
+
+        remoteConfig[KEY] = "c"
+        RemoteConfigCache.invalidate()
+        assertEquals(listOf("c"), RemoteConfigCache.get(key))
+        assertEquals(2, decodeCount)
+    }
+
+    @Test
+    fun emptyValueIsNotDecoded() {
+        assertNull(RemoteConfigCache.get(key))
+        assertNull(RemoteConfigCache.get(key))
+        assertEquals(0, decodeCount)
+    }
+
+    @Test
+    fun observedValueFollowsInvalidation() {
+        remoteConfig[KEY] = "a"
+        val data = RemoteConfigCache.observe(key)
+        assertEquals(listOf("a"), LiveDataTestUtil.getValue(data))
+
+        remoteConfig[KEY] = "b"
+        RemoteConfigCache.invalidate()
+        assertEquals(listOf("b"), LiveDataTestUtil.getValue(data))
+    }
+
+    companion object {
+        private const val KEY = "str_test_key"
+    }
+}
@@ -0,0 +1,63 @@
+package org.mozilla.rocket.cache
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.mozilla.rocket.cache.CacheUsageReporter.Budget
+import org.mozilla.rocket.util.LiveDataTestUtil
+import java.io.File
+import java.util.concurrent.Executor
+
+class CacheUsageReporterTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    @get:Rule
+    var instantTaskExecutorRule = InstantTaskExecutorRule()
+
+    @Test
+    fun measuresFilesOfNestedDirectories() {
+        val cache = folder.newFolder("cache")
+        val files = (0 until 10).map { createFile(File(cache, "dir${it % 2}/file$it")) }
+        val reporter = createReporter(Budget("cache", 500) { cache })
+
+        reporter.measure()
+
+        // Only measured, even over the budget
+        files.forEach { assertTrue(it.name, it.exists()) }
+        val usage = LiveDataTestUtil.getValue(reporter.usage)!!.single()
+        assertEquals(1000L, usage.bytes)
+        assertEquals(10, usage.files)
+        assertEquals(500L, usage.maxBytes)
+    }
+
+    @Test
+    fun measuresMissingDirectoriesAsEmpty() {
+        val cache = folder.newFolder("cache")
+        createFile(File(cache, "file"))
+        val reporter = createReporter(
+            Budget("cache", 50) { cache },
+            Budget("missing", 50) { File(folder.root, "missing") },
+            Budget("unknown", 50) { null }
+        )
+
+        reporter.measure()
+
+        val usage = LiveDataTestUtil.getValue(reporter.usage)!!
+        assertEquals(100L, usage[0].bytes)
+        assertEquals(0L, usage[1].bytes)
+        assertEquals(0, usage[2].files)
+    }
+
+    private fun createReporter(vararg budgets: Budget) = CacheUsageReporter(budgets.toList(), Executor { it.run() })
+
+    private fun createFile(file: File): File {
+        file.parentFile!!.mkdirs()
+        file.writeBytes(ByteArray(100))
+        return file
+    }
+}
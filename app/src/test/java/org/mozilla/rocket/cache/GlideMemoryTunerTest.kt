@@ -0,0 +1,91 @@
+package org.mozilla.rocket.cache
+
+import android.content.ComponentCallbacks2
+import com.bumptech.glide.load.engine.Resource
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool
+import com.bumptech.glide.load.engine.cache.LruResourceCache
+import com.bumptech.glide.signature.ObjectKey
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.mozilla.rocket.cache.GlideMemoryTuner.DeviceClass
+import org.mozilla.rocket.cache.GlideMemoryTuner.Stats
+
+class GlideMemoryTunerTest {
+
+    @Test
+    fun growsWhenThrashing() {
+        val thrashing = Stats("cache", hits = 30, misses = 70, evictions = 40, maxBytes = 0)
+
+        assertEquals(1.25f, GlideMemoryTuner.tune(1f, thrashing, false, DeviceClass.NORMAL), DELTA)
+        // Up to the limit of the device
+        assertEquals(1f, GlideMemoryTuner.tune(1f, thrashing, false, DeviceClass.LOW_RAM), DELTA)
+    }
+
+    @Test
+    fun keepsSizeWithoutEnoughEvidence() {
+        val hitting = Stats("cache", hits = 80, misses = 20, evictions = 40, maxBytes = 0)
+        val notFull = Stats("cache", hits = 30, misses = 70, evictions = 0, maxBytes = 0)
+        val idle = Stats("cache", hits = 3, misses = 7, evictions = 4, maxBytes = 0)
+
+        assertEquals(1f, GlideMemoryTuner.tune(1f, hitting, false, DeviceClass.NORMAL), DELTA)
+        assertEquals(1f, GlideMemoryTuner.tune(1f, notFull, false, DeviceClass.NORMAL), DELTA)
+        assertEquals(1f, GlideMemoryTuner.tune(1f, idle, false, DeviceClass.NORMAL), DELTA)
+        assertEquals(1f, GlideMemoryTuner.tune(1f, null, false, DeviceClass.NORMAL), DELTA)
+    }
+
+    @Test
+    fun shrinksUnderPressure() {
+        val thrashing = Stats("cache", hits = 30, misses = 70, evictions = 40, maxBytes = 0)
+
+        assertEquals(0.75f, GlideMemoryTuner.tune(1f, thrashing, true, DeviceClass.HIGH_RAM), DELTA)
+        // Down to the limit of the device
+        assertEquals(0.5f, GlideMemoryTuner.tune(0.5f, null, true, DeviceClass.HIGH_RAM), DELTA)
+    }
+
+    @Test
+    fun countsOnlyEvictionsMakingRoom() {
+        val memoryCache = LruResourceCache(1000)
+        val arrayPool = LruArrayPool(1000)
+        repeat(20) {
+            memoryCache.put(ObjectKey(it), TestResource(100))
+            arrayPool.put(ByteArray(100), ByteArray::class.java)
+        }
+        assertEquals(10, memoryCache.evictionCount())
+        assertEquals(10, arrayPool.evictionCount())
+
+        // Glide's own trim once the UI is hidden, and the clear under pressure
+        memoryCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+        memoryCache.clearMemory()
+        arrayPool.trimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+        arrayPool.clearMemory()
+
+        assertEquals(10, memoryCache.evictionCount())
+        assertEquals(10, arrayPool.evictionCount())
+    }
+
+    @Test
+    fun doesNotGrowFromPressureEvictions() {
+        val memoryCache = LruResourceCache(1000)
+        repeat(50) { memoryCache.put(ObjectKey(it), TestResource(20)) }
+        memoryCache.clearMemory()
+        // Every lookup misses once cleared
+        repeat(100) { memoryCache.remove(ObjectKey(it)) }
+
+        val stats = Stats("cache", memoryCache.hitCount(), memoryCache.missCount(), memoryCache.evictionCount(), 0)
+        assertEquals(1f, GlideMemoryTuner.tune(1f, stats, false, DeviceClass.NORMAL), DELTA)
+    }
+
+    private class TestResource(private val size: Int) : Resource<Any> {
+        override fun getResourceClass() = Any::class.java
+
+        override fun get() = Any()
+
+        override fun getSize() = size
+
+        override fun recycle() = Unit
+    }
+
+    companion object {
+        private const val DELTA = 0.001f
+    }
+}
@@ -0,0 +1,117 @@
+package org.mozilla.rocket.favicon
+
+import android.graphics.Bitmap
+import android.graphics.Color
+import android.net.Uri
+import android.os.Build
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.File
+import java.util.concurrent.Executor
+
+@RunWith(RobolectricTestRunner::class)
+@Config(maxSdk = Build.VERSION_CODES.P, minSdk = Build.VERSION_CODES.LOLLIPOP)
+class FaviconStoreTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val referencedUris = ArrayList<String?>()
+    private var now = System.currentTimeMillis()
+
+    @Test
+    fun sameIconIsStoredOnce() {
+        val directory = folder.newFolder("favicons")
+        val store = createStore(directory)
+        val uris = ArrayList<String?>()
+
+        store.save(createIcon(Color.RED)) { uris.add(it) }
+        store.save(createIcon(Color.RED)) { uris.add(it) }
+        store.save(createIcon(Color.BLUE)) { uris.add(it) }
+
+        assertEquals(3, uris.size)
+        assertEquals(uris[0], uris[1])
+        assertNotEquals(uris[0], uris[2])
+        assertEquals(2, directory.list()!!.size)
+    }
+
+    @Test
+    fun unreferencedIconsAreDeleted() {
+        val directory = folder.newFolder("favicons")
+        val store = createStore(directory)
+        var kept: String? = null
+        var deleted: String? = null
+        store.save(createIcon(Color.RED)) { kept = it }
+        store.save(createIcon(Color.BLUE)) { deleted = it }
+        referencedUris.add(kept)
+        referencedUris.add(null)
+
+        store.collectGarbage()
+        assertEquals(2, directory.list()!!.size)
+
+        now += DAY * 2
+        store.collectGarbage()
+        assertTrue(fileOf(kept).exists())
+        assertFalse(fileOf(deleted).exists())
+
+        // Saved again once it's gone
+        store.save(createIcon(Color.BLUE)) { assertEquals(deleted, it) }
+        assertTrue(fileOf(deleted).exists())
+    }
+
+    @Test
+    fun reusedIconIsKeptAsNew() {
+        val directory = folder.newFolder("favicons")
+        val store = createStore(directory)
+        var uri: String? = null
+        store.save(createIcon(Color.RED)) { uri = it }
+
+        // Saved again for a page the history doesn't refer to yet
+        now += DAY * 2
+        store.save(createIcon(Color.RED)) { assertEquals(uri, it) }
+        store.collectGarbage()
+
+        assertTrue(fileOf(uri).exists())
+    }
+
+    @Test
+    fun refinedIconIsShared() {
+        val store = createStore(folder.newFolder("favicons"))
+        var refineCount = 0
+        val refine = { icon: Bitmap ->
+            refineCount++
+            icon
+        }
+
+        store.getRefinedIcon(createIcon(Color.RED), refine)
+        store.getRefinedIcon(createIcon(Color.RED), refine)
+        store.getRefinedIcon(createIcon(Color.BLUE), refine)
+
+        assertEquals(2, refineCount)
+    }
+
+    private fun createStore(directory: File) = FaviconStore(
+        { directory },
+        { referencedUris },
+        Executor { it.run() },
+        Executor { it.run() },
+        { now }
+    )
+
+    private fun createIcon(color: Int): Bitmap =
+        Bitmap.createBitmap(IntArray(16) { color }, 4, 4, Bitmap.Config.ARGB_8888)
+
+    private fun fileOf(uri: String?) = File(Uri.parse(uri).path!!)
+
+    companion object {
+        private const val DAY = 24 * 60 * 60 * 1000L
+    }
+}
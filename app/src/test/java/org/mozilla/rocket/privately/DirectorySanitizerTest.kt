@@ -0,0 +1,95 @@
+package org.mozilla.rocket.privately
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.util.concurrent.Executor
+
+class DirectorySanitizerTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val reports = ArrayList<DirectorySanitizer.Report>()
+    private val pendingDeletes = ArrayList<Runnable>()
+
+    @Test
+    fun movesDirectoriesAsideBeforeDeleting() {
+        val cache = createTree("cache", 3, 5)
+        val webView = createTree("webview", 1, 2)
+        val tombstones = File(folder.root, "tombstones")
+        val sanitizer = DirectorySanitizer(tombstones, Executor { it.run() }, Executor { pendingDeletes.add(it) }, 2) {
+            reports.add(it)
+        }
+
+        sanitizer.sanitize { listOf(cache, webView, File(folder.root, "missing")) }
+
+        assertFalse(cache.exists())
+        assertFalse(webView.exists())
+        assertEquals(2, tombstones.list()!!.size)
+        assertTrue(pendingDeletes.size > 1)
+
+        pendingDeletes.forEach { it.run() }
+        assertEquals(0, tombstones.list()!!.size)
+        assertEquals(1, reports.size)
+        with(reports[0]) {
+            assertEquals(2, directories)
+            assertEquals(24, files)
+            assertEquals(24L * FILE_SIZE, bytes)
+            assertTrue(complete)
+        }
+    }
+
+    @Test
+    fun resumeDeletesLeftTombstones() {
+        val tombstones = File(folder.root, "tombstones")
+        tombstones.mkdirs()
+        createTree("tombstones/cache-1-0", 2, 2)
+        val sanitizer = DirectorySanitizer(tombstones, Executor { it.run() }, Executor { it.run() }, 2) {
+            reports.add(it)
+        }
+
+        sanitizer.resume()
+
+        assertEquals(0, tombstones.list()!!.size)
+        assertEquals(6, reports[0].files)
+    }
+
+    @Test
+    fun emptyTombstoneRootIsNotReported() {
+        val sanitizer = DirectorySanitizer(File(folder.root, "tombstones"), Executor { it.run() }, Executor { it.run() }, 2) {
+            reports.add(it)
+        }
+
+        sanitizer.resume()
+
+        assertTrue(reports.isEmpty())
+    }
+
+    /**
+     * @return a directory with [files] files and [subdirectories] directories of [files] files
+     */
+    private fun createTree(name: String, subdirectories: Int, files: Int): File {
+        val root = File(folder.root, name)
+        root.mkdirs()
+        for (i in 0 until files) {
+            File(root, "file$i").writeBytes(ByteArray(FILE_SIZE))
+        }
+        for (d in 0 until subdirectories) {
+            val directory = File(root, "dir$d")
+            directory.mkdirs()
+            for (i in 0 until files) {
+                File(directory, "file$i").writeBytes(ByteArray(FILE_SIZE))
+            }
+        }
+        return root
+    }
+
+    companion object {
+        private const val FILE_SIZE = 100
+    }
+}
@@ -0,0 +1,108 @@
+package org.mozilla.rocket.privately
+
+import android.app.ActivityManager
+import android.content.ComponentName
+import android.content.Context
+import android.content.ContextWrapper
+import android.content.Intent
+import android.content.ServiceConnection
+import android.os.Binder
+import android.os.Build
+import androidx.test.core.app.ApplicationProvider
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mozilla.rocket.component.PrivateSessionNotificationService
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(maxSdk = Build.VERSION_CODES.P, minSdk = Build.VERSION_CODES.LOLLIPOP)
+class PrivateSessionTrackerTest {
+
+    private lateinit var context: RecordingContext
+    private lateinit var service: ComponentName
+
+    @Before
+    fun setUp() {
+        context = RecordingContext(ApplicationProvider.getApplicationContext())
+        service = ComponentName(context, PrivateSessionNotificationService::class.java)
+    }
+
+    @Test
+    fun followsServiceConnection() {
+        val tracker = PrivateSessionTracker(context)
+        assertFalse(tracker.isActive)
+        // Bound without creating the service
+        assertEquals(1, context.bindCount)
+        assertEquals(0, context.lastFlags)
+
+        tracker.onServiceConnected(service, Binder())
+        assertTrue(tracker.isActive)
+
+        tracker.onServiceDisconnected(service)
+        assertFalse(tracker.isActive)
+        assertEquals(1, context.bindCount)
+    }
+
+    @Test
+    fun looksUpRunningServiceWhenStarting() {
+        setServiceRunning()
+
+        assertTrue(PrivateSessionTracker(context).isActive)
+    }
+
+    @Test
+    fun looksUpRunningServiceWhenBindingFails() {
+        context.bindResult = false
+        val tracker = PrivateSessionTracker(context)
+
+        assertFalse(tracker.isActive)
+        setServiceRunning()
+        assertTrue(tracker.isActive)
+        // Not tracked, so every call looks it up again
+        assertEquals(2, context.bindCount)
+    }
+
+    @Test
+    fun rebindsWhenBindingDies() {
+        val tracker = PrivateSessionTracker(context)
+        tracker.isActive
+        tracker.onServiceConnected(service, Binder())
+
+        tracker.onBindingDied(service)
+        assertEquals(1, context.unbindCount)
+
+        assertFalse(tracker.isActive)
+        assertEquals(2, context.bindCount)
+        tracker.onServiceConnected(service, Binder())
+        assertTrue(tracker.isActive)
+    }
+
+    private fun setServiceRunning() {
+        val manager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+        val info = ActivityManager.RunningServiceInfo().apply { service = this@PrivateSessionTrackerTest.service }
+        shadowOf(manager).setServices(listOf(info))
+    }
+
+    private class RecordingContext(base: Context) : ContextWrapper(base) {
+        var bindResult = true
+        var bindCount = 0
+        var unbindCount = 0
+        var lastFlags = -1
+
+        override fun bindService(service: Intent, conn: ServiceConnection, flags: Int): Boolean {
+            bindCount++
+            lastFlags = flags
+            return bindResult
+        }
+
+        override fun unbindService(conn: ServiceConnection) {
+            unbindCount++
+        }
+    }
+}
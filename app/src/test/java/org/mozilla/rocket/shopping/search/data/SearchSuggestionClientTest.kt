@@ -0,0 +1,125 @@
+package org.mozilla.rocket.shopping.search.data
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.runBlocking
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+@RunWith(RobolectricTestRunner::class)
+class SearchSuggestionClientTest {
+
+    private lateinit var server: MockWebServer
+    private var now = 0L
+    private val client = SearchSuggestionClient(maxSuggestions = 3, cacheTtlMillis = 1000L, clock = { now })
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    @Test
+    fun `parses at most maxSuggestions items from the response`() = runBlocking {
+        server.enqueue(MockResponse().setBody("""["sho",["shoes","shop","shopee","shorts"],[],{}]"""))
+
+        assertEquals(listOf("shoes", "shop", "shopee"), fetch("sho"))
+    }
+
+    @Test
+    fun `serves the same keyword from the cache until it expires`() = runBlocking {
+        server.enqueue(MockResponse().setBody("""["sho",["shoes","shop","shopee"]]"""))
+        server.enqueue(MockResponse().setBody("""["sho",["shorts"]]"""))
+
+        assertEquals(listOf("shoes", "shop", "shopee"), fetch("sho"))
+        assertEquals(listOf("shoes", "shop", "shopee"), fetch("SHO"))
+        assertEquals(1, server.requestCount)
+
+        now += 1000L
+        assertEquals(listOf("shorts"), fetch("sho"))
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun `answers a longer prefix by filtering a complete shorter prefix result`() = runBlocking {
+        server.enqueue(MockResponse().setBody("""["sh",["shoes","shirt"]]"""))
+
+        assertEquals(listOf("shoes", "shirt"), fetch("sh"))
+        assertEquals(listOf("shoes"), fetch("sho"))
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun `does not filter a shorter prefix result that was truncated`() = runBlocking {
+        server.enqueue(MockResponse().setBody("""["sh",["shirt","shell","shade"]]"""))
+        server.enqueue(MockResponse().setBody("""["sho",["shoes"]]"""))
+
+        fetch("sh")
+        assertEquals(listOf("shoes"), fetch("sho"))
+        assertEquals(2, server.requestCount)
+    }
+
+    @Test
+    fun `deduplicates identical in-flight queries`() = runBlocking {
+        server.enqueue(MockResponse().setBody("""["sho",["shoes"]]""").setBodyDelay(200, TimeUnit.MILLISECONDS))
+
+        val first = async { fetch("sho") }
+        val second = async { fetch("sho") }
+
+        assertEquals(listOf("shoes"), first.await())
+        assertEquals(listOf("shoes"), second.await())
+        assertEquals(1, server.requestCount)
+    }
+
+    @Test
+    fun `reports malformed responses as IOException`() = runBlocking {
+        server.enqueue(MockResponse().setBody("""{"not":"an array"}"""))
+
+        try {
+            fetch("sho")
+            fail("Expected an IOException")
+        } catch (e: IOException) {
+            // Expected
+        }
+    }
+
+    @Test
+    fun `returns no suggestions for an empty response`() = runBlocking {
+        server.enqueue(MockResponse().setBody(""))
+
+        assertEquals(emptyList<String>(), fetch("sho"))
+    }
+
+    @Test
+    fun `reports superseded queries as cancelled rather than malformed`() = runBlocking {
+        server.enqueue(MockResponse().setBody("""["sho",["shoes","shop","shopee","shorts"]]""")
+            .throttleBody(4, 50, TimeUnit.MILLISECONDS))
+        server.enqueue(MockResponse().setBody("""["shi",["shirt"]]"""))
+
+        val first = async(Dispatchers.IO) { runCatching { fetch("sho") } }
+        server.takeRequest(5, TimeUnit.SECONDS)
+        assertEquals(listOf("shirt"), fetch("shi"))
+
+        val error = first.await().exceptionOrNull()
+        assertTrue("$error", error is CancellationException)
+    }
+
+    private suspend fun fetch(keyword: String): List<String> =
+        client.fetchSuggestions(keyword) { server.url("/complete?q=$it").toString() }
+}
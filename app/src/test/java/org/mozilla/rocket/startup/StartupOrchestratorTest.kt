@@ -0,0 +1,85 @@
+package org.mozilla.rocket.startup
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.concurrent.Executor
+
+class StartupOrchestratorTest {
+
+    private val stages = mutableListOf<String>()
+    private val pendingWork = mutableListOf<Runnable>()
+    private val directExecutor = Executor { it.run() }
+    private val queueingExecutor = Executor { pendingWork.add(it) }
+    private val tracer = object : StartupOrchestrator.Tracer {
+        override fun trace(stage: String, block: () -> Unit) {
+            stages.add(stage)
+            block()
+        }
+    }
+
+    @Test
+    fun runsInitializersAfterTheirDependencies() {
+        val order = mutableListOf<String>()
+        StartupOrchestrator("test", directExecutor, directExecutor, tracer)
+            .add("c", dependencies = listOf("a", "b")) { order.add("c") }
+            .add("b", dependencies = listOf("a")) { order.add("b") }
+            .add("a") { order.add("a") }
+            .start()
+
+        assertEquals(listOf("a", "b", "c"), order)
+        assertEquals(listOf("test_a", "test_b", "test_c"), stages)
+    }
+
+    @Test
+    fun mainInitializerWaitsForWorkerDependency() {
+        val order = mutableListOf<String>()
+        StartupOrchestrator("test", queueingExecutor, directExecutor, tracer)
+            .add("worker", StartupOrchestrator.Affinity.WORKER) { order.add("worker") }
+            .add("main", dependencies = listOf("worker")) { order.add("main") }
+            .add("independent") { order.add("independent") }
+            .start()
+
+        assertEquals(listOf("independent"), order)
+        assertEquals(1, pendingWork.size)
+
+        pendingWork.removeAt(0).run()
+        assertEquals(listOf("independent", "worker", "main"), order)
+    }
+
+    @Test
+    fun deferredInitializersWaitForRelease() {
+        val order = mutableListOf<String>()
+        val orchestrator = StartupOrchestrator("test", directExecutor, directExecutor, tracer)
+            .add("critical") { order.add("critical") }
+            .add("deferred", deferred = true, dependencies = listOf("critical")) { order.add("deferred") }
+        orchestrator.start()
+        assertEquals(listOf("critical"), order)
+
+        orchestrator.releaseDeferred()
+        orchestrator.releaseDeferred()
+        assertEquals(listOf("critical", "deferred"), order)
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun unknownDependencyFails() {
+        StartupOrchestrator("test", directExecutor, directExecutor, tracer)
+            .add("a", dependencies = listOf("missing")) {}
+            .start()
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun dependencyCycleFails() {
+        StartupOrchestrator("test", directExecutor, directExecutor, tracer)
+            .add("a", dependencies = listOf("b")) {}
+            .add("b", dependencies = listOf("a")) {}
+            .start()
+    }
+
+    @Test(expected = IllegalStateException::class)
+    fun criticalInitializerCannotDependOnDeferredOne() {
+        StartupOrchestrator("test", directExecutor, directExecutor, tracer)
+            .add("deferred", deferred = true) {}
+            .add("critical", dependencies = listOf("deferred")) {}
+            .start()
+    }
+}
@@ -0,0 +1,90 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.focus.webkit.matcher;
+
+import android.os.Build;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(packageName = "org.mozilla.focus", maxSdk = Build.VERSION_CODES.P, minSdk = Build.VERSION_CODES.LOLLIPOP)
+public class BlockingStatsTest {
+
+    @Test
+    public void testCountsByCategory() {
+        final BlockingStats stats = new BlockingStats();
+        assertEquals(1, stats.recordBlocked("Advertising", "ads.example", 0));
+        assertEquals(2, stats.recordBlocked("Advertising", "ads.example", 0));
+        assertEquals(3, stats.recordBlocked("Analytics", "stats.example", 0));
+        stats.recordAllowed(0);
+
+        final BlockingStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(3, snapshot.getBlockedCount());
+        assertEquals(1, snapshot.getAllowedCount());
+        assertEquals(Long.valueOf(2), snapshot.getCategoryCounts().get("Advertising"));
+        assertEquals(Long.valueOf(1), snapshot.getCategoryCounts().get("Analytics"));
+
+        stats.reset();
+        assertEquals(0, stats.getBlockedCount());
+        assertTrue(stats.snapshot().getCategoryCounts().isEmpty());
+        assertTrue(stats.snapshot().getTopHosts().isEmpty());
+    }
+
+    @Test
+    public void testTopHostsKeepFrequentHosts() {
+        final BlockingStats stats = new BlockingStats();
+        for (int i = 0; i < 100; i++) {
+            stats.recordBlocked("Advertising", "frequent.example", 0);
+            // More distinct hosts than the sketch can keep
+            stats.recordBlocked("Advertising", "host" + i + ".example", 0);
+        }
+
+        final List<BlockingStats.HostCount> topHosts = stats.snapshot().getTopHosts();
+        assertEquals("frequent.example", topHosts.get(0).getHost());
+        assertTrue(topHosts.get(0).getCount() >= 100);
+    }
+
+    @Test
+    public void testLatencyPercentiles() {
+        final BlockingStats stats = new BlockingStats();
+        assertEquals(0, stats.snapshot().getLatencyPercentileMicros(50));
+
+        for (int i = 0; i < 90; i++) {
+            stats.recordAllowed(TimeUnit.MICROSECONDS.toNanos(3));
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.recordAllowed(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+
+        final BlockingStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(4, snapshot.getLatencyPercentileMicros(50));
+        assertEquals(128, snapshot.getLatencyPercentileMicros(95));
+
+        stats.recordAllowed(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(-1, stats.snapshot().getLatencyPercentileMicros(100));
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        final BlockingStats stats = new BlockingStats();
+        stats.recordBlocked("Social", "social.example", 0);
+
+        final JSONObject json = stats.snapshot().toJson();
+        assertEquals(1, json.getLong("blocked"));
+        assertEquals(1, json.getJSONObject("categories").getLong("Social"));
+        assertEquals("social.example", json.getJSONArray("topHosts").getJSONObject(0).getString("host"));
+        assertEquals(BlockingStats.LATENCY_BUCKETS, json.getJSONArray("latencyHistogram").length());
+    }
+}
@@ -0,0 +1,173 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.focus.webkit.matcher;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.StrictMode;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.zip.CRC32;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(packageName = "org.mozilla.focus", maxSdk = Build.VERSION_CODES.P, minSdk = Build.VERSION_CODES.LOLLIPOP)
+public class BlocklistUpdaterTest {
+
+    private static final int APP_VERSION = 1;
+    private static final String[] CATEGORIES = {"ABPIndo", "Advertising", "Analytics", "Content", "Social"};
+
+    private MockWebServer server;
+    private Context context;
+
+    @Before
+    public void setUp() throws IOException {
+        context = ApplicationProvider.getApplicationContext();
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        server.shutdown();
+        // See DisconnectTest
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder().build());
+    }
+
+    @Test
+    public void testUpdateStoresVerifiedList() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(compile(42, "tracker.example"))));
+
+        final UrlMatcher updated = new BlocklistUpdater(context, APP_VERSION).update(url(), null, 1);
+        assertNotNull(updated);
+        assertEquals(42, updated.getListVersion());
+        assertTrue(updated.matches(Uri.parse("http://cdn.tracker.example/a.js"), Uri.parse("http://mozilla.org")));
+
+        final UrlMatcher stored = new BlocklistUpdater(context, APP_VERSION).loadStoredMatcher();
+        assertNotNull(stored);
+        assertEquals(42, stored.getListVersion());
+
+        // A different app version comes with its own lists
+        assertNull(new BlocklistUpdater(context, APP_VERSION + 1).loadStoredMatcher());
+    }
+
+    @Test
+    public void testUpdateSendsValidators() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v42\"").setBody(new Buffer().write(compile(42, "tracker.example"))));
+        server.enqueue(new MockResponse().setResponseCode(304));
+
+        final BlocklistUpdater updater = new BlocklistUpdater(context, APP_VERSION);
+        assertNotNull(updater.update(url(), null, 1));
+        assertNull(updater.update(url(), null, 42));
+
+        server.takeRequest();
+        final RecordedRequest request = server.takeRequest();
+        assertEquals("\"v42\"", request.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testUpdateRejectsCorruptedList() throws Exception {
+        final byte[] list = compile(42, "tracker.example");
+        list[list.length - 1] ^= 1;
+        server.enqueue(new MockResponse().setBody(new Buffer().write(list)));
+
+        final BlocklistUpdater updater = new BlocklistUpdater(context, APP_VERSION);
+        assertNull(updater.update(url(), null, 1));
+        assertNull(updater.loadStoredMatcher());
+    }
+
+    @Test
+    public void testUpdateIgnoresCurrentVersion() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(compile(42, "tracker.example"))));
+
+        final BlocklistUpdater updater = new BlocklistUpdater(context, APP_VERSION);
+        assertNull(updater.update(url(), null, 42));
+
+        final UrlMatcher stored = updater.loadStoredMatcher();
+        assertNotNull(stored);
+        assertFalse(stored.matches(Uri.parse("http://mozilla.org/a.js"), Uri.parse("http://example.com")));
+    }
+
+    @Test
+    public void testUpdateRejectsListWithUnsafeSelector() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(
+                compile(42, "tracker.example", ".ad", "*{background:url(//tracker.example)}"))));
+        server.enqueue(new MockResponse().setBody(new Buffer().write(compile(43, "tracker.example", ".ad", "html"))));
+
+        final BlocklistUpdater updater = new BlocklistUpdater(context, APP_VERSION);
+        assertNull(updater.update(url(), null, 1));
+        assertNull(updater.update(url(), null, 1));
+        assertNull(updater.loadStoredMatcher());
+    }
+
+    private URL url() {
+        return server.url("/blocklists.bin").url();
+    }
+
+    /**
+     * Writes the lists the way CompileBlocklistTask does, with a single host in "Advertising" and the
+     * given generic element hiding selectors.
+     */
+    private static byte[] compile(final long version, final String host, final String... selectors) throws IOException {
+        final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        final DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeInt(CATEGORIES.length);
+        for (final String category : CATEGORIES) {
+            payload.writeUTF(category);
+            if (category.equals("Advertising")) {
+                payload.writeInt(1);
+                payload.writeByte(0);
+                payload.writeUTF(new StringBuilder(host).reverse().toString());
+            } else {
+                payload.writeInt(0);
+            }
+        }
+        payload.writeInt(0);
+        payload.writeUTF("ABPIndo");
+        payload.writeInt(selectors.length);
+        for (final String selector : selectors) {
+            payload.writeUTF(selector);
+        }
+        payload.writeInt(0);
+        payload.flush();
+
+        final CRC32 crc = new CRC32();
+        crc.update(payloadBytes.toByteArray());
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(0x524b424c);
+        output.writeInt(2);
+        output.writeLong(version);
+        output.writeLong(crc.getValue());
+        output.writeInt(payloadBytes.size());
+        output.write(payloadBytes.toByteArray());
+        output.flush();
+        return bytes.toByteArray();
+    }
+}
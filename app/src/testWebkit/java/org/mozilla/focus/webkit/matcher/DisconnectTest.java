@@ -54,7 +54,7 @@ public class DisconnectTest {
     // http://robolectric.org/getting-started/#note-for-linux-and-mac-users
     @Test
     public void matches() throws Exception {
-        final UrlMatcher matcher = UrlMatcher.loadMatcher(ApplicationProvider.getApplicationContext(), R.raw.blocklist, new int[] { R.raw.google_mapping }, R.raw.entitylist, R.raw.abpindo_adservers);
+        final UrlMatcher matcher = UrlMatcher.loadMatcher(ApplicationProvider.getApplicationContext(), R.raw.blocklists);
 
         // Enable everything
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(ApplicationProvider.getApplicationContext());
@@ -0,0 +1,72 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.focus.webkit.matcher;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(packageName = "org.mozilla.focus", maxSdk = Build.VERSION_CODES.P, minSdk = Build.VERSION_CODES.LOLLIPOP)
+public class ElementHidingRulesTest {
+
+    @Test
+    public void testGenericRules() {
+        final ElementHidingRules rules = new ElementHidingRules("ABPIndo",
+                Arrays.asList(".adsbygoogle", "amp-ad"), Collections.<String, List<String>>emptyMap());
+
+        assertEquals("ABPIndo", rules.getCategory());
+        assertEquals(".adsbygoogle{display:none!important}\namp-ad{display:none!important}\n",
+                rules.getStylesheet("example.com"));
+        assertEquals(rules.getStylesheet("example.com"), rules.getStylesheet(null));
+    }
+
+    @Test
+    public void testDomainRulesApplyToSubdomains() {
+        final Map<String, List<String>> domains = new HashMap<>();
+        domains.put("news.example", Collections.singletonList("#sidebar-ad"));
+        final ElementHidingRules rules = new ElementHidingRules("ABPIndo",
+                Collections.singletonList(".adsbygoogle"), domains);
+
+        final String generic = ".adsbygoogle{display:none!important}\n";
+        final String specific = generic + "#sidebar-ad{display:none!important}\n";
+        assertEquals(specific, rules.getStylesheet("news.example"));
+        assertEquals(specific, rules.getStylesheet("m.news.example"));
+        assertEquals(generic, rules.getStylesheet("othernews.example"));
+        assertEquals(generic, rules.getStylesheet("example"));
+    }
+
+    @Test
+    public void testNothingToHide() {
+        final ElementHidingRules rules = new ElementHidingRules("ABPIndo",
+                Collections.<String>emptyList(), Collections.<String, List<String>>emptyMap());
+
+        assertNull(rules.getStylesheet("example.com"));
+        assertNull(rules.getInjectionScript("example.com"));
+    }
+
+    @Test
+    public void testInjectionScriptQuotesStylesheet() {
+        final ElementHidingRules rules = new ElementHidingRules("ABPIndo",
+                Collections.singletonList("a[href^=\"https://ads.example/\"]"),
+                Collections.<String, List<String>>emptyMap());
+
+        final String script = rules.getInjectionScript("example.com");
+        assertTrue(script, script.contains("a[href^=\\\"https:\\/\\/ads.example\\/\\\"]{display:none!important}\\n"));
+    }
+}
@@ -41,6 +41,7 @@ public class WebViewProvider {
      */
     public static void preload(final Context context) {
         TrackingProtectionWebViewClient.triggerPreload(context);
+        TrackingProtectionWebViewClient.triggerUpdate(context);
     }
 
     public static View create(final Context context, final AttributeSet attrs) {
@@ -14,25 +14,17 @@ import android.webkit.ValueCallback;
 import android.webkit.WebChromeClient;
 import android.webkit.WebView;
 
-import org.mozilla.fileutils.FileUtils;
 import org.mozilla.focus.history.BrowsingHistoryManager;
 import org.mozilla.focus.telemetry.TelemetryWrapper;
-import org.mozilla.focus.utils.DimenUtils;
-import org.mozilla.icon.FavIconUtils;
+import org.mozilla.rocket.favicon.FaviconStore;
 import org.mozilla.rocket.tabs.TabChromeClient;
 import org.mozilla.rocket.tabs.TabView;
-import org.mozilla.rocket.util.LoggerWrapper;
-
-import java.lang.ref.WeakReference;
-import java.util.concurrent.ExecutionException;
 
 /**
  * An @see{android.webkit.WebChromeClient} implementation to hand over any callback to TabChromeClient, if any.
  */
 class FocusWebChromeClient extends WebChromeClient {
 
-    private static final String LOGGER_TAG = "FocusWebChromeClient";
-
     /**
      * The TabView be attached by this client. No matter which WebView notify this client, this client
      * always hand over notification to TabChromeClient with this hosted TabView.
@@ -78,14 +70,8 @@ class FocusWebChromeClient extends WebChromeClient {
         // We're desperate in finding the correct callback for updating title, so also updating here.
         final String title = view.getTitle();
 
-        try {
-            new FavIconUtils.SaveBitmapTask(new FileUtils.GetFaviconFolder(
-                    new WeakReference<>(view.getContext())).get(), url, icon,
-                    new BrowsingHistoryManager.UpdateHistoryWrapper(title, url),
-                    Bitmap.CompressFormat.PNG, DimenUtils.PNG_QUALITY_DONT_CARE).execute();
-        } catch (ExecutionException | InterruptedException e) {
-            LoggerWrapper.throwOrWarn(LOGGER_TAG, "Failed to get cache folder in onReceivedIcon.");
-        }
+        FaviconStore.getInstance(view.getContext())
+                .save(icon, new BrowsingHistoryManager.UpdateHistoryWrapper(title, url));
 
         if (this.tabChromeClient != null) {
             this.tabChromeClient.onReceivedIcon(this.host, icon);
@@ -101,6 +101,7 @@ import org.mozilla.urlutils.UrlUtils;
 
         this.debugOverlay.updateHistory();
         this.debugOverlay.recordLifecycle("onPageFinished:" + url, false);
+        this.debugOverlay.updateBlockingStats(getBlockingStats().snapshot());
     }
 
     private static boolean shouldOverrideInternalPages(WebView webView, String url) {
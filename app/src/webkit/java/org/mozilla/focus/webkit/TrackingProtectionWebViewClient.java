@@ -8,6 +8,8 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.AsyncTask;
+import android.text.TextUtils;
+import android.util.Log;
 import androidx.annotation.WorkerThread;
 import android.webkit.HttpAuthHandler;
 import android.webkit.WebResourceRequest;
@@ -17,14 +19,29 @@ import android.webkit.WebViewClient;
 
 import org.mozilla.focus.FocusApplication;
 import org.mozilla.focus.R;
+import org.mozilla.focus.utils.AppConfigWrapper;
 import org.mozilla.focus.utils.Settings;
 import org.mozilla.focus.web.BrowsingSession;
+import org.mozilla.focus.web.WebViewProvider;
+import org.mozilla.focus.webkit.matcher.BlockingStats;
+import org.mozilla.focus.webkit.matcher.BlocklistUpdater;
 import org.mozilla.focus.webkit.matcher.UrlMatcher;
+import org.mozilla.threadutils.ThreadUtils;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TrackingProtectionWebViewClient extends WebViewClient {
+    private static final String TAG = "TrackingProtection";
+
     private static volatile UrlMatcher MATCHER;
+    private static final AtomicBoolean UPDATE_STARTED = new AtomicBoolean();
 
     private boolean blockingEnabled;
+    private final BlockingStats blockingStats = new BlockingStats();
+    // Only the private browsing tab shows how many trackers were blocked, through BrowsingSession
+    private final boolean reportBlockedCount;
     /* package */ String currentPageURL;
 
     public static void triggerPreload(final Context context) {
@@ -43,18 +60,61 @@ public class TrackingProtectionWebViewClient extends WebViewClient {
         }
     }
 
+    /**
+     * Check once per process whether newer lists are available. Requests keep using the current
+     * matcher while the new one is downloaded and built, and are switched over in a single write.
+     */
+    public static void triggerUpdate(final Context context) {
+        final String updateUrl = AppConfigWrapper.getBlocklistUpdateUrl();
+        if (TextUtils.isEmpty(updateUrl) || !UPDATE_STARTED.compareAndSet(false, true)) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        final String userAgent = WebViewProvider.getUserAgentString(appContext);
+        // Not on the serial background lane, a slow download would hold back every task behind it
+        ThreadUtils.post(ThreadUtils.Lane.DISK_IO, () -> {
+            final URL url;
+            try {
+                url = new URL(updateUrl);
+            } catch (MalformedURLException e) {
+                Log.w(TAG, "Invalid blocklist update url", e);
+                return;
+            }
+
+            final UrlMatcher current = getMatcher(appContext);
+            final UrlMatcher updated = new BlocklistUpdater(appContext).update(url, userAgent, current.getListVersion());
+            if (updated != null) {
+                replaceMatcher(appContext, updated);
+            }
+        });
+    }
+
     @WorkerThread
-    private static synchronized UrlMatcher getMatcher(final Context context) {
+    private static UrlMatcher getMatcher(final Context context) {
+        // Only the first load is synchronized, afterwards requests never wait for each other
+        final UrlMatcher matcher = MATCHER;
+        return matcher != null ? matcher : loadMatcher(context);
+    }
+
+    @WorkerThread
+    private static synchronized UrlMatcher loadMatcher(final Context context) {
         if (MATCHER == null) {
-            MATCHER = UrlMatcher.loadMatcher(context,
-                    R.raw.blocklist,
-                    new int[]{R.raw.google_mapping},
-                    R.raw.entitylist,
-                    R.raw.abpindo_adservers);
+            // Lists downloaded by a previous update take precedence over the bundled ones
+            final UrlMatcher stored = new BlocklistUpdater(context).loadStoredMatcher();
+            MATCHER = stored != null ? stored : UrlMatcher.loadMatcher(context, R.raw.blocklists);
         }
         return MATCHER;
     }
 
+    private static synchronized void replaceMatcher(final Context context, final UrlMatcher matcher) {
+        final UrlMatcher previous = MATCHER;
+        MATCHER = matcher;
+        if (previous != null) {
+            previous.release(context);
+        }
+    }
+
     /* package */ TrackingProtectionWebViewClient(final Context context) {
         // Hopefully we have loaded background data already. We call triggerPreload() to try to trigger
         // background loading of the lists as early as possible.
@@ -62,6 +122,7 @@ public class TrackingProtectionWebViewClient extends WebViewClient {
 
 
         FocusApplication app = ((FocusApplication) context.getApplicationContext());
+        this.reportBlockedCount = app.isInPrivateProcess();
         if (app.isInPrivateProcess()) {
             this.blockingEnabled = app.getSettings().getPrivateBrowsingSettings().shouldUseTurboMode();
         } else {
@@ -77,6 +138,13 @@ public class TrackingProtectionWebViewClient extends WebViewClient {
         return blockingEnabled;
     }
 
+    /**
+     * @return what this tab blocked since the current page started loading
+     */
+    public BlockingStats getBlockingStats() {
+        return blockingStats;
+    }
+
     @Override
     public WebResourceResponse shouldInterceptRequest(final WebView view, final WebResourceRequest request) {
         if (!blockingEnabled) {
@@ -105,10 +173,20 @@ public class TrackingProtectionWebViewClient extends WebViewClient {
 
         // Don't block the main frame from being loaded. This also protects against cases where we
         // open a link that redirects to another app (e.g. to the play store).
-        if ((currentPageURL != null && !request.isForMainFrame()) &&
-                matcher.matches(resourceUri, Uri.parse(currentPageURL))) {
-            BrowsingSession.getInstance().countBlockedTracker();
-            return new WebResourceResponse(null, null, null);
+        if (currentPageURL != null && !request.isForMainFrame()) {
+            final Uri pageUri = Uri.parse(currentPageURL);
+            final long start = System.nanoTime();
+            final String category = matcher.matchCategory(resourceUri, pageUri, blockingStats);
+            final long latency = System.nanoTime() - start;
+
+            if (category != null) {
+                final long blockedCount = blockingStats.recordBlocked(category, resourceUri.getHost(), latency);
+                if (reportBlockedCount) {
+                    BrowsingSession.getInstance().setBlockedTrackerCount((int) blockedCount);
+                }
+                return new WebResourceResponse(null, null, null);
+            }
+            blockingStats.recordAllowed(latency);
         }
 
         return super.shouldInterceptRequest(view, request);
@@ -127,13 +205,37 @@ public class TrackingProtectionWebViewClient extends WebViewClient {
 
     @Override
     public void onPageStarted(WebView view, String url, Bitmap favicon) {
-        BrowsingSession.getInstance().resetTrackerCount();
+        blockingStats.reset();
+        if (reportBlockedCount) {
+            BrowsingSession.getInstance().resetTrackerCount();
+        }
 
         currentPageURL = url;
+        injectElementHiding(view, url);
 
         super.onPageStarted(view, url, favicon);
     }
 
+    @Override
+    public void onPageFinished(WebView view, String url) {
+        // The document might not exist yet in onPageStarted, the script does nothing if it's already there
+        injectElementHiding(view, url);
+
+        super.onPageFinished(view, url);
+    }
+
+    private void injectElementHiding(final WebView view, final String url) {
+        // Don't wait on the UI thread for the lists to load, ads are still blocked by shouldInterceptRequest
+        final UrlMatcher matcher = MATCHER;
+        if (!blockingEnabled || matcher == null || TextUtils.isEmpty(url)) {
+            return;
+        }
+        final String script = matcher.getElementHidingScript(Uri.parse(url).getHost());
+        if (script != null) {
+            view.evaluateJavascript(script, null);
+        }
+    }
+
     @Override
     public void onReceivedHttpAuthRequest(WebView view, HttpAuthHandler handler, String host, String realm) {
     }
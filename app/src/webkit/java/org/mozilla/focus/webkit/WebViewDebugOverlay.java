@@ -16,6 +16,7 @@ import androidx.core.view.ViewCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.appcompat.widget.AppCompatTextView;
 import android.text.TextUtils;
+import android.util.Log;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.MotionEvent;
@@ -27,14 +28,20 @@ import android.webkit.WebView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import java.util.Map;
+
 import org.mozilla.focus.BuildConfig;
+import org.mozilla.focus.webkit.matcher.BlockingStats;
 import org.mozilla.urlutils.UrlUtils;
 
 public class WebViewDebugOverlay {
+    private static final String BLOCKING_STATS_TAG = "BlockingStats";
+
     private WebView webView;
     private LinearLayout backForwardList;
     private LinearLayout callbackList;
     private LinearLayout viewTreeList;
+    private LinearLayout blockingStatsList;
 
     private DrawerLayout drawerLayout;
 
@@ -77,6 +84,11 @@ public class WebViewDebugOverlay {
                     ViewGroup.LayoutParams.MATCH_PARENT,
                     ViewGroup.LayoutParams.WRAP_CONTENT));
 
+            insertSectionTitle("Tracking protection", panelLayout);
+            panelLayout.addView(createBlockingStatsList(context), new LinearLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT,
+                    ViewGroup.LayoutParams.WRAP_CONTENT));
+
             insertSectionTitle("View tree", panelLayout);
             panelLayout.addView(createViewTreeList(context), new LinearLayout.LayoutParams(
                     ViewGroup.LayoutParams.MATCH_PARENT,
@@ -199,6 +211,21 @@ public class WebViewDebugOverlay {
         }
     }
 
+    public void updateBlockingStats(BlockingStats.Snapshot stats) {
+        if (isEnable()) {
+            blockingStatsList.removeAllViews();
+            insertText(stats.toString(), Color.WHITE, blockingStatsList);
+            for (Map.Entry<String, Long> category : stats.getCategoryCounts().entrySet()) {
+                insertText(category.getKey() + ": " + category.getValue(), Color.LTGRAY, blockingStatsList);
+            }
+            for (BlockingStats.HostCount host : stats.getTopHosts()) {
+                insertText(host.getCount() + " " + host.getHost(), Color.LTGRAY, blockingStatsList);
+            }
+            // So performance tests can collect the numbers from logcat
+            Log.d(BLOCKING_STATS_TAG, stats.toJson().toString());
+        }
+    }
+
     public void onLoadUrlCalled() {
         if (isEnable()) {
             callbackList.removeAllViews();
@@ -271,6 +298,12 @@ public class WebViewDebugOverlay {
         return callbackList;
     }
 
+    private View createBlockingStatsList(Context context) {
+        blockingStatsList = new LinearLayout(context);
+        blockingStatsList.setOrientation(LinearLayout.VERTICAL);
+        return blockingStatsList;
+    }
+
     private View createBackForwardList(Context context) {
         backForwardList = new LinearLayout(context);
         backForwardList.setOrientation(LinearLayout.VERTICAL);
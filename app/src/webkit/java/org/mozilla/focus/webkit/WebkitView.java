@@ -28,10 +28,10 @@ import androidx.annotation.NonNull;
 import org.mozilla.fileutils.FileUtils;
 import org.mozilla.focus.BuildConfig;
 import org.mozilla.focus.history.BrowsingHistoryManager;
-import org.mozilla.focus.history.model.Site;
 import org.mozilla.focus.utils.AppConstants;
 import org.mozilla.focus.utils.SupportUtils;
 import org.mozilla.focus.web.WebViewProvider;
+import org.mozilla.focus.webkit.matcher.BlockingStats;
 import org.mozilla.rocket.tabs.SiteIdentity;
 import org.mozilla.rocket.tabs.TabChromeClient;
 import org.mozilla.rocket.tabs.TabView;
@@ -301,6 +301,13 @@ public class WebkitView extends NestedWebView implements TabView {
         this.debugOverlay.updateHistory();
     }
 
+    /**
+     * @return tracking protection statistics of the current page, e.g. for performance tests
+     */
+    public BlockingStats getBlockingStats() {
+        return webViewClient.getBlockingStats();
+    }
+
     @Override
     public String getUrl() {
         final String currentUrl = super.getUrl();
@@ -378,8 +385,7 @@ public class WebkitView extends NestedWebView implements TabView {
                         return;
                     }
 
-                    Site site = BrowsingHistoryManager.prepareSiteForFirstInsert(url, getTitle(), System.currentTimeMillis());
-                    BrowsingHistoryManager.getInstance().insert(site, null);
+                    BrowsingHistoryManager.getInstance().recordVisit(url, getTitle(), System.currentTimeMillis());
                 });
     }
 
@@ -0,0 +1,303 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.focus.webkit.matcher;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics of the requests tracking protection looked at for one tab, since the last {@link #reset()}.
+ *
+ * shouldInterceptRequest() runs on several WebView threads at once, so counters and the latency
+ * histogram are atomics and recording never blocks. Only blocked hosts go through the small top
+ * hosts sketch, which takes a short lock.
+ */
+public class BlockingStats {
+
+    /**
+     * Bucket i of the latency histogram counts lookups faster than 2^i microseconds, the last bucket
+     * counts everything slower.
+     */
+    public static final int LATENCY_BUCKETS = 16;
+
+    private static final int HOST_SKETCH_SIZE = 32;
+    private static final int TOP_HOSTS = 10;
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final ConcurrentHashMap<String, AtomicLong> categories = new ConcurrentHashMap<>();
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+    private final HostSketch hosts = new HostSketch(HOST_SKETCH_SIZE);
+
+    /**
+     * @return the number of requests blocked since the last reset, including this one
+     */
+    public long recordBlocked(@NonNull final String category, final String host, final long latencyNanos) {
+        AtomicLong counter = categories.get(category);
+        if (counter == null) {
+            final AtomicLong created = new AtomicLong();
+            counter = categories.putIfAbsent(category, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+        if (host != null) {
+            hosts.add(host);
+        }
+        recordLatency(latencyNanos);
+        return blocked.incrementAndGet();
+    }
+
+    public void recordAllowed(final long latencyNanos) {
+        recordLatency(latencyNanos);
+        allowed.incrementAndGet();
+    }
+
+    /**
+     * Called by {@link UrlMatcher} when the lookup was answered from its cache.
+     */
+    /* package-private */ void recordCacheHit() {
+        cacheHits.incrementAndGet();
+    }
+
+    public long getBlockedCount() {
+        return blocked.get();
+    }
+
+    /**
+     * Start over, when a new page starts loading. Requests recorded concurrently might be counted
+     * for either page.
+     */
+    public void reset() {
+        allowed.set(0);
+        blocked.set(0);
+        cacheHits.set(0);
+        categories.clear();
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            latencies.set(i, 0);
+        }
+        hosts.clear();
+    }
+
+    public Snapshot snapshot() {
+        final Map<String, Long> categoryCounts = new HashMap<>();
+        for (final Map.Entry<String, AtomicLong> entry : categories.entrySet()) {
+            categoryCounts.put(entry.getKey(), entry.getValue().get());
+        }
+        final long[] histogram = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            histogram[i] = latencies.get(i);
+        }
+        return new Snapshot(allowed.get(), blocked.get(), cacheHits.get(), categoryCounts,
+                hosts.top(TOP_HOSTS), histogram);
+    }
+
+    private void recordLatency(final long latencyNanos) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        // 64 - numberOfLeadingZeros(micros) is the smallest i with micros < 2^i
+        final int bucket = Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        latencies.incrementAndGet(bucket);
+    }
+
+    /**
+     * Immutable copy of the statistics, for the debug overlay and for exporting.
+     */
+    public static class Snapshot {
+        private final long allowed;
+        private final long blocked;
+        private final long cacheHits;
+        private final Map<String, Long> categories;
+        private final List<HostCount> topHosts;
+        private final long[] latencyHistogram;
+
+        private Snapshot(final long allowed, final long blocked, final long cacheHits,
+                         final Map<String, Long> categories, final List<HostCount> topHosts,
+                         final long[] latencyHistogram) {
+            this.allowed = allowed;
+            this.blocked = blocked;
+            this.cacheHits = cacheHits;
+            this.categories = Collections.unmodifiableMap(categories);
+            this.topHosts = Collections.unmodifiableList(topHosts);
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        public long getAllowedCount() {
+            return allowed;
+        }
+
+        public long getBlockedCount() {
+            return blocked;
+        }
+
+        public long getCacheHitCount() {
+            return cacheHits;
+        }
+
+        /**
+         * @return blocked requests per category
+         */
+        public Map<String, Long> getCategoryCounts() {
+            return categories;
+        }
+
+        /**
+         * @return the most blocked hosts, most blocked first. Counts may be overestimated once more
+         * distinct hosts were blocked than the sketch tracks.
+         */
+        public List<HostCount> getTopHosts() {
+            return topHosts;
+        }
+
+        /**
+         * @see #LATENCY_BUCKETS
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram.clone();
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return an upper bound of the given lookup latency percentile in microseconds, 0 if nothing
+         * was recorded, or -1 if the percentile is in the overflow bucket
+         */
+        public long getLatencyPercentileMicros(final int percentile) {
+            long total = 0;
+            for (final long count : latencyHistogram) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = (total * percentile + 99) / 100;
+            long seen = 0;
+            for (int i = 0; i < LATENCY_BUCKETS - 1; i++) {
+                seen += latencyHistogram[i];
+                if (seen >= rank) {
+                    return 1L << i;
+                }
+            }
+            return -1;
+        }
+
+        public JSONObject toJson() {
+            final JSONObject json = new JSONObject();
+            try {
+                json.put("allowed", allowed);
+                json.put("blocked", blocked);
+                json.put("cacheHits", cacheHits);
+                json.put("categories", new JSONObject(categories));
+                final JSONArray hosts = new JSONArray();
+                for (final HostCount host : topHosts) {
+                    hosts.put(new JSONObject().put("host", host.getHost()).put("count", host.getCount()));
+                }
+                json.put("topHosts", hosts);
+                final JSONArray histogram = new JSONArray();
+                for (final long count : latencyHistogram) {
+                    histogram.put(count);
+                }
+                json.put("latencyHistogram", histogram);
+                json.put("latencyP50Micros", getLatencyPercentileMicros(50));
+                json.put("latencyP95Micros", getLatencyPercentileMicros(95));
+            } catch (JSONException e) {
+                // Only thrown for non-finite numbers, which we don't have
+                throw new IllegalStateException(e);
+            }
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return "blocked=" + blocked + ", allowed=" + allowed + ", cacheHits=" + cacheHits
+                    + ", p50<" + getLatencyPercentileMicros(50) + "us"
+                    + ", p95<" + getLatencyPercentileMicros(95) + "us";
+        }
+    }
+
+    public static class HostCount {
+        private final String host;
+        private final long count;
+
+        private HostCount(final String host, final long count) {
+            this.host = host;
+            this.count = count;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Space-Saving sketch: keeps a fixed number of hosts, a new host replaces the least counted one
+     * and inherits its count. Any host blocked more often than total / capacity is guaranteed to be
+     * kept.
+     */
+    private static class HostSketch {
+        private final String[] hosts;
+        private final long[] counts;
+        private int size;
+
+        private HostSketch(final int capacity) {
+            hosts = new String[capacity];
+            counts = new long[capacity];
+        }
+
+        private synchronized void add(final String host) {
+            int min = 0;
+            for (int i = 0; i < size; i++) {
+                if (hosts[i].equals(host)) {
+                    counts[i]++;
+                    return;
+                }
+                if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+            if (size < hosts.length) {
+                hosts[size] = host;
+                counts[size] = 1;
+                size++;
+            } else {
+                hosts[min] = host;
+                counts[min]++;
+            }
+        }
+
+        private synchronized List<HostCount> top(final int limit) {
+            final List<HostCount> top = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                top.add(new HostCount(hosts[i], counts[i]));
+            }
+            Collections.sort(top, (a, b) -> Long.compare(b.count, a.count));
+            return top.size() > limit ? new ArrayList<>(top.subList(0, limit)) : top;
+        }
+
+        private synchronized void clear() {
+            for (int i = 0; i < size; i++) {
+                hosts[i] = null;
+            }
+            size = 0;
+        }
+    }
+}
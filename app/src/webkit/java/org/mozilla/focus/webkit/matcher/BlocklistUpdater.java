@@ -0,0 +1,224 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.focus.webkit.matcher;
+
+import android.content.Context;
+import android.net.TrafficStats;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import org.mozilla.focus.BuildConfig;
+import org.mozilla.focus.network.SocketTags;
+import org.mozilla.httprequest.CacheValidators;
+import org.mozilla.httprequest.HttpClient;
+import org.mozilla.httprequest.HttpResponse;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Downloads newer tracking protection lists, in the format CompileBlocklistTask produces, and keeps
+ * the last verified copy on disk so the next start can use it instead of the bundled lists.
+ *
+ * A download is only accepted once it has been read completely and {@link CompiledBlocklist} has
+ * verified and parsed it. It is then written to a temporary file and renamed over the stored copy,
+ * so a killed process never leaves a partial list behind. The stored copy is tied to the app version
+ * which downloaded it: after an app update, the bundled lists are used until the next download.
+ */
+public class BlocklistUpdater {
+
+    private static final String TAG = "BlocklistUpdater";
+
+    private static final String DIRECTORY = "blocklists";
+    private static final String LIST_FILE = "blocklists.bin";
+    private static final String META_FILE = "blocklists.meta";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int TIMEOUT = 10000;
+    private static final long MAX_LIST_SIZE = 4 * 1024 * 1024;
+
+    private final Context context;
+    private final File directory;
+    private final int appVersion;
+
+    public BlocklistUpdater(final Context context) {
+        this(context, BuildConfig.VERSION_CODE);
+    }
+
+    @VisibleForTesting
+    BlocklistUpdater(final Context context, final int appVersion) {
+        this.context = context.getApplicationContext();
+        this.directory = new File(context.getFilesDir(), DIRECTORY);
+        this.appVersion = appVersion;
+    }
+
+    /**
+     * @return a matcher built from the lists a previous update stored, or null if there are none
+     */
+    @WorkerThread
+    @Nullable
+    public UrlMatcher loadStoredMatcher() {
+        final Meta meta = readMeta();
+        if (meta == null || meta.appVersion != appVersion) {
+            return null;
+        }
+
+        try (final InputStream inputStream =
+                     new BufferedInputStream(new FileInputStream(new File(directory, LIST_FILE)))) {
+            final CompiledBlocklist blocklist = CompiledBlocklist.read(inputStream);
+            if (blocklist.getVersion() != meta.listVersion) {
+                throw new IOException("Stored blocklist doesn't match its metadata");
+            }
+            return UrlMatcher.create(context, blocklist);
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping stored blocklist", e);
+            deleteStored();
+            return null;
+        }
+    }
+
+    /**
+     * Fetch the lists at the given url, and store them if they are valid.
+     *
+     * @param currentVersion version of the lists in use, see {@link UrlMatcher#getListVersion()}
+     * @return a matcher built from the downloaded lists, or null if they are unchanged or couldn't be
+     * downloaded or verified
+     */
+    @WorkerThread
+    @Nullable
+    public UrlMatcher update(final URL url, final String userAgent, final long currentVersion) {
+        final Meta meta = readMeta();
+        final CacheValidators validators = meta != null && meta.appVersion == appVersion ? meta.validators : null;
+
+        final byte[] body;
+        final CacheValidators responseValidators;
+        final HttpClient client = new HttpClient(userAgent, TIMEOUT, TIMEOUT, MAX_LIST_SIZE);
+        TrafficStats.setThreadStatsTag(SocketTags.BLOCKLIST_UPDATE);
+        try (final HttpResponse response = client.get(url, validators)) {
+            if (response.isNotModified()) {
+                return null;
+            }
+            if (!response.isSuccessful()) {
+                Log.w(TAG, "Blocklist update failed with status " + response.getStatusCode());
+                return null;
+            }
+            final ByteBuffer buffer = response.readByteBuffer();
+            body = new byte[buffer.remaining()];
+            buffer.get(body);
+            responseValidators = response.getValidators();
+        } catch (IOException e) {
+            Log.w(TAG, "Blocklist update failed", e);
+            return null;
+        } finally {
+            TrafficStats.clearThreadStatsTag();
+        }
+
+        final CompiledBlocklist blocklist;
+        try {
+            blocklist = CompiledBlocklist.read(new ByteArrayInputStream(body));
+        } catch (IOException e) {
+            Log.w(TAG, "Rejecting invalid blocklist", e);
+            return null;
+        }
+
+        store(body, new Meta(appVersion, blocklist.getVersion(), responseValidators));
+
+        return blocklist.getVersion() == currentVersion ? null : UrlMatcher.create(context, blocklist);
+    }
+
+    private void store(final byte[] list, final Meta meta) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "Unable to create " + directory);
+            return;
+        }
+        // The metadata goes last, a list without matching metadata is dropped when it's loaded
+        if (!writeAtomically(LIST_FILE, list)
+                || !writeAtomically(META_FILE, meta.serialize().getBytes(StandardCharsets.UTF_8))) {
+            deleteStored();
+        }
+    }
+
+    private boolean writeAtomically(final String name, final byte[] content) {
+        final File file = new File(directory, name);
+        final File temp = new File(directory, name + TEMP_SUFFIX);
+        try (final FileOutputStream outputStream = new FileOutputStream(temp)) {
+            outputStream.write(content);
+            outputStream.getFD().sync();
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write " + temp, e);
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(file)) {
+            Log.w(TAG, "Unable to rename " + temp);
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private Meta readMeta() {
+        final File file = new File(directory, META_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (final InputStream inputStream = new FileInputStream(file)) {
+            final byte[] content = new byte[(int) file.length()];
+            int offset = 0;
+            int read;
+            while (offset < content.length && (read = inputStream.read(content, offset, content.length - offset)) != -1) {
+                offset += read;
+            }
+            return Meta.deserialize(new String(content, 0, offset, StandardCharsets.UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            Log.w(TAG, "Unable to read " + file, e);
+            return null;
+        }
+    }
+
+    private void deleteStored() {
+        new File(directory, META_FILE).delete();
+        new File(directory, LIST_FILE).delete();
+    }
+
+    private static class Meta {
+        private final int appVersion;
+        private final long listVersion;
+        private final CacheValidators validators;
+
+        private Meta(final int appVersion, final long listVersion, final CacheValidators validators) {
+            this.appVersion = appVersion;
+            this.listVersion = listVersion;
+            this.validators = validators;
+        }
+
+        private String serialize() {
+            return appVersion + "\n" + listVersion + "\n" + validators.serialize();
+        }
+
+        /**
+         * @throws IllegalArgumentException if the string isn't what {@link #serialize()} returned
+         */
+        private static Meta deserialize(final String string) {
+            final String[] parts = string.split("\n", 3);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Malformed blocklist metadata");
+            }
+            return new Meta(Integer.parseInt(parts[0]), Long.parseLong(parts[1]), CacheValidators.deserialize(parts[2]));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.focus.webkit.matcher;
+
+import org.mozilla.focus.webkit.matcher.util.FocusString;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the blocklists compiled by CompileBlocklistTask at build time. Hosts are already merged,
+ * deduplicated and reversed, so they go straight into the tries. Element hiding selectors follow.
+ */
+/* package-private */ class CompiledBlocklist {
+
+    // Keep in sync with CompileBlocklistTask
+    private static final int MAGIC = 0x524b424c; // "RKBL"
+    private static final int FORMAT_VERSION = 2;
+
+    private final long version;
+    private final Map<String, Trie> categories;
+    private final EntityList entityList;
+    private final ElementHidingRules elementHidingRules;
+
+    private CompiledBlocklist(final long version, final Map<String, Trie> categories, final EntityList entityList,
+                              final ElementHidingRules elementHidingRules) {
+        this.version = version;
+        this.categories = categories;
+        this.entityList = entityList;
+        this.elementHidingRules = elementHidingRules;
+    }
+
+    /**
+     * @throws IOException if the input isn't a complete blocklist of the supported format version
+     */
+    public static CompiledBlocklist read(final InputStream inputStream) throws IOException {
+        final DataInputStream header = new DataInputStream(inputStream);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a compiled blocklist");
+        }
+        final int formatVersion = header.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported blocklist format " + formatVersion);
+        }
+        final long version = header.readLong();
+        final long checksum = header.readLong();
+        final int length = header.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid blocklist length " + length);
+        }
+
+        final byte[] payload = new byte[length];
+        header.readFully(payload);
+        final CRC32 crc = new CRC32();
+        crc.update(payload);
+        if (crc.getValue() != checksum) {
+            throw new IOException("Blocklist checksum mismatch");
+        }
+
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+
+        final int categoryCount = input.readInt();
+        final Map<String, Trie> categories = new HashMap<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            final String name = input.readUTF();
+            final Trie trie = Trie.createRootNode();
+            readHosts(input, trie);
+            categories.put(name, trie);
+        }
+
+        final EntityList entityList = new EntityList();
+        final int entityCount = input.readInt();
+        for (int i = 0; i < entityCount; i++) {
+            final String[] properties = readHosts(input, null);
+            final Trie whitelist = Trie.createRootNode();
+            readHosts(input, whitelist);
+            for (final String property : properties) {
+                entityList.putWhiteList(FocusString.create(property), whitelist);
+            }
+        }
+
+        final String elementHidingCategory = input.readUTF();
+        final List<String> genericSelectors = readSelectors(input);
+        final int domainCount = input.readInt();
+        final Map<String, List<String>> domainSelectors = new HashMap<>(domainCount);
+        for (int i = 0; i < domainCount; i++) {
+            final String domain = input.readUTF();
+            domainSelectors.put(domain, readSelectors(input));
+        }
+        final ElementHidingRules elementHidingRules =
+                new ElementHidingRules(elementHidingCategory, genericSelectors, domainSelectors);
+
+        return new CompiledBlocklist(version, categories, entityList, elementHidingRules);
+    }
+
+    /**
+     * Downloaded lists are only checked for corruption, so the selectors are checked here again: a
+     * single unsafe one rejects the whole list.
+     */
+    private static List<String> readSelectors(final DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        final List<String> selectors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String selector = input.readUTF();
+            if (!ElementHidingRules.isSafeSelector(selector)) {
+                throw new IOException("Unsafe element hiding selector " + selector);
+            }
+            selectors.add(selector);
+        }
+        return selectors;
+    }
+
+    /**
+     * Reads a list of reversed hosts, each stored as the length of the prefix it shares with the
+     * previous one followed by the rest of it.
+     *
+     * @param trie if not null, the hosts are put into it
+     */
+    private static String[] readHosts(final DataInputStream input, final Trie trie) throws IOException {
+        final int count = input.readInt();
+        final String[] hosts = new String[count];
+        String previous = "";
+        for (int i = 0; i < count; i++) {
+            final int shared = input.readUnsignedByte();
+            if (shared > previous.length()) {
+                throw new IOException("Invalid blocklist prefix length " + shared);
+            }
+            final String host = previous.substring(0, shared) + input.readUTF();
+            if (trie != null) {
+                trie.put(FocusString.create(host));
+            }
+            hosts[i] = host;
+            previous = host;
+        }
+        return hosts;
+    }
+
+    /**
+     * @return an identifier of the list contents, the same lists always have the same version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, Trie> getCategories() {
+        return categories;
+    }
+
+    public EntityList getEntityList() {
+        return entityList;
+    }
+
+    public ElementHidingRules getElementHidingRules() {
+        return elementHidingRules;
+    }
+}
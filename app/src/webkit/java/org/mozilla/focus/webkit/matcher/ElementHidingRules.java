@@ -0,0 +1,149 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.mozilla.focus.webkit.matcher;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Element hiding rules compiled from Adblock Plus "##selector" filters. Hidden elements take no
+ * space, so the slots of blocked ads collapse instead of staying in the layout as empty boxes.
+ *
+ * The stylesheets are built once when the lists are loaded: one shared by every page, and one per
+ * domain with specific rules. A page gets the shared one plus those of its host and parent domains.
+ */
+public class ElementHidingRules {
+
+    private static final String STYLE_ID = "__rocket_element_hiding";
+    private static final String HIDDEN = "{display:none!important}\n";
+
+    // Selectors end up in a <style> element, they must not be able to close the rule or the element.
+    // Keep in sync with CompileBlocklistTask, which rejects them when the lists are compiled.
+    private static final String[] UNSAFE_SELECTOR_CHARACTERS = {"{", "}", "<", "/*", "\\"};
+    // Hiding any of these hides the whole page
+    private static final String[] ROOT_SELECTORS = {"html", "body", ":root", "*"};
+
+    private final String category;
+    private final String genericStylesheet;
+    private final Map<String, String> domainStylesheets;
+    private final String genericScript;
+
+    /* package-private */ ElementHidingRules(@NonNull final String category,
+                                             @NonNull final Collection<String> genericSelectors,
+                                             @NonNull final Map<String, ? extends Collection<String>> domainSelectors) {
+        this.category = category;
+        this.genericStylesheet = buildStylesheet(genericSelectors);
+        this.domainStylesheets = new HashMap<>(domainSelectors.size());
+        for (final Map.Entry<String, ? extends Collection<String>> entry : domainSelectors.entrySet()) {
+            domainStylesheets.put(entry.getKey(), buildStylesheet(entry.getValue()));
+        }
+        this.genericScript = genericStylesheet.isEmpty() ? null : buildScript(genericStylesheet);
+    }
+
+    /**
+     * @return the blocking category these rules belong to, they only apply while it's enabled
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the stylesheet hiding ads on pages of the given host, or null if there is nothing to hide
+     */
+    @Nullable
+    public String getStylesheet(@Nullable final String host) {
+        final String domainStylesheet = getDomainStylesheet(host);
+        if (domainStylesheet == null) {
+            return genericStylesheet.isEmpty() ? null : genericStylesheet;
+        }
+        return genericStylesheet + domainStylesheet;
+    }
+
+    /**
+     * @return a script adding {@link #getStylesheet(String)} to the document, which does nothing if
+     * the document already has it. Null if there is nothing to hide.
+     */
+    @Nullable
+    public String getInjectionScript(@Nullable final String host) {
+        final String domainStylesheet = getDomainStylesheet(host);
+        if (domainStylesheet == null) {
+            return genericScript;
+        }
+        return buildScript(genericStylesheet + domainStylesheet);
+    }
+
+    @Nullable
+    private String getDomainStylesheet(@Nullable final String host) {
+        if (host == null || domainStylesheets.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder builder = null;
+        String domain = host;
+        while (true) {
+            final String stylesheet = domainStylesheets.get(domain);
+            if (stylesheet != null) {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(stylesheet);
+            }
+            final int dot = domain.indexOf('.');
+            if (dot < 0) {
+                break;
+            }
+            domain = domain.substring(dot + 1);
+        }
+        return builder == null ? null : builder.toString();
+    }
+
+    /**
+     * @return whether the selector can be pasted into a stylesheet as is, without changing anything
+     * but the elements it hides
+     */
+    /* package-private */ static boolean isSafeSelector(@NonNull final String selector) {
+        if (selector.trim().isEmpty()) {
+            return false;
+        }
+        for (final String characters : UNSAFE_SELECTOR_CHARACTERS) {
+            if (selector.contains(characters)) {
+                return false;
+            }
+        }
+        for (final String part : selector.split(",")) {
+            for (final String root : ROOT_SELECTORS) {
+                if (part.trim().equalsIgnoreCase(root)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String buildStylesheet(final Collection<String> selectors) {
+        // One rule per selector: a selector the WebView doesn't support only invalidates its own rule
+        final StringBuilder builder = new StringBuilder();
+        for (final String selector : selectors) {
+            builder.append(selector).append(HIDDEN);
+        }
+        return builder.toString();
+    }
+
+    private static String buildScript(final String stylesheet) {
+        return "(function(){"
+                + "if(document.getElementById('" + STYLE_ID + "'))return;"
+                + "var s=document.createElement('style');"
+                + "s.id='" + STYLE_ID + "';"
+                + "s.textContent=" + JSONObject.quote(stylesheet) + ";"
+                + "(document.head||document.documentElement).appendChild(s);"
+                + "})();";
+    }
+}
@@ -13,17 +13,15 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.collection.ArrayMap;
-import android.util.JsonReader;
 
 import org.mozilla.focus.R;
 import org.mozilla.focus.webkit.matcher.util.FocusString;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -66,57 +64,51 @@ public class UrlMatcher implements SharedPreferences.OnSharedPreferenceChangeLis
 
     private final EntityList entityList;
     // A cached list of previously matched URLs. This MUST be cleared whenever items are removed from enabledCategories.
-    private final HashSet<String> previouslyMatched = new HashSet<>();
+    private final HashMap<String, String> previouslyMatched = new HashMap<>();
     // A cahced list of previously approved URLs. This MUST be cleared whenever items are added to enabledCategories.
     private final HashSet<String> previouslyUnmatched = new HashSet<>();
 
     private boolean blockWebfonts = true;
 
-    public static UrlMatcher loadMatcher(final Context context, final int blockListFile, final int[] blockListOverrides, final int entityListFile, final int abpindo_adserversListFile) {
-        final Map<String, String> categoryPrefMap = loadDefaultPrefMap(context);
+    private final long listVersion;
+    private final ElementHidingRules elementHidingRules;
 
-        final Map<String, Trie> categoryMap = new HashMap<>(5);
-        try (final JsonReader jsonReader =
-                     new JsonReader(new InputStreamReader(context.getResources().openRawResource(blockListFile), StandardCharsets.UTF_8))) {
-            BlocklistProcessor.loadCategoryMap(jsonReader, categoryMap, BlocklistProcessor.ListType.BASE_LIST);
-        } catch (IOException e) {
-            throw new IllegalStateException("Unable to parse blacklist");
-        }
-
-        if (blockListOverrides != null) {
-            for (int i = 0; i < blockListOverrides.length; i++) {
-                try (final JsonReader jsonReader =
-                             new JsonReader(new InputStreamReader(context.getResources().openRawResource(blockListOverrides[i]), StandardCharsets.UTF_8))) {
-                    BlocklistProcessor.loadCategoryMap(jsonReader, categoryMap, BlocklistProcessor.ListType.OVERRIDE_LIST);
-                } catch (IOException e) {
-                    throw new IllegalStateException("Unable to parse override blacklist");
-                }
-            }
-        }
-
-        final EntityList entityList;
-        try (final JsonReader jsonReader = new JsonReader(new InputStreamReader(context.getResources().openRawResource(entityListFile), StandardCharsets.UTF_8))) {
-            entityList = EntityListProcessor.getEntityMapFromJSON(jsonReader);
-        } catch (IOException e) {
-            throw new IllegalStateException("Unable to parse entity list");
-        }
-
-        try (final JsonReader jsonReader =
-                     new JsonReader(new InputStreamReader(context.getResources().openRawResource(abpindo_adserversListFile), StandardCharsets.UTF_8))) {
-            BlocklistProcessor.loadCategoryMap(jsonReader, categoryMap, BlocklistProcessor.ListType.BASE_LIST);
+    /**
+     * @param compiledListFile raw resource of the blocklists compiled by CompileBlocklistTask
+     */
+    public static UrlMatcher loadMatcher(final Context context, final int compiledListFile) {
+        final CompiledBlocklist blocklist;
+        try (final InputStream inputStream =
+                     new BufferedInputStream(context.getResources().openRawResource(compiledListFile))) {
+            blocklist = CompiledBlocklist.read(inputStream);
         } catch (IOException e) {
-            throw new IllegalStateException("Unable to parse abpindo list");
+            throw new IllegalStateException("Unable to read compiled blocklist", e);
         }
 
+        return create(context, blocklist);
+    }
 
-        return new UrlMatcher(context, categoryPrefMap, categoryMap, entityList);
+    /* package-private */ static UrlMatcher create(final Context context, final CompiledBlocklist blocklist) {
+        return new UrlMatcher(context, loadDefaultPrefMap(context), blocklist.getCategories(),
+                blocklist.getEntityList(), blocklist.getElementHidingRules(), blocklist.getVersion());
     }
 
     /* package-private */ UrlMatcher(final Context context,
                                      @NonNull final Map<String, String> categoryPrefMap,
                                      @NonNull final Map<String, Trie> categoryMap,
                                      @Nullable final EntityList entityList) {
+        this(context, categoryPrefMap, categoryMap, entityList, null, 0);
+    }
+
+    private UrlMatcher(final Context context,
+                       @NonNull final Map<String, String> categoryPrefMap,
+                       @NonNull final Map<String, Trie> categoryMap,
+                       @Nullable final EntityList entityList,
+                       @Nullable final ElementHidingRules elementHidingRules,
+                       final long listVersion) {
         this.categoryPrefMap = categoryPrefMap;
+        this.elementHidingRules = elementHidingRules;
+        this.listVersion = listVersion;
         this.entityList = entityList;
         this.categories = categoryMap;
 
@@ -136,6 +128,32 @@ public class UrlMatcher implements SharedPreferences.OnSharedPreferenceChangeLis
         PreferenceManager.getDefaultSharedPreferences(context).registerOnSharedPreferenceChangeListener(this);
     }
 
+    /**
+     * @return the version of the lists this matcher was built from, see CompiledBlocklist#getVersion()
+     */
+    public long getListVersion() {
+        return listVersion;
+    }
+
+    /**
+     * @return a script hiding the slots of blocked ads on pages of the given host, or null if there
+     * is nothing to hide or the category of the element hiding rules is disabled
+     */
+    @Nullable
+    public String getElementHidingScript(@Nullable final String pageHost) {
+        if (elementHidingRules == null || !enabledCategories.contains(elementHidingRules.getCategory())) {
+            return null;
+        }
+        return elementHidingRules.getInjectionScript(pageHost);
+    }
+
+    /**
+     * Stop following preference changes, once this matcher has been replaced.
+     */
+    public void release(final Context context) {
+        PreferenceManager.getDefaultSharedPreferences(context).unregisterOnSharedPreferenceChangeListener(this);
+    }
+
     @Override
     public void onSharedPreferenceChanged(final SharedPreferences sharedPreferences, final String prefName) {
         final String categoryName = categoryPrefMap.get(prefName);
@@ -175,6 +193,8 @@ public class UrlMatcher implements SharedPreferences.OnSharedPreferenceChangeLis
         buildMatcher(patterns);
 
         entityList = null;
+        elementHidingRules = null;
+        listVersion = 0;
     }
 
     /**
@@ -233,10 +253,19 @@ public class UrlMatcher implements SharedPreferences.OnSharedPreferenceChangeLis
     }
 
     public boolean matches(final Uri resourceURI, final Uri pageURI) {
+        return matchCategory(resourceURI, pageURI, null) != null;
+    }
+
+    /**
+     * @param stats notified when the result comes from the cache
+     * @return the category blocking the resource, or null if it isn't blocked
+     */
+    @Nullable
+    public String matchCategory(final Uri resourceURI, final Uri pageURI, @Nullable final BlockingStats stats) {
         final String path = resourceURI.getPath();
 
         if (path == null) {
-            return false;
+            return null;
         }
 
         // We need to handle webfonts first: if they are blocked, then whitelists don't matter.
@@ -244,7 +273,7 @@ public class UrlMatcher implements SharedPreferences.OnSharedPreferenceChangeLis
         if (blockWebfonts) {
             for (final String extension : WEBFONT_EXTENSIONS) {
                 if (path.endsWith(extension)) {
-                    return true;
+                    return WEBFONTS;
                 }
             }
         }
@@ -253,25 +282,32 @@ public class UrlMatcher implements SharedPreferences.OnSharedPreferenceChangeLis
 
         // Cached whitelisted items can be permitted now (but blacklisted needs to wait for the override / entity list)
         if (previouslyUnmatched.contains(resourceURLString)) {
-            return false;
+            if (stats != null) {
+                stats.recordCacheHit();
+            }
+            return null;
         }
 
         if (entityList != null &&
                 entityList.isWhiteListed(pageURI, resourceURI)) {
             // We must not cache entityList items (and/or if we did, we'd have to clear the cache
             // on every single location change)
-            return false;
+            return null;
         }
 
         final String resourceHost = resourceURI.getHost();
         final String pageHost = pageURI.getHost();
 
         if (pageHost != null && pageHost.equals(resourceHost)) {
-            return false;
+            return null;
         }
 
-        if (previouslyMatched.contains(resourceURLString)) {
-            return true;
+        final String previousCategory = previouslyMatched.get(resourceURLString);
+        if (previousCategory != null) {
+            if (stats != null) {
+                stats.recordCacheHit();
+            }
+            return previousCategory;
         }
 
         final FocusString revhost = FocusString.create(resourceHost).reverse();
@@ -279,12 +315,12 @@ public class UrlMatcher implements SharedPreferences.OnSharedPreferenceChangeLis
         for (final Map.Entry<String, Trie> category : categories.entrySet()) {
             if (enabledCategories.contains(category.getKey()) &&
                     category.getValue().findNode(revhost) != null) {
-                previouslyMatched.add(resourceURLString);
-                return true;
+                previouslyMatched.put(resourceURLString, category.getKey());
+                return category.getKey();
             }
         }
 
         previouslyUnmatched.add(resourceURLString);
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,351 @@
+package org.mozilla.rocket
+
+import groovy.json.JsonException
+import groovy.json.JsonSlurper
+import org.gradle.api.DefaultTask
+import org.gradle.api.GradleException
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.security.MessageDigest
+import java.util.zip.CRC32
+
+/**
+ * Compiles the shavar tracking protection lists into `raw/blocklists.bin`, so the app doesn't have
+ * to parse several hundred kilobytes of JSON before it can block anything.
+ *
+ * The lists are merged the way the runtime used to do it: "Legacy" categories are dropped, the
+ * Facebook and Twitter entries of "Disconnect" are moved into "Social", and override lists may only
+ * add hosts to categories the base lists declare. Hosts are deduplicated and stored reversed and
+ * sorted, each one sharing its prefix with the previous one. Malformed lists fail the build, hosts
+ * which aren't plain host names are skipped with a warning.
+ *
+ * Adblock Plus filter lists add `||host^` rules to the same category, and `##selector` rules to an
+ * element hiding index, generic or per domain.
+ *
+ * The artifact starts with a header holding [MAGIC], [FORMAT_VERSION], a version derived from the
+ * content, and the CRC32 of the payload. The reader is `org.mozilla.focus.webkit.matcher.CompiledBlocklist`.
+ */
+open class CompileBlocklistTask : DefaultTask() {
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    lateinit var blocklist: File
+
+    /** Lists adding hosts to the categories of [blocklist], e.g. google_mapping.json */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    var overrideLists: List<File> = emptyList()
+
+    /** Lists declaring categories of their own, e.g. abpindo_adservers.json */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    var additionalLists: List<File> = emptyList()
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    lateinit var entityList: File
+
+    /**
+     * Adblock Plus filter lists. Only `||host^` rules, added to [filterCategory], and `##selector`
+     * element hiding rules are supported, other rules are skipped.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    var filterLists: List<File> = emptyList()
+
+    @Input
+    var filterCategory: String = "ABPIndo"
+
+    @OutputDirectory
+    lateinit var outputDir: File
+
+    private var duplicateHosts = 0
+    private var skippedHosts = 0
+    private var skippedRules = 0
+
+    @TaskAction
+    fun compile() {
+        duplicateHosts = 0
+        skippedHosts = 0
+        skippedRules = 0
+
+        val categories = sortedMapOf<String, MutableSet<String>>()
+        loadCategories(blocklist, categories, isOverride = false)
+        overrideLists.forEach { loadCategories(it, categories, isOverride = true) }
+        additionalLists.forEach { loadCategories(it, categories, isOverride = false) }
+        val entities = loadEntities(entityList)
+        val elementHiding = ElementHiding()
+        filterLists.forEach { loadFilters(it, categories, elementHiding) }
+
+        val payload = ByteArrayOutputStream().also { bytes ->
+            DataOutputStream(bytes).use { writePayload(it, categories, entities, elementHiding) }
+        }.toByteArray()
+
+        val outputFile = File(outputDir, "raw/$OUTPUT_FILE")
+        outputFile.parentFile.mkdirs()
+        DataOutputStream(outputFile.outputStream().buffered()).use { output ->
+            output.writeInt(MAGIC)
+            output.writeInt(FORMAT_VERSION)
+            output.writeLong(contentVersion(payload))
+            output.writeLong(CRC32().apply { update(payload) }.value)
+            output.writeInt(payload.size)
+            output.write(payload)
+        }
+
+        categories.forEach { (name, hosts) -> logger.lifecycle("  $name: ${hosts.size} hosts") }
+        logger.lifecycle("  Entities: ${entities.size}, ${entities.sumBy { it.properties.size }} properties, " +
+            "${entities.sumBy { it.resources.size }} resources")
+        logger.lifecycle("  Element hiding: ${elementHiding.generic.size} generic selectors, " +
+            "${elementHiding.byDomain.size} domains with ${elementHiding.byDomain.values.sumBy { it.size }} selectors, " +
+            "skipped $skippedRules unsupported filter rules")
+        logger.lifecycle("  Dropped $duplicateHosts duplicate and $skippedHosts invalid hosts, " +
+            "wrote ${outputFile.length()} bytes to $outputFile")
+    }
+
+    private fun loadCategories(file: File, categories: MutableMap<String, MutableSet<String>>, isOverride: Boolean) {
+        val json = parse(file)
+        val listCategories = json["categories"] as? Map<*, *>
+            ?: throw GradleException("Blocklist has no \"categories\" object: $file")
+
+        val movedToSocial = mutableListOf<String>()
+        listCategories.forEach { (key, value) ->
+            val name = key as String
+            val sites = value as? List<*> ?: throw GradleException("Category \"$name\" isn't an array: $file")
+            when {
+                name in IGNORED_CATEGORIES -> Unit
+                name == DISCONNECT -> forEachHost(file, name, sites) { owner, host ->
+                    if (owner in DISCONNECT_MOVED) {
+                        movedToSocial.add(host)
+                    }
+                }
+                else -> {
+                    val hosts = if (isOverride) {
+                        categories[name]
+                            ?: throw GradleException("Override for nonexistent category \"$name\": $file")
+                    } else {
+                        if (categories.containsKey(name)) {
+                            throw GradleException("Category \"$name\" is declared twice: $file")
+                        }
+                        mutableSetOf<String>().also { categories[name] = it }
+                    }
+                    forEachHost(file, name, sites) { _, host -> addHost(hosts, host) }
+                }
+            }
+        }
+
+        if (movedToSocial.isNotEmpty()) {
+            val social = categories[SOCIAL]
+                ?: throw GradleException("Expected \"$SOCIAL\" to exist, can't move Facebook/Twitter into it: $file")
+            movedToSocial.forEach { addHost(social, it) }
+        }
+    }
+
+    /**
+     * Sites look like `{"Owner": {"https://owner.com/": ["host1", "host2"], "dnt": "w3c"}}`.
+     */
+    private fun forEachHost(file: File, category: String, sites: List<*>, action: (String, String) -> Unit) {
+        sites.forEach { site ->
+            val owners = site as? Map<*, *> ?: throw GradleException("Malformed site in \"$category\": $file")
+            owners.forEach { (owner, urls) ->
+                val siteUrls = urls as? Map<*, *>
+                    ?: throw GradleException("Malformed site \"$owner\" in \"$category\": $file")
+                siteUrls.values.forEach { hosts ->
+                    when (hosts) {
+                        is String -> Unit // Sometimes there's a "dnt" entry, with unspecified purpose.
+                        is List<*> -> hosts.forEach { host ->
+                            val name = host as? String
+                                ?: throw GradleException("Non-string host of \"$owner\" in \"$category\": $file")
+                            if (isValidHost(name)) {
+                                action(owner as String, name)
+                            } else {
+                                logger.warn("Skipping invalid host \"$name\" of \"$owner\" in \"$category\"")
+                                skippedHosts++
+                            }
+                        }
+                        else -> throw GradleException("Malformed hosts of \"$owner\" in \"$category\": $file")
+                    }
+                }
+            }
+        }
+    }
+
+    private fun loadEntities(file: File): List<Entity> {
+        val seenProperties = hashSetOf<String>()
+        return parse(file).map { (name, value) ->
+            val entity = value as? Map<*, *> ?: throw GradleException("Malformed entity \"$name\": $file")
+            val properties = readHosts(file, name, entity["properties"])
+            val resources = readHosts(file, name, entity["resources"])
+            properties.forEach { property ->
+                if (!seenProperties.add(property)) {
+                    throw GradleException("Property \"${property.reversed()}\" belongs to more than one entity: $file")
+                }
+            }
+            Entity(properties, resources)
+        }
+    }
+
+    private fun readHosts(file: File, entity: Any?, value: Any?): Set<String> {
+        val list = value as? List<*> ?: return emptySet()
+        val hosts = sortedSetOf<String>()
+        list.forEach { host ->
+            val name = host as? String ?: throw GradleException("Non-string host in entity \"$entity\": $file")
+            if (isValidHost(name)) {
+                if (!hosts.add(name.reversed())) {
+                    duplicateHosts++
+                }
+            } else {
+                logger.warn("Skipping invalid host \"$name\" in entity \"$entity\"")
+                skippedHosts++
+            }
+        }
+        return hosts
+    }
+
+    private fun addHost(hosts: MutableSet<String>, host: String) {
+        if (!hosts.add(host.reversed())) {
+            duplicateHosts++
+        }
+    }
+
+    private fun loadFilters(file: File, categories: Map<String, MutableSet<String>>, elementHiding: ElementHiding) {
+        val hosts = categories[filterCategory]
+            ?: throw GradleException("Filter category \"$filterCategory\" isn't declared by any list: $file")
+
+        file.readLines().forEachIndexed { index, rawLine ->
+            val line = rawLine.trim()
+            val location = "$file:${index + 1}"
+            when {
+                line.isEmpty() || line.startsWith("!") || line.startsWith("[") -> Unit // Comments and header
+                line.contains("#@#") || line.contains("#?#") || line.contains("#$#") -> skippedRules++
+                line.contains("##") -> {
+                    val domains = line.substringBefore("##")
+                    val selector = line.substringAfter("##").trim()
+                    if (selector.isEmpty() || UNSAFE_SELECTOR_CHARACTERS.any { selector.contains(it) } ||
+                        selector.split(',').any { part -> ROOT_SELECTORS.any { part.trim().equals(it, ignoreCase = true) } }) {
+                        throw GradleException("Malformed element hiding selector: $location")
+                    }
+                    if (domains.isEmpty()) {
+                        elementHiding.generic.add(selector)
+                        return@forEachIndexed
+                    }
+                    val domainList = domains.split(',').map { it.trim() }
+                    if (domainList.any { it.startsWith("~") }) {
+                        // Exceptions would need a lookup per page domain, they aren't supported
+                        skippedRules++
+                        return@forEachIndexed
+                    }
+                    domainList.forEach { domain ->
+                        if (!isValidHost(domain)) {
+                            throw GradleException("Malformed element hiding domain \"$domain\": $location")
+                        }
+                        elementHiding.byDomain.getOrPut(domain) { sortedSetOf() }.add(selector)
+                    }
+                }
+                line.startsWith("||") && line.endsWith("^") -> {
+                    val host = line.substring(2, line.length - 1)
+                    if (isValidHost(host)) {
+                        addHost(hosts, host)
+                    } else {
+                        logger.warn("Skipping invalid host \"$host\": $location")
+                        skippedHosts++
+                    }
+                }
+                else -> skippedRules++ // URL patterns, options and regular expressions
+            }
+        }
+    }
+
+    private fun parse(file: File): Map<*, *> = try {
+        JsonSlurper().parse(file) as? Map<*, *> ?: throw GradleException("Expected a JSON object: $file")
+    } catch (e: JsonException) {
+        throw GradleException("Malformed JSON: $file", e)
+    }
+
+    private fun writePayload(
+        output: DataOutputStream,
+        categories: Map<String, Set<String>>,
+        entities: List<Entity>,
+        elementHiding: ElementHiding
+    ) {
+        output.writeInt(categories.size)
+        categories.forEach { (name, hosts) ->
+            output.writeUTF(name)
+            writeHosts(output, hosts.sorted())
+        }
+
+        output.writeInt(entities.size)
+        entities.forEach { entity ->
+            writeHosts(output, entity.properties.sorted())
+            writeHosts(output, entity.resources.sorted())
+        }
+
+        // Element hiding is enabled together with the category of the filter lists
+        output.writeUTF(filterCategory)
+        writeSelectors(output, elementHiding.generic)
+        output.writeInt(elementHiding.byDomain.size)
+        elementHiding.byDomain.forEach { (domain, selectors) ->
+            output.writeUTF(domain)
+            writeSelectors(output, selectors)
+        }
+    }
+
+    private fun writeSelectors(output: DataOutputStream, selectors: Set<String>) {
+        output.writeInt(selectors.size)
+        selectors.forEach { output.writeUTF(it) }
+    }
+
+    private fun writeHosts(output: DataOutputStream, sortedHosts: List<String>) {
+        output.writeInt(sortedHosts.size)
+        var previous = ""
+        sortedHosts.forEach { host ->
+            val shared = minOf(host.commonPrefixWith(previous).length, MAX_SHARED_PREFIX)
+            output.writeByte(shared)
+            output.writeUTF(host.substring(shared))
+            previous = host
+        }
+    }
+
+    private fun contentVersion(payload: ByteArray): Long {
+        val digest = MessageDigest.getInstance("SHA-256").digest(payload)
+        return digest.take(8).fold(0L) { version, byte -> (version shl 8) or (byte.toLong() and 0xff) }
+    }
+
+    private fun isValidHost(host: String) = HOST_PATTERN.matches(host)
+
+    private class Entity(val properties: Set<String>, val resources: Set<String>)
+
+    private class ElementHiding {
+        val generic = sortedSetOf<String>()
+        val byDomain = sortedMapOf<String, MutableSet<String>>()
+    }
+
+    companion object {
+        // Keep in sync with CompiledBlocklist
+        const val MAGIC = 0x524b424c // "RKBL"
+        const val FORMAT_VERSION = 2
+
+        private const val OUTPUT_FILE = "blocklists.bin"
+        private const val MAX_SHARED_PREFIX = 0xff
+
+        private const val SOCIAL = "Social"
+        private const val DISCONNECT = "Disconnect"
+        private val IGNORED_CATEGORIES = setOf("Legacy Disconnect", "Legacy Content")
+        private val DISCONNECT_MOVED = setOf("Facebook", "Twitter")
+
+        // Selectors end up in a <style> element, they must not be able to close the rule or the element.
+        // Keep in sync with ElementHidingRules, which checks them again when the lists are read.
+        private val UNSAFE_SELECTOR_CHARACTERS = listOf("{", "}", "<", "/*", "\\")
+        // Hiding any of these hides the whole page
+        private val ROOT_SELECTORS = listOf("html", "body", ":root", "*")
+
+        private val HOST_PATTERN = Regex("[a-z0-9_]([a-z0-9_-]*[a-z0-9_])?(\\.[a-z0-9_]([a-z0-9_-]*[a-z0-9_])?)*")
+    }
+}
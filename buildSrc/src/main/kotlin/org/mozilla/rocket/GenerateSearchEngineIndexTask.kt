@@ -0,0 +1,91 @@
+package org.mozilla.rocket
+
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+import org.gradle.api.DefaultTask
+import org.gradle.api.GradleException
+import org.gradle.api.tasks.InputDirectory
+import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.PathSensitive
+import org.gradle.api.tasks.PathSensitivity
+import org.gradle.api.tasks.TaskAction
+import java.io.File
+import javax.xml.parsers.DocumentBuilderFactory
+
+/**
+ * Resolves `search/search_configuration.json` against the bundled search plugin folders and writes
+ * `search/search_index.json`, which maps every locale key to the ordered list of engine identifiers,
+ * their display names and their asset paths. This saves the runtime from listing asset folders, and
+ * lets it pick the user's default engine to parse first without opening the other plugins.
+ */
+open class GenerateSearchEngineIndexTask : DefaultTask() {
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    lateinit var searchAssetsDir: File
+
+    @OutputDirectory
+    lateinit var outputDir: File
+
+    @TaskAction
+    fun generateIndex() {
+        val configFile = File(searchAssetsDir, CONFIGURATION_FILE)
+        if (!configFile.exists()) {
+            throw GradleException("Missing search configuration: $configFile")
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        val configuration = JsonSlurper().parse(configFile) as? Map<String, List<String>>
+            ?: throw GradleException("Malformed search configuration: $configFile")
+        if (!configuration.containsKey(DEFAULT_KEY)) {
+            throw GradleException("Search configuration has no \"$DEFAULT_KEY\" entry: $configFile")
+        }
+
+        val localeDirs = searchAssetsDir.listFiles { file -> file.isDirectory }
+            ?.map { it.name }
+            ?.filter { it != DEFAULT_KEY }
+            ?: emptyList()
+
+        val index = linkedMapOf<String, List<Map<String, String>>>()
+        (configuration.keys + localeDirs).distinct().sorted().forEach { key ->
+            index[key] = resolveEngines(key, configuration)
+        }
+
+        val indexFile = File(outputDir, "search/$INDEX_FILE")
+        indexFile.parentFile.mkdirs()
+        indexFile.writeText(JsonOutput.toJson(index))
+    }
+
+    private fun resolveEngines(key: String, configuration: Map<String, List<String>>): List<Map<String, String>> {
+        val language = key.substringBefore('-')
+        val engineNames = configuration[key] ?: configuration[language] ?: configuration.getValue(DEFAULT_KEY)
+        val searchPaths = listOf(key, language, DEFAULT_KEY).distinct()
+
+        return engineNames.map { engineName ->
+            val fileName = "$engineName.xml"
+            val folder = searchPaths.firstOrNull { File(searchAssetsDir, "$it/$fileName").exists() }
+                ?: throw GradleException("Couldn't find configuration for engine \"$engineName\" (locale \"$key\")")
+            val file = File(searchAssetsDir, "$folder/$fileName")
+            mapOf("identifier" to engineName, "name" to readShortName(file), "path" to "search/$folder/$fileName")
+        }
+    }
+
+    private fun readShortName(file: File): String {
+        val document = try {
+            DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file)
+        } catch (e: Exception) {
+            throw GradleException("Malformed search plugin: $file", e)
+        }
+        val shortName = document.getElementsByTagName("ShortName").item(0)?.textContent?.trim()
+        if (shortName.isNullOrEmpty()) {
+            throw GradleException("Search plugin has no <ShortName>: $file")
+        }
+        return shortName
+    }
+
+    companion object {
+        private const val CONFIGURATION_FILE = "search_configuration.json"
+        private const val INDEX_FILE = "search_index.json"
+        private const val DEFAULT_KEY = "default"
+    }
+}
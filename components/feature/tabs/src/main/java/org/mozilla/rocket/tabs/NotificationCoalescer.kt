@@ -0,0 +1,61 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.rocket.tabs
+
+import android.os.Looper
+import android.view.Choreographer
+
+/**
+ * To batch frequent notifications, such as loading progress, into one delivery per frame. Only the
+ * latest notification of each key is delivered, in the order the keys were first posted.
+ *
+ * Notifications posted off the main thread are delivered immediately.
+ */
+internal class NotificationCoalescer : Choreographer.FrameCallback {
+
+    private val pending = LinkedHashMap<Any, () -> Unit>()
+
+    private var scheduled = false
+
+    fun post(key: Any, notification: () -> Unit) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            notification()
+            return
+        }
+
+        pending[key] = notification
+        if (!scheduled) {
+            scheduled = true
+            Choreographer.getInstance().postFrameCallback(this)
+        }
+    }
+
+    /**
+     * To deliver pending notifications now, e.g. before a notification which should not be
+     * delayed, so observers still receive everything in order.
+     */
+    fun flush() {
+        if (scheduled) {
+            Choreographer.getInstance().removeFrameCallback(this)
+            scheduled = false
+        }
+        deliverPending()
+    }
+
+    override fun doFrame(frameTimeNanos: Long) {
+        scheduled = false
+        deliverPending()
+    }
+
+    private fun deliverPending() {
+        if (pending.isEmpty()) {
+            return
+        }
+        val notifications = ArrayList(pending.values)
+        pending.clear()
+        notifications.forEach { it() }
+    }
+}
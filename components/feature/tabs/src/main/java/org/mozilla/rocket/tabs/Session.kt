@@ -33,6 +33,8 @@ class Session @JvmOverloads constructor(
 
     var favicon: Bitmap? = null
 
+    private val coalescer = NotificationCoalescer()
+
     val isFromExternal: Boolean
         get() = ID_EXTERNAL == parentId
 
@@ -41,7 +43,7 @@ class Session @JvmOverloads constructor(
      */
     var url: String? by Delegates.observable(initialUrl) { _, old, new ->
         if (old != null && new != null) {
-            notifyObservers(old, new) { onUrlChanged(this@Session, new) }
+            notifyObserversOnFrame(KEY_URL, old, new) { onUrlChanged(this@Session, new) }
         }
     }
 
@@ -49,35 +51,43 @@ class Session @JvmOverloads constructor(
      * The title of the currently displayed website changed.
      */
     var title: String by Delegates.observable("") { _, old, new ->
-        notifyObservers(old, new) { onTitleChanged(this@Session, new) }
+        notifyObserversOnFrame(KEY_TITLE, old, new) { onTitleChanged(this@Session, new) }
     }
 
     /**
      * The progress loading the current URL.
      */
     var progress: Int by Delegates.observable(0) { _, old, new ->
-        notifyObservers(old, new) { onProgress(this@Session, new) }
+        notifyObserversOnFrame(KEY_PROGRESS, old, new) { onProgress(this@Session, new) }
     }
 
     /**
      * Loading state, true if this session's url is currently loading, otherwise false.
+     * Changes are delivered immediately, after any pending notification of other properties.
      */
     var loading: Boolean by Delegates.observable(false) { _, old, new ->
-        notifyObservers(old, new) { onLoadingStateChanged(this@Session, new) }
+        if (old != new) {
+            coalescer.flush()
+            notifyObservers { onLoadingStateChanged(this@Session, new) }
+        }
     }
 
     /**
      * Navigation state, true if there's an history item to go back to, otherwise false.
      */
     var canGoBack: Boolean by Delegates.observable(false) { _, old, new ->
-        notifyObservers(old, new) { onNavigationStateChanged(this@Session, new, canGoForward) }
+        notifyObserversOnFrame(KEY_NAVIGATION, old, new) {
+            onNavigationStateChanged(this@Session, canGoBack, canGoForward)
+        }
     }
 
     /**
      * Navigation state, true if there's an history item to go forward to, otherwise false.
      */
     var canGoForward: Boolean by Delegates.observable(false) { _, old, new ->
-        notifyObservers(old, new) { onNavigationStateChanged(this@Session, canGoBack, new) }
+        notifyObserversOnFrame(KEY_NAVIGATION, old, new) {
+            onNavigationStateChanged(this@Session, canGoBack, canGoForward)
+        }
     }
 
     /**
@@ -85,7 +95,7 @@ class Session @JvmOverloads constructor(
      * for a secure URL, as well as the host and SSL certificate authority, if applicable.
      */
     var securityInfo: SecurityInfo by Delegates.observable(SecurityInfo()) { _, old, new ->
-        notifyObservers(old, new) { onSecurityChanged(this@Session, new.secure) }
+        notifyObserversOnFrame(KEY_SECURITY, old, new) { onSecurityChanged(this@Session, new.secure) }
     }
 
     /**
@@ -124,6 +134,16 @@ class Session @JvmOverloads constructor(
         }
     }
 
+    /**
+     * Helper method to notify observers on next frame. Changes of the same property within a frame
+     * are delivered once, with the latest value.
+     */
+    private fun notifyObserversOnFrame(key: String, old: Any, new: Any, block: Observer.() -> Unit) {
+        if (old != new) {
+            coalescer.post(key) { notifyObservers(block) }
+        }
+    }
+
     interface Observer {
         fun onLoadingStateChanged(session: Session, loading: Boolean) = Unit
         fun onNavigationStateChanged(session: Session, canGoBack: Boolean, canGoForward: Boolean) = Unit
@@ -162,5 +182,11 @@ class Session @JvmOverloads constructor(
 
     companion object {
         const val ID_EXTERNAL = "_open_from_external_"
+
+        private const val KEY_URL = "url"
+        private const val KEY_TITLE = "title"
+        private const val KEY_PROGRESS = "progress"
+        private const val KEY_NAVIGATION = "navigation"
+        private const val KEY_SECURITY = "security"
     }
 }
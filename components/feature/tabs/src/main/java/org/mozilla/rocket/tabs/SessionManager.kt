@@ -5,6 +5,7 @@
 
 package org.mozilla.rocket.tabs
 
+import android.content.ComponentCallbacks2
 import android.net.Uri
 import android.os.Bundle
 import android.os.Handler
@@ -25,11 +26,13 @@ import org.mozilla.rocket.tabs.SessionManager.Observer
 import org.mozilla.rocket.tabs.utils.TabUtil
 import java.lang.ref.WeakReference
 import java.util.ArrayList
+import java.util.LinkedHashSet
 import java.util.LinkedList
 
 internal val MSG_FOCUS_TAB = 0x1001
 internal val MSG_ADDED_TAB = 0x1002
 internal val MSG_REMOVEDED_TAB = 0x1003
+internal val MSG_HIBERNATE_TABS = 0x1004
 
 /**
  * Class to help on sessions management, such as adding or removing sessions.
@@ -45,6 +48,38 @@ class SessionManager @JvmOverloads constructor(
 
     private var focusRef = WeakReference<Session>(null)
 
+    /**
+     * Sessions ordered by the last time they were focused or got a TabView, the least recently
+     * used one comes first.
+     */
+    private val recentlyUsed = LinkedHashSet<Session>()
+
+    /**
+     * Maximum number of sessions which keep a live TabView. Once exceeded, the least recently
+     * focused sessions are hibernated: their state is saved, their TabView is destroyed and it is
+     * re-created when the session is focused again. The focused session is never hibernated.
+     *
+     * Default value keeps every TabView alive.
+     */
+    var maxLiveTabViews: Int = Int.MAX_VALUE
+        set(value) {
+            require(value > 0) { "at least one live TabView is required" }
+            field = value
+            notifier.notifyHibernateTabs()
+        }
+
+    /**
+     * To get count of sessions which hold a live TabView.
+     */
+    val liveTabViewCount: Int
+        get() = sessions.count { it.engineSession?.tabView != null }
+
+    /**
+     * To get count of sessions which have no TabView, they will be rehydrated once focused.
+     */
+    val hibernatedTabCount: Int
+        get() = sessions.size - liveTabViewCount
+
     /**
      * To get count of sessions in this session.
      *
@@ -207,6 +242,32 @@ class SessionManager @JvmOverloads constructor(
         notifier.notifyTabFocused(nextTab, FACTOR_TAB_SWITCHED)
     }
 
+    /**
+     * To release TabViews of background sessions according to the memory pressure. Should be
+     * called from @see{android.content.ComponentCallbacks2#onTrimMemory}.
+     *
+     * @param level the trim level given by the system
+     */
+    fun onTrimMemory(level: Int) {
+        val liveTabViews = when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE -> 1
+            level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND -> maxLiveTabViews / 2
+            level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN -> return
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> 1
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> maxLiveTabViews / 2
+            else -> return
+        }
+        hibernateTabs(Math.max(1, liveTabViews), true)
+    }
+
+    /**
+     * To release TabViews of every background session. Should be called from
+     * @see{android.content.ComponentCallbacks#onLowMemory}.
+     */
+    fun onLowMemory() {
+        hibernateTabs(1, true)
+    }
+
     /**
      * To check whether this session has any sessions
      *
@@ -263,6 +324,7 @@ class SessionManager @JvmOverloads constructor(
         val url = if (TextUtils.isEmpty(session.url)) session.initialUrl else session.url
         val tabView = tabViewProvider.create()
         session.engineSession?.tabView = tabView
+        touch(session)
         val webViewState = session.engineSession?.webViewState
         if (webViewState != null) {
             tabView.restoreViewState(webViewState)
@@ -292,10 +354,56 @@ class SessionManager @JvmOverloads constructor(
     }
 
     private fun destroySession(session: Session) {
+        recentlyUsed.remove(session)
         unlink(session)
         session.unregisterObservers()
     }
 
+    private fun touch(session: Session) {
+        recentlyUsed.remove(session)
+        recentlyUsed.add(session)
+    }
+
+    /**
+     * To hibernate least recently used sessions until no more than given number of TabViews alive.
+     *
+     * @param liveTabViews how many TabViews could be kept
+     * @param includeLoading true to hibernate sessions even if they are still loading
+     */
+    private fun hibernateTabs(liveTabViews: Int, includeLoading: Boolean) {
+        var excess = liveTabViewCount - liveTabViews
+        if (excess <= 0) {
+            return
+        }
+
+        val focus = focusRef.get()
+        val candidates = recentlyUsed.filter { session ->
+            session !== focus &&
+                session.engineSession?.tabView != null &&
+                (includeLoading || !session.loading)
+        }
+        for (session in candidates) {
+            if (excess-- <= 0) {
+                break
+            }
+            hibernate(session)
+        }
+    }
+
+    private fun hibernate(session: Session) {
+        val engineSession = session.engineSession ?: return
+        val tabView = engineSession.tabView ?: return
+
+        engineSession.saveState()
+        engineSession.detach()
+        // stop receiving callbacks before the view goes away, the session and its observers stay
+        engineSession.tabView = null
+        tabView.destroy()
+
+        session.loading = false
+        recentlyUsed.remove(session)
+    }
+
     private fun addTabInternal(
         url: String?,
         parentId: String?,
@@ -324,6 +432,8 @@ class SessionManager @JvmOverloads constructor(
 
         if (toFocus || fromExternal) {
             notifier.notifyTabFocused(tab, FACTOR_TAB_ADDED)
+        } else {
+            notifier.notifyHibernateTabs()
         }
 
         notifyObservers { onSessionCountChanged(sessions.size) }
@@ -460,6 +570,7 @@ class SessionManager @JvmOverloads constructor(
                 )
                 MSG_ADDED_TAB -> addedTab(msg)
                 MSG_REMOVEDED_TAB -> removedTab(msg)
+                MSG_HIBERNATE_TABS -> observable.hibernateTabs(observable.maxLiveTabViews, false)
                 else -> {
                 }
             }
@@ -477,6 +588,13 @@ class SessionManager @JvmOverloads constructor(
             this.sendMessage(msg)
         }
 
+        fun notifyHibernateTabs() {
+            // A TabView might still be running its own callback, such as opening a new window,
+            // so never destroy it synchronously.
+            this.removeMessages(MSG_HIBERNATE_TABS)
+            this.sendEmptyMessage(MSG_HIBERNATE_TABS)
+        }
+
         fun addedTab(msg: Message) {
             val pair = (msg.obj as Pair<*, *>).let {
                 (it.first as Session to it.second as Bundle?)
@@ -500,10 +618,13 @@ class SessionManager @JvmOverloads constructor(
             session?.let {
                 if (observable.getOrCreateEngineSession(session).tabView == null) {
                     observable.initializeEngineView(session)
+                } else {
+                    observable.touch(session)
                 }
             }
 
             observable.notifyObservers { onFocusChanged(session, factor) }
+            notifyHibernateTabs()
         }
     }
 
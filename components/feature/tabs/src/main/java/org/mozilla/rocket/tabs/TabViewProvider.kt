@@ -19,4 +19,10 @@ abstract class TabViewProvider {
      * For instance, a cookie effect a @see{android.webkit.WebView} but it is stores in another place.
      */
     open fun purify(context: Context?) {}
+
+    /**
+     * To check whether a TabView created ahead of time still matches current settings, such as
+     * content blocking. A TabView which doesn't will be destroyed instead of being used.
+     */
+    open fun isUpToDate(tabView: TabView): Boolean = true
 }
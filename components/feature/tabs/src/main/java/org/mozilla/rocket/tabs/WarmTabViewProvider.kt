@@ -0,0 +1,152 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.rocket.tabs
+
+import android.content.Context
+import android.os.Looper
+import android.os.MessageQueue
+import android.os.SystemClock
+import androidx.annotation.VisibleForTesting
+import java.util.ArrayDeque
+
+/**
+ * A TabViewProvider which keeps a few TabViews, created by another provider, ready to be used.
+ *
+ * Creating a TabView is expensive, especially the first WebView of a process. The pool is refilled
+ * one TabView per idle pass of the main thread, so opening a new tab usually doesn't wait for
+ * it. Pooled TabViews which no longer match current settings are destroyed instead of used.
+ *
+ * This class should only be used on the main thread.
+ */
+class WarmTabViewProvider @JvmOverloads constructor(
+    private val delegate: TabViewProvider,
+    private val poolSize: Int = DEFAULT_POOL_SIZE,
+    private val listener: Listener? = null
+) : TabViewProvider() {
+
+    private val pool = ArrayDeque<TabView>(poolSize)
+
+    private var refillScheduled = false
+    private var destroyed = false
+
+    private val refillHandler = MessageQueue.IdleHandler {
+        refillScheduled = refill()
+        refillScheduled
+    }
+
+    init {
+        require(poolSize > 0) { "pool size should be positive" }
+    }
+
+    /**
+     * Count of TabViews ready to be used.
+     */
+    val pooledCount: Int
+        get() = pool.size
+
+    override fun create(): TabView {
+        val start = SystemClock.elapsedRealtime()
+        var tabView = acquire()
+        val fromPool = tabView != null
+        if (tabView == null) {
+            tabView = delegate.create()
+        }
+        listener?.onTabViewProvided(fromPool, SystemClock.elapsedRealtime() - start)
+
+        scheduleRefill()
+        return tabView
+    }
+
+    override fun purify(context: Context?) = delegate.purify(context)
+
+    override fun isUpToDate(tabView: TabView) = delegate.isUpToDate(tabView)
+
+    /**
+     * To start filling the pool once the main thread becomes idle.
+     */
+    fun warmUp() = scheduleRefill()
+
+    /**
+     * To destroy every pooled TabView, for instance when the host is destroyed or the memory is
+     * low. The pool will be refilled by next call to @see{#create} or @see{#warmUp}.
+     */
+    fun release() {
+        if (refillScheduled) {
+            Looper.myQueue().removeIdleHandler(refillHandler)
+            refillScheduled = false
+        }
+        while (pool.isNotEmpty()) {
+            pool.removeFirst().destroy()
+        }
+    }
+
+    /**
+     * To destroy every pooled TabView and stop refilling the pool, when the host is destroyed.
+     * TabViews are still created on demand, but never kept ahead of time anymore.
+     */
+    fun destroy() {
+        destroyed = true
+        release()
+    }
+
+    private fun acquire(): TabView? {
+        while (pool.isNotEmpty()) {
+            val tabView = pool.removeFirst()
+            if (delegate.isUpToDate(tabView)) {
+                return tabView
+            }
+            tabView.destroy()
+        }
+        return null
+    }
+
+    private fun scheduleRefill() {
+        if (destroyed || refillScheduled || pool.size >= poolSize) {
+            return
+        }
+        refillScheduled = true
+        Looper.myQueue().addIdleHandler(refillHandler)
+    }
+
+    /**
+     * To create one TabView into the pool.
+     *
+     * @return true if the pool is still not full
+     */
+    @VisibleForTesting
+    internal fun refill(): Boolean {
+        if (destroyed) {
+            return false
+        }
+        if (pool.size < poolSize) {
+            val start = SystemClock.elapsedRealtime()
+            pool.addLast(delegate.create())
+            listener?.onTabViewPrewarmed(SystemClock.elapsedRealtime() - start)
+        }
+        return pool.size < poolSize
+    }
+
+    interface Listener {
+        /**
+         * Notify a TabView was handed out.
+         *
+         * @param fromPool true if the TabView was created ahead of time
+         * @param latencyMillis how long the caller waited for the TabView
+         */
+        fun onTabViewProvided(fromPool: Boolean, latencyMillis: Long) = Unit
+
+        /**
+         * Notify a TabView was created into the pool while the main thread was idle.
+         *
+         * @param latencyMillis how long the creation took
+         */
+        fun onTabViewPrewarmed(latencyMillis: Long) = Unit
+    }
+
+    companion object {
+        const val DEFAULT_POOL_SIZE = 1
+    }
+}
@@ -5,6 +5,7 @@
 
 package org.mozilla.rocket.tabs
 
+import android.content.ComponentCallbacks2
 import android.graphics.Bitmap
 import android.net.Uri
 import android.os.Bundle
@@ -416,6 +417,59 @@ class SessionManagerTest {
         Assert.assertNull(mgr.focusSession)
     }
 
+    @Test
+    fun testHibernateTabs() {
+        mgr.maxLiveTabViews = 2
+        val tabId0 = mgr.addTab("url0", TabUtil.argument(null, false, true))
+        val tabId1 = mgr.addTab("url1", TabUtil.argument(null, false, true))
+        val tabId2 = mgr.addTab("url2", TabUtil.argument(null, false, true))
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks()
+
+        // the least recently focused tab was hibernated, its state was kept
+        Assert.assertEquals(2, mgr.liveTabViewCount)
+        Assert.assertEquals(1, mgr.hibernatedTabCount)
+        val tab0 = mgr.getTabs()[0]
+        Assert.assertEquals(tabId0, tab0.id)
+        Assert.assertNull(tab0.engineSession!!.tabView)
+        Assert.assertNotNull(tab0.engineSession!!.webViewState)
+
+        // focus it again, it is rehydrated and tab1 becomes the least recently focused one
+        mgr.switchToTab(tabId0!!)
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks()
+        Assert.assertEquals(2, mgr.liveTabViewCount)
+        Assert.assertNotNull(tab0.engineSession!!.tabView)
+        Assert.assertNull(mgr.getTabs()[1].engineSession!!.tabView)
+        Assert.assertEquals(tabId1, mgr.getTabs()[1].id)
+        Assert.assertNotNull(mgr.getTabs()[2].engineSession!!.tabView)
+        Assert.assertEquals(tabId2, mgr.getTabs()[2].id)
+    }
+
+    @Test
+    fun testTrimMemory() {
+        mgr.addTab("url0", TabUtil.argument(null, false, true))
+        mgr.addTab("url1", TabUtil.argument(null, false, true))
+        val tabId2 = mgr.addTab("url2", TabUtil.argument(null, false, true))
+        val tabId3 = mgr.addTab("url3", TabUtil.argument(null, false, true))
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks()
+        Assert.assertEquals(4, mgr.liveTabViewCount)
+
+        // not a memory pressure
+        mgr.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+        Assert.assertEquals(4, mgr.liveTabViewCount)
+
+        mgr.maxLiveTabViews = 4
+        mgr.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW)
+        Assert.assertEquals(2, mgr.liveTabViewCount)
+        Assert.assertNotNull(mgr.getTabs()[2].engineSession!!.tabView)
+        Assert.assertEquals(tabId2, mgr.getTabs()[2].id)
+
+        mgr.onLowMemory()
+        Assert.assertEquals(1, mgr.liveTabViewCount)
+        Assert.assertEquals(3, mgr.hibernatedTabCount)
+        Assert.assertEquals(tabId3, mgr.focusSession!!.id)
+        Assert.assertNotNull(mgr.focusSession!!.engineSession!!.tabView)
+    }
+
     private class DefaultTabViewProvider : TabViewProvider() {
         override fun create(): TabView {
             return DefaultTabView()
@@ -0,0 +1,73 @@
+package org.mozilla.rocket.tabs
+
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import org.robolectric.shadows.ShadowLooper
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner::class)
+class SessionNotificationTest {
+
+    private lateinit var session: Session
+    private val events = mutableListOf<String>()
+
+    @Before
+    fun setUp() {
+        session = Session("id", "", "https://mozilla.org")
+        session.register(object : Session.Observer {
+            override fun onLoadingStateChanged(session: Session, loading: Boolean) {
+                events.add("loading:$loading")
+            }
+
+            override fun onProgress(session: Session, progress: Int) {
+                events.add("progress:$progress")
+            }
+
+            override fun onTitleChanged(session: Session, title: String?) {
+                events.add("title:$title")
+            }
+
+            override fun onNavigationStateChanged(session: Session, canGoBack: Boolean, canGoForward: Boolean) {
+                events.add("navigation:$canGoBack,$canGoForward")
+            }
+        })
+    }
+
+    @Test
+    fun testProgressIsCoalescedPerFrame() {
+        session.progress = 10
+        session.progress = 50
+        session.progress = 80
+        assertEquals(emptyList<String>(), events)
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks()
+        assertEquals(listOf("progress:80"), events)
+    }
+
+    @Test
+    fun testLoadingIsDeliveredImmediatelyAfterPendingChanges() {
+        session.loading = true
+        session.title = "Mozilla"
+        session.progress = 30
+        session.progress = 100
+        session.loading = false
+
+        assertEquals(listOf("loading:true", "title:Mozilla", "progress:100", "loading:false"), events)
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks()
+        assertEquals(4, events.size)
+    }
+
+    @Test
+    fun testNavigationStateIsDeliveredOnceWithLatestValues() {
+        session.canGoBack = true
+        session.canGoForward = true
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks()
+        assertEquals(listOf("navigation:true,true"), events)
+    }
+}
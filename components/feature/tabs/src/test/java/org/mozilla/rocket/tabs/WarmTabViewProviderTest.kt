@@ -0,0 +1,124 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.rocket.tabs
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner::class)
+class WarmTabViewProviderTest {
+
+    private lateinit var delegate: FakeTabViewProvider
+    private lateinit var provider: WarmTabViewProvider
+    private val provided = mutableListOf<Boolean>()
+
+    @Before
+    fun setUp() {
+        delegate = FakeTabViewProvider()
+        provider = WarmTabViewProvider(delegate, 2, object : WarmTabViewProvider.Listener {
+            override fun onTabViewProvided(fromPool: Boolean, latencyMillis: Long) {
+                provided.add(fromPool)
+            }
+        })
+    }
+
+    @Test
+    fun testCreateWithoutPool() {
+        val tabView = provider.create()
+
+        assertSame(delegate.created[0], tabView)
+        assertEquals(listOf(false), provided)
+    }
+
+    @Test
+    fun testRefill() {
+        assertTrue(provider.refill())
+        assertFalse(provider.refill())
+        assertFalse(provider.refill())
+
+        assertEquals(2, provider.pooledCount)
+        assertEquals(2, delegate.created.size)
+    }
+
+    @Test
+    fun testCreateFromPool() {
+        provider.refill()
+        val pooled = delegate.created[0]
+
+        assertSame(pooled, provider.create())
+        assertEquals(0, provider.pooledCount)
+        assertEquals(listOf(true), provided)
+    }
+
+    @Test
+    fun testOutdatedTabView() {
+        provider.refill()
+        val pooled = delegate.created[0]
+        delegate.upToDate = false
+
+        val tabView = provider.create()
+
+        assertNotSame(pooled, tabView)
+        verify(pooled).destroy()
+        assertEquals(listOf(false), provided)
+    }
+
+    @Test
+    fun testRelease() {
+        provider.refill()
+        provider.refill()
+
+        provider.release()
+
+        assertEquals(0, provider.pooledCount)
+        delegate.created.forEach { verify(it).destroy() }
+    }
+
+    @Test
+    fun testReleaseKeepsProvidedTabView() {
+        provider.refill()
+        val tabView = provider.create()
+
+        provider.release()
+
+        verify(tabView, never()).destroy()
+    }
+
+    @Test
+    fun testDestroyStopsRefilling() {
+        provider.refill()
+        val pooled = delegate.created[0]
+
+        provider.destroy()
+        verify(pooled).destroy()
+
+        provider.create()
+        assertFalse(provider.refill())
+        assertEquals(0, provider.pooledCount)
+        assertEquals(2, delegate.created.size)
+    }
+
+    private class FakeTabViewProvider : TabViewProvider() {
+        val created = mutableListOf<TabView>()
+        var upToDate = true
+
+        override fun create(): TabView = mock(TabView::class.java).also { created.add(it) }
+
+        override fun isUpToDate(tabView: TabView) = upToDate
+    }
+}
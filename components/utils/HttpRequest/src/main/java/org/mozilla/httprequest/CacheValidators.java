@@ -0,0 +1,58 @@
+package org.mozilla.httprequest;
+
+/**
+ * The validators of a previously fetched response, used to issue a conditional GET
+ * (If-None-Match / If-Modified-Since).
+ */
+public class CacheValidators {
+
+    private final String etag;
+    private final String lastModified;
+
+    public CacheValidators(String etag, String lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isEmpty() {
+        return isEmpty(etag) && isEmpty(lastModified);
+    }
+
+    /**
+     * Serialize into two lines, the ETag then the Last-Modified date, each empty if missing, so the
+     * validators can be stored next to a cached body. Neither header value can contain a line break.
+     */
+    public String serialize() {
+        return (etag == null ? "" : etag) + "\n" + (lastModified == null ? "" : lastModified);
+    }
+
+    /**
+     * @param string as returned by {@link #serialize()}, a single line is read as the ETag
+     */
+    public static CacheValidators deserialize(String string) {
+        if (string == null) {
+            return new CacheValidators(null, null);
+        }
+        final int separator = string.indexOf('\n');
+        if (separator < 0) {
+            return new CacheValidators(emptyToNull(string), null);
+        }
+        return new CacheValidators(emptyToNull(string.substring(0, separator)), emptyToNull(string.substring(separator + 1)));
+    }
+
+    private static boolean isEmpty(String string) {
+        return string == null || string.isEmpty();
+    }
+
+    private static String emptyToNull(String string) {
+        return isEmpty(string) ? null : string;
+    }
+}
@@ -0,0 +1,91 @@
+package org.mozilla.httprequest;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * A small reusable HTTP layer on top of {@link HttpURLConnection}.
+ *
+ * Connections are never disconnected explicitly after a successful exchange, so HttpURLConnection
+ * can return the socket to its keep-alive pool once {@link HttpResponse#close()} is called. The
+ * client asks for gzip and decodes it itself, supports conditional GETs through
+ * {@link CacheValidators}, caps the body size, and reports per-request {@link HttpMetrics}.
+ */
+public class HttpClient {
+
+    public static final int DEFAULT_TIMEOUT = 2000;
+    public static final long DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
+    public interface MetricsListener {
+        void onRequestFinished(HttpMetrics metrics);
+    }
+
+    private final String userAgent;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final long maxBodySize;
+    private volatile MetricsListener metricsListener;
+
+    public HttpClient(String userAgent) {
+        this(userAgent, DEFAULT_TIMEOUT, 0, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param connectTimeout connect timeout in milliseconds, 0 to use the platform default
+     * @param readTimeout    read timeout in milliseconds, 0 to use the platform default
+     * @param maxBodySize    reading more than this many decoded bytes fails with an IOException
+     */
+    public HttpClient(String userAgent, int connectTimeout, int readTimeout, long maxBodySize) {
+        this.userAgent = userAgent;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxBodySize = maxBodySize;
+    }
+
+    public void setMetricsListener(MetricsListener listener) {
+        this.metricsListener = listener;
+    }
+
+    public HttpResponse get(URL url) throws IOException {
+        return get(url, null);
+    }
+
+    /**
+     * Issue a GET request. The caller must close the returned response.
+     *
+     * @param validators the validators of a cached copy, if any. When the server still considers the
+     *                   copy valid, the response is {@link HttpResponse#isNotModified()}.
+     */
+    public HttpResponse get(URL url, CacheValidators validators) throws IOException {
+        final HttpMetrics metrics = new HttpMetrics(url.toString());
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            if (userAgent != null) {
+                connection.setRequestProperty("User-Agent", userAgent);
+            }
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if (connectTimeout > 0) {
+                connection.setConnectTimeout(connectTimeout);
+            }
+            if (readTimeout > 0) {
+                connection.setReadTimeout(readTimeout);
+            }
+            if (validators != null) {
+                if (validators.getEtag() != null) {
+                    connection.setRequestProperty("If-None-Match", validators.getEtag());
+                }
+                if (validators.getLastModified() != null) {
+                    connection.setRequestProperty("If-Modified-Since", validators.getLastModified());
+                }
+            }
+
+            return new HttpResponse(connection, metrics, maxBodySize, metricsListener);
+        } catch (IOException | RuntimeException e) {
+            // IndexOutOfBoundsException sometimes is thrown by the okHttp library
+            // bundled within the android framework.
+            connection.disconnect();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+}
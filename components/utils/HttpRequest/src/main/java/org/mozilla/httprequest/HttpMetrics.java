@@ -0,0 +1,81 @@
+package org.mozilla.httprequest;
+
+/**
+ * Timing and size measurements of a single request. All durations are in milliseconds.
+ */
+public class HttpMetrics {
+
+    private final String url;
+    private final long startNanos;
+    private long headersNanos;
+    private long endNanos;
+    private long bytesReceived;
+    private long bytesDecoded;
+    private int statusCode;
+
+    HttpMetrics(String url) {
+        this.url = url;
+        this.startNanos = System.nanoTime();
+    }
+
+    void onHeadersReceived(int statusCode) {
+        this.statusCode = statusCode;
+        this.headersNanos = System.nanoTime();
+    }
+
+    void onBodyClosed(long bytesReceived, long bytesDecoded) {
+        if (endNanos != 0) {
+            return;
+        }
+        this.bytesReceived = bytesReceived;
+        this.bytesDecoded = bytesDecoded;
+        this.endNanos = System.nanoTime();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Time from opening the connection until the response headers arrived (connect + TTFB).
+     */
+    public long getTimeToHeaders() {
+        return headersNanos == 0 ? -1 : (headersNanos - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Time from opening the connection until the body was consumed and closed.
+     */
+    public long getTotalTime() {
+        return endNanos == 0 ? -1 : (endNanos - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Bytes read from the wire, before gzip decoding.
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Bytes handed to the caller, after gzip decoding.
+     */
+    public long getBytesDecoded() {
+        return bytesDecoded;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpMetrics{" + url
+                + ", status=" + statusCode
+                + ", headers=" + getTimeToHeaders() + "ms"
+                + ", total=" + getTotalTime() + "ms"
+                + ", received=" + bytesReceived
+                + ", decoded=" + bytesDecoded
+                + "}";
+    }
+}
@@ -0,0 +1,233 @@
+package org.mozilla.httprequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A response whose body is streamed from the connection. The body can be consumed once, either as
+ * a stream, a {@link Reader}, a {@link ByteBuffer} or a String. Closing the response after the body
+ * has been consumed lets the underlying connection go back to the keep-alive pool.
+ */
+public class HttpResponse implements Closeable {
+
+    private final HttpURLConnection connection;
+    private final int statusCode;
+    private final HttpMetrics metrics;
+    private final long maxBodySize;
+    private final HttpClient.MetricsListener metricsListener;
+
+    private CountingInputStream wireStream;
+    private CountingInputStream bodyStream;
+    private boolean closed;
+
+    HttpResponse(HttpURLConnection connection, HttpMetrics metrics, long maxBodySize,
+                 HttpClient.MetricsListener metricsListener) throws IOException {
+        this.connection = connection;
+        this.statusCode = connection.getResponseCode();
+        this.metrics = metrics;
+        this.maxBodySize = maxBodySize;
+        this.metricsListener = metricsListener;
+        metrics.onHeadersReceived(statusCode);
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * @return true if the server answered a conditional request with 304, the cached copy is still valid
+     */
+    public boolean isNotModified() {
+        return statusCode == HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    public String getHeader(String name) {
+        return connection.getHeaderField(name);
+    }
+
+    public CacheValidators getValidators() {
+        return new CacheValidators(getHeader("ETag"), getHeader("Last-Modified"));
+    }
+
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the decoded body, gzip is removed transparently
+     * @throws IOException if reading fails or the body exceeds the configured size cap
+     */
+    public InputStream getBodyStream() throws IOException {
+        if (bodyStream != null) {
+            return bodyStream;
+        }
+        InputStream stream;
+        try {
+            stream = statusCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                    ? connection.getErrorStream()
+                    : connection.getInputStream();
+        } catch (IndexOutOfBoundsException e) {
+            // IndexOutOfBoundsException sometimes is thrown by the okHttp library
+            // bundled within the android framework.
+            throw new IOException(e);
+        }
+        if (stream == null) {
+            stream = new EmptyInputStream();
+        }
+
+        wireStream = new CountingInputStream(stream, Long.MAX_VALUE);
+        InputStream decoded = wireStream;
+        if (isGzipped()) {
+            decoded = new GZIPInputStream(wireStream);
+        }
+        bodyStream = new CountingInputStream(decoded, maxBodySize);
+        return bodyStream;
+    }
+
+    public Reader getBodyReader() throws IOException {
+        return new InputStreamReader(getBodyStream(), getCharset());
+    }
+
+    /**
+     * Read the whole body into a heap buffer, sized from Content-Length when the server sends it.
+     */
+    public ByteBuffer readByteBuffer() throws IOException {
+        final InputStream stream = getBodyStream();
+        final int contentLength = connection.getContentLength();
+        final int initialSize = contentLength > 0 && contentLength <= maxBodySize && !isGzipped()
+                ? contentLength
+                : 4096;
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(initialSize);
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return ByteBuffer.wrap(output.toByteArray());
+    }
+
+    public String readString() throws IOException {
+        final ByteBuffer buffer = readByteBuffer();
+        return new String(buffer.array(), buffer.arrayOffset(), buffer.remaining(), getCharset());
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (bodyStream != null) {
+                bodyStream.close();
+            } else {
+                // Nobody asked for the body, make sure the stream is closed so the socket is released.
+                final InputStream stream = statusCode >= HttpURLConnection.HTTP_BAD_REQUEST
+                        ? connection.getErrorStream()
+                        : connection.getInputStream();
+                if (stream != null) {
+                    stream.close();
+                }
+            }
+        } catch (IOException | IndexOutOfBoundsException ignored) {
+            // The connection is unusable, drop it instead of returning it to the pool.
+            connection.disconnect();
+        }
+        metrics.onBodyClosed(wireStream == null ? 0 : wireStream.count, bodyStream == null ? 0 : bodyStream.count);
+        if (metricsListener != null) {
+            metricsListener.onRequestFinished(metrics);
+        }
+    }
+
+    private boolean isGzipped() {
+        final String encoding = connection.getContentEncoding();
+        return encoding != null && "gzip".equals(encoding.toLowerCase(Locale.US));
+    }
+
+    private Charset getCharset() {
+        final String contentType = connection.getContentType();
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                final String trimmed = parameter.trim();
+                if (trimmed.toLowerCase(Locale.US).startsWith("charset=")) {
+                    try {
+                        return Charset.forName(trimmed.substring("charset=".length()).replace("\"", ""));
+                    } catch (IllegalArgumentException ignored) {
+                        // Fall back to UTF-8 for unknown charsets
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int result = super.read();
+            if (result != -1) {
+                onRead(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int result = super.read(b, off, len);
+            if (result > 0) {
+                onRead(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            onRead(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void onRead(long bytes) throws IOException {
+            count += bytes;
+            if (count > limit) {
+                throw new IOException("Response body exceeds " + limit + " bytes");
+            }
+        }
+    }
+
+    private static class EmptyInputStream extends InputStream {
+        @Override
+        public int read() {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.mozilla.httprequest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpClientTest {
+
+    private static final String BODY = "[\"first line\",\n\"second line\"]\n";
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer server;
+    private HttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/plain", exchange -> {
+            final byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.createContext("/gzip", exchange -> {
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            try (OutputStream output = exchange.getResponseBody()) {
+                compressed.writeTo(output);
+            }
+        });
+        server.createContext("/etag", exchange -> {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            final byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        client = new HttpClient("test-agent");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void readStringKeepsTheBodyUntouched() throws IOException {
+        try (HttpResponse response = client.get(url("/plain"))) {
+            assertTrue(response.isSuccessful());
+            assertEquals(BODY, response.readString());
+        }
+    }
+
+    @Test
+    public void legacyGetNoLongerRewritesLineBreaks() {
+        assertEquals(BODY, HttpRequest.get(url("/plain"), "test-agent"));
+        assertEquals("", HttpRequest.get(url("/missing"), "test-agent"));
+    }
+
+    @Test
+    public void gzipIsDecodedTransparently() throws IOException {
+        try (HttpResponse response = client.get(url("/gzip"))) {
+            final ByteBuffer buffer = response.readByteBuffer();
+            assertEquals(BODY, new String(buffer.array(), 0, buffer.remaining(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void bodyCanBeStreamedThroughAReader() throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        try (HttpResponse response = client.get(url("/plain")); Reader reader = response.getBodyReader()) {
+            final char[] buffer = new char[4];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                builder.append(buffer, 0, read);
+            }
+        }
+        assertEquals(BODY, builder.toString());
+    }
+
+    @Test
+    public void conditionalGetReturnsNotModified() throws IOException {
+        final CacheValidators validators;
+        try (HttpResponse response = client.get(url("/etag"))) {
+            response.readString();
+            validators = response.getValidators();
+        }
+        assertEquals(ETAG, validators.getEtag());
+        assertEquals(validators.getEtag(), CacheValidators.deserialize(validators.serialize()).getEtag());
+
+        try (HttpResponse response = client.get(url("/etag"), validators)) {
+            assertTrue(response.isNotModified());
+            assertFalse(response.isSuccessful());
+        }
+    }
+
+    @Test
+    public void bodyLargerThanTheCapFails() throws IOException {
+        final HttpClient smallClient = new HttpClient("test-agent", HttpClient.DEFAULT_TIMEOUT, 0, 8);
+        try (HttpResponse response = smallClient.get(url("/plain"))) {
+            response.readString();
+            fail("Expected the size cap to be enforced");
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void metricsAreReportedOnClose() throws IOException {
+        final AtomicReference<HttpMetrics> reported = new AtomicReference<>();
+        client.setMetricsListener(reported::set);
+
+        try (HttpResponse response = client.get(url("/gzip"))) {
+            response.readString();
+        }
+
+        final HttpMetrics metrics = reported.get();
+        assertNotNull(metrics);
+        assertEquals(200, metrics.getStatusCode());
+        assertEquals(BODY.length(), metrics.getBytesDecoded());
+        assertTrue(metrics.getBytesReceived() > 0);
+        assertTrue(metrics.getTotalTime() >= metrics.getTimeToHeaders());
+    }
+
+    private URL url(String path) {
+        try {
+            return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
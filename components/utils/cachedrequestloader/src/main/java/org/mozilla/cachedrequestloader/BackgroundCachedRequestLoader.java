@@ -1,30 +1,18 @@
 package org.mozilla.cachedrequestloader;
 
 import android.content.Context;
-import android.net.TrafficStats;
 import androidx.annotation.VisibleForTesting;
-import androidx.core.util.Pair;
-import android.text.TextUtils;
-import android.util.Log;
 
-import org.mozilla.fileutils.FileUtils;
-import org.mozilla.httprequest.HttpRequest;
 import org.mozilla.threadutils.ThreadUtils;
 
-import java.io.File;
-import java.lang.ref.WeakReference;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
+/**
+ * Loads a subscription on the {@link RequestLoaderEngine.Priority#BACKGROUND} lane.
+ */
 public class BackgroundCachedRequestLoader implements RequestLoaderDelegation.RequestLoader {
 
-    private static final ExecutorService backgroundExecutorService = Executors.newFixedThreadPool(2);
+    private static final RequestLoaderEngine.Priority PRIORITY = RequestLoaderEngine.Priority.BACKGROUND;
 
     private RequestLoaderDelegation requestLoaderDelegation;
-    private static final String TAG = "CachedRequestLoader";
     // Mainly for testing purposes.
     private boolean delayCacheLoad = false;
     private boolean delayNetworkLoad = false;
@@ -49,70 +37,29 @@ public class BackgroundCachedRequestLoader implements RequestLoaderDelegation.Re
     }
 
     public void loadFromCache(Context context, String subscriptionKey, ResponseData stringLiveData) {
-        backgroundExecutorService.submit(() -> {
-            try {
-                sleepIfTesting(context, delayCacheLoad);
-                String string = FileUtils.readStringFromFile(new FileUtils.GetCache(new WeakReference<>(context)).get(), subscriptionKey);
-                stringLiveData.postValue(new Pair<>(ResponseData.SOURCE_CACHE, string));
-            } catch (ExecutionException | InterruptedException e) {
-                e.printStackTrace();
-                Log.e(TAG, "Failed to open Cache directory when reading cached banner config");
-            }
-        });
+        postDelayIfTesting(() -> RequestLoaderEngine.getInstance().loadFromCache(context, subscriptionKey, stringLiveData, PRIORITY), context, delayCacheLoad);
     }
 
     public void loadFromRemote(Context context, ResponseData stringLiveData, String subscriptionUrl, String userAgent, int socketTag) {
-        backgroundExecutorService.submit(() -> {
-            TrafficStats.setThreadStatsTag(socketTag);
-            try {
-                sleepIfTesting(context, delayNetworkLoad);
-                String string = HttpRequest.get(new URL(subscriptionUrl), userAgent);
-                string = string.replace("\n", "");
-                stringLiveData.postValue(new Pair<>(ResponseData.SOURCE_NETWORK, string));
-                if (TextUtils.isEmpty(string)) {
-                    requestLoaderDelegation.deleteCache();
-                } else {
-                    requestLoaderDelegation.writeToCache(string);
-                }
-            } catch (MalformedURLException e) {
-                // treat network error as no data
-                stringLiveData.postValue(new Pair<>(ResponseData.SOURCE_NETWORK, ""));
-                e.printStackTrace();
-            }
-        });
+        postDelayIfTesting(() -> RequestLoaderEngine.getInstance().loadFromRemote(context, requestLoaderDelegation.getSubscriptionKey(), stringLiveData, subscriptionUrl, userAgent, socketTag, PRIORITY), context, delayNetworkLoad);
     }
 
     public void writeToCache(String string, Context context, String subscriptionKey) {
-        try {
-            final Runnable runnable = new FileUtils.WriteStringToFileRunnable(new File(new FileUtils.GetCache(new WeakReference<>(context)).get(), subscriptionKey), string);
-            ThreadUtils.postToBackgroundThread(runnable);
-        } catch (ExecutionException | InterruptedException e) {
-            e.printStackTrace();
-            Log.e(TAG, "Failed to open cache directory when writing to cache.");
-        }
+        RequestLoaderEngine.getInstance().writeToCache(context, subscriptionKey, string, PRIORITY);
     }
 
     public void deleteCache(Context context, String subscriptionKey) {
-        try {
-            final Runnable runnable = new FileUtils.DeleteFileRunnable(new File(new FileUtils.GetCache(new WeakReference<>(context)).get(), subscriptionKey));
-            ThreadUtils.postToBackgroundThread(runnable);
-        } catch (ExecutionException | InterruptedException e) {
-            e.printStackTrace();
-            Log.e(TAG, "Failed to open cache directory when deleting cache.");
-        }
+        RequestLoaderEngine.getInstance().deleteCache(context, subscriptionKey, PRIORITY);
     }
 
-    private void sleepIfTesting(Context context, boolean shouldSleep) {
-        if (!context.getResources().getBoolean(R.bool.isAndroidTest) && shouldSleep) {
+    private void postDelayIfTesting(Runnable runnable, Context context, boolean shouldDelay) {
+        if (!context.getResources().getBoolean(R.bool.isAndroidTest) && shouldDelay) {
             throw new IllegalStateException("Delays are only available in testing.");
         }
-        if (!shouldSleep) {
-            return;
-        }
-        try {
-            Thread.sleep(RequestLoaderDelegation.TEST_DELAY);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        if (shouldDelay) {
+            ThreadUtils.postToMainThreadDelayed(runnable, RequestLoaderDelegation.TEST_DELAY);
+        } else {
+            runnable.run();
         }
     }
 }
@@ -0,0 +1,81 @@
+package org.mozilla.cachedrequestloader;
+
+/**
+ * Timing of a single cache or network load done by {@link RequestLoaderEngine}.
+ */
+public class LoaderMetrics {
+
+    public static final int TYPE_CACHE = 0;
+    public static final int TYPE_NETWORK = 1;
+
+    private final String subscriptionKey;
+    private final RequestLoaderEngine.Priority priority;
+    private final int type;
+    private final long queueWaitMillis;
+    private final long loadMillis;
+    private final int subscribers;
+    private final boolean notModified;
+
+    LoaderMetrics(String subscriptionKey, RequestLoaderEngine.Priority priority, int type,
+                  long queueWaitMillis, long loadMillis, int subscribers, boolean notModified) {
+        this.subscriptionKey = subscriptionKey;
+        this.priority = priority;
+        this.type = type;
+        this.queueWaitMillis = queueWaitMillis;
+        this.loadMillis = loadMillis;
+        this.subscribers = subscribers;
+        this.notModified = notModified;
+    }
+
+    public String getSubscriptionKey() {
+        return subscriptionKey;
+    }
+
+    public RequestLoaderEngine.Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * @return {@link #TYPE_CACHE} or {@link #TYPE_NETWORK}
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return time between the load being requested and a lane thread picking it up
+     */
+    public long getQueueWaitMillis() {
+        return queueWaitMillis;
+    }
+
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+
+    /**
+     * @return how many {@link ResponseData} received this result, more than one if requests were coalesced
+     */
+    public int getSubscribers() {
+        return subscribers;
+    }
+
+    /**
+     * @return true if the server confirmed the on-disk copy with a 304
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    @Override
+    public String toString() {
+        return "LoaderMetrics{" + subscriptionKey
+                + ", " + priority
+                + ", " + (type == TYPE_CACHE ? "cache" : "network")
+                + ", wait=" + queueWaitMillis + "ms"
+                + ", load=" + loadMillis + "ms"
+                + ", subscribers=" + subscribers
+                + (notModified ? ", not modified" : "")
+                + "}";
+    }
+}
@@ -40,6 +40,10 @@ public class RequestLoaderDelegation {
         return stringLiveData;
     }
 
+    String getSubscriptionKey() {
+        return subscriptionKey;
+    }
+
     void writeToCache(String string) {
         requestLoader.writeToCache(string, context, subscriptionKey);
     }
@@ -0,0 +1,430 @@
+package org.mozilla.cachedrequestloader;
+
+import android.content.Context;
+import android.net.TrafficStats;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.core.util.Pair;
+
+import org.mozilla.fileutils.FileUtils;
+import org.mozilla.httprequest.CacheValidators;
+import org.mozilla.httprequest.HttpClient;
+import org.mozilla.httprequest.HttpResponse;
+import org.mozilla.threadutils.ThreadUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The single engine behind {@link CachedRequestLoader} and {@link BackgroundCachedRequestLoader}.
+ *
+ * Work runs on one of two bounded lanes, {@link Priority#STARTUP} for data the first screens wait on
+ * and {@link Priority#BACKGROUND} for everything else, so a slow background download never delays
+ * startup-critical config. Work for the same subscription key runs in submission order, while different
+ * keys load in parallel. A load requested while an identical one is pending is coalesced into it.
+ * Loads beyond the capacity of a lane are answered with no data, cache writes and deletes are never
+ * dropped, a stale cache could otherwise survive them.
+ * Network loads revalidate the on-disk copy with ETag / Last-Modified, a 304 serves the cached body
+ * without downloading it again.
+ */
+public final class RequestLoaderEngine {
+
+    private static final String TAG = "RequestLoaderEngine";
+    private static final String VALIDATORS_SUFFIX = ".validators";
+
+    public enum Priority {
+        STARTUP(2, 16, Thread.NORM_PRIORITY),
+        BACKGROUND(2, 32, Thread.NORM_PRIORITY - 1);
+
+        private final int threads;
+        private final int capacity;
+        private final int threadPriority;
+
+        Priority(int threads, int capacity, int threadPriority) {
+            this.threads = threads;
+            this.capacity = capacity;
+            this.threadPriority = threadPriority;
+        }
+
+        @VisibleForTesting
+        int getCapacity() {
+            return capacity;
+        }
+    }
+
+    public interface MetricsListener {
+        @WorkerThread
+        void onLoadFinished(LoaderMetrics metrics);
+    }
+
+    private static final RequestLoaderEngine instance = new RequestLoaderEngine();
+
+    private final Lane startupLane = new Lane(Priority.STARTUP);
+    private final Lane backgroundLane = new Lane(Priority.BACKGROUND);
+    private volatile MetricsListener metricsListener;
+
+    public static RequestLoaderEngine getInstance() {
+        return instance;
+    }
+
+    @VisibleForTesting
+    RequestLoaderEngine() {
+    }
+
+    public void setMetricsListener(@Nullable MetricsListener listener) {
+        metricsListener = listener;
+    }
+
+    void loadFromCache(Context context, String subscriptionKey, ResponseData target, Priority priority) {
+        final Context appContext = context.getApplicationContext();
+        laneOf(priority).submit(subscriptionKey, LoaderMetrics.TYPE_CACHE, target, new Load() {
+            @Override
+            String run(LoadResult result) {
+                return readCache(appContext, subscriptionKey);
+            }
+
+            @Override
+            Pair<Integer, String> toValue(String body) {
+                return new Pair<>(ResponseData.SOURCE_CACHE, body);
+            }
+        });
+    }
+
+    void loadFromRemote(Context context, String subscriptionKey, ResponseData target, String subscriptionUrl,
+                        String userAgent, int socketTag, Priority priority) {
+        final Context appContext = context.getApplicationContext();
+        laneOf(priority).submit(subscriptionKey, LoaderMetrics.TYPE_NETWORK, target, new Load() {
+            @Override
+            String run(LoadResult result) {
+                TrafficStats.setThreadStatsTag(socketTag);
+                try {
+                    return fetch(appContext, subscriptionKey, subscriptionUrl, userAgent, result);
+                } finally {
+                    TrafficStats.clearThreadStatsTag();
+                }
+            }
+
+            @Override
+            Pair<Integer, String> toValue(String body) {
+                // Treat any network error as no data.
+                return new Pair<>(ResponseData.SOURCE_NETWORK, body == null ? "" : body);
+            }
+        });
+    }
+
+    void writeToCache(Context context, String subscriptionKey, String string, Priority priority) {
+        final Context appContext = context.getApplicationContext();
+        laneOf(priority).submit(subscriptionKey, () -> writeCache(appContext, subscriptionKey, string, null));
+    }
+
+    void deleteCache(Context context, String subscriptionKey, Priority priority) {
+        final Context appContext = context.getApplicationContext();
+        laneOf(priority).submit(subscriptionKey, () -> deleteCache(appContext, subscriptionKey));
+    }
+
+    @VisibleForTesting
+    Lane laneOf(Priority priority) {
+        return priority == Priority.STARTUP ? startupLane : backgroundLane;
+    }
+
+    @WorkerThread
+    @Nullable
+    private String fetch(Context context, String subscriptionKey, String subscriptionUrl, String userAgent, LoadResult result) {
+        final File cacheDir = context.getCacheDir();
+        final File cacheFile = new File(cacheDir, subscriptionKey);
+        final CacheValidators validators = cacheFile.exists()
+                ? CacheValidators.deserialize(readFile(new File(cacheDir, subscriptionKey + VALIDATORS_SUFFIX)))
+                : null;
+
+        try (HttpResponse response = new HttpClient(userAgent).get(new URL(subscriptionUrl), validators)) {
+            if (response.isNotModified()) {
+                result.notModified = true;
+                final String cached = readFile(cacheFile);
+                if (cached != null) {
+                    return cached;
+                }
+            } else if (response.isSuccessful()) {
+                final String body = response.readString();
+                if (!body.isEmpty()) {
+                    writeCache(context, subscriptionKey, body, response.getValidators());
+                    return body;
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to load " + subscriptionKey + " from network", e);
+        }
+
+        // Treat network errors and empty responses as no data.
+        deleteCache(context, subscriptionKey);
+        return null;
+    }
+
+    @WorkerThread
+    private static String readCache(Context context, String subscriptionKey) {
+        return readFile(new File(context.getCacheDir(), subscriptionKey));
+    }
+
+    @WorkerThread
+    private static void writeCache(Context context, String subscriptionKey, String string, @Nullable CacheValidators validators) {
+        final File cacheDir = context.getCacheDir();
+        FileUtils.writeStringToFile(cacheDir, subscriptionKey, string);
+        final File validatorsFile = new File(cacheDir, subscriptionKey + VALIDATORS_SUFFIX);
+        if (validators == null || validators.isEmpty()) {
+            deleteFile(validatorsFile);
+        } else {
+            FileUtils.writeStringToFile(cacheDir, validatorsFile.getName(), validators.serialize());
+        }
+    }
+
+    @WorkerThread
+    private static void deleteCache(Context context, String subscriptionKey) {
+        final File cacheDir = context.getCacheDir();
+        deleteFile(new File(cacheDir, subscriptionKey));
+        deleteFile(new File(cacheDir, subscriptionKey + VALIDATORS_SUFFIX));
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.e(TAG, "Failed to delete " + file.getName());
+        }
+    }
+
+    /**
+     * Read the whole file as it was written, or null if there is no such file.
+     */
+    @Nullable
+    private static String readFile(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (InputStream input = new FileInputStream(file)) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream((int) file.length());
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private void reportMetrics(LoaderMetrics metrics) {
+        final MetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onLoadFinished(metrics);
+        }
+    }
+
+    static class LoadResult {
+        boolean notModified;
+    }
+
+    abstract static class Load {
+        @WorkerThread
+        abstract String run(LoadResult result);
+
+        abstract Pair<Integer, String> toValue(String body);
+    }
+
+    /**
+     * A bounded pool which runs the tasks of one key in order, and coalesces identical loads.
+     */
+    final class Lane {
+        private final Priority priority;
+        private final ThreadPoolExecutor executor;
+        // Guarded by this
+        private final Map<String, ArrayDeque<Task>> queues = new HashMap<>();
+        private int pendingLoads;
+
+        private Lane(Priority priority) {
+            this.priority = priority;
+            // Only one task of a key is in the executor at a time, and loads are bounded by capacity
+            this.executor = new ThreadPoolExecutor(priority.threads, priority.threads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new LaneThreadFactory(priority));
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        void submit(String key, Runnable runnable) {
+            final Task task = new Task(key, -1, null, null, runnable);
+            final boolean runNow;
+            synchronized (this) {
+                runNow = addLocked(task);
+            }
+            if (runNow) {
+                execute(task);
+            }
+        }
+
+        void submit(String key, int type, ResponseData target, Load load) {
+            final Task task = new Task(key, type, target, load, null);
+            boolean full = false;
+            boolean runNow = false;
+            synchronized (this) {
+                final ArrayDeque<Task> queue = queues.get(key);
+                if (queue != null) {
+                    for (Task queued : queue) {
+                        if (queued.type == type && !queued.started) {
+                            queued.targets.add(target);
+                            return;
+                        }
+                    }
+                }
+                if (pendingLoads >= priority.capacity) {
+                    full = true;
+                } else {
+                    pendingLoads++;
+                    runNow = addLocked(task);
+                }
+            }
+            if (full) {
+                Log.w(TAG, priority + " lane is full, dropping load of " + key);
+                task.reject();
+            } else if (runNow) {
+                execute(task);
+            }
+        }
+
+        /**
+         * @return true if the task is the first of its key, which is then to be executed
+         */
+        private boolean addLocked(Task task) {
+            ArrayDeque<Task> queue = queues.get(task.key);
+            final boolean first = queue == null;
+            if (first) {
+                queue = new ArrayDeque<>();
+                queues.put(task.key, queue);
+            }
+            queue.add(task);
+            return first;
+        }
+
+        private void execute(Task task) {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    onTaskFinished(task);
+                }
+            });
+        }
+
+        private void onTaskFinished(Task task) {
+            final Task next;
+            synchronized (this) {
+                if (task.load != null) {
+                    pendingLoads--;
+                }
+                final ArrayDeque<Task> queue = queues.get(task.key);
+                queue.remove(task);
+                next = queue.peek();
+                if (next == null) {
+                    queues.remove(task.key);
+                }
+            }
+            if (next != null) {
+                execute(next);
+            }
+        }
+
+        private final class Task {
+            private final String key;
+            private final int type;
+            private final List<ResponseData> targets = new ArrayList<>(1);
+            private final Load load;
+            private final Runnable runnable;
+            private final long enqueuedAt = SystemClock.elapsedRealtime();
+            // Guarded by Lane.this
+            private boolean started;
+
+            private Task(String key, int type, @Nullable ResponseData target, @Nullable Load load, @Nullable Runnable runnable) {
+                this.key = key;
+                this.type = type;
+                this.load = load;
+                this.runnable = runnable;
+                if (target != null) {
+                    targets.add(target);
+                }
+            }
+
+            void run() {
+                final List<ResponseData> subscribers;
+                synchronized (Lane.this) {
+                    started = true;
+                    subscribers = new ArrayList<>(targets);
+                }
+                if (runnable != null) {
+                    runnable.run();
+                    return;
+                }
+
+                final long startedAt = SystemClock.elapsedRealtime();
+                final LoadResult result = new LoadResult();
+                final String body = load.run(result);
+                deliver(subscribers, load.toValue(body));
+                reportMetrics(new LoaderMetrics(key, priority, type, startedAt - enqueuedAt,
+                        SystemClock.elapsedRealtime() - startedAt, subscribers.size(), result.notModified));
+            }
+
+            void reject() {
+                if (load == null) {
+                    return;
+                }
+                final List<ResponseData> subscribers;
+                synchronized (Lane.this) {
+                    started = true;
+                    subscribers = new ArrayList<>(targets);
+                }
+                deliver(subscribers, load.toValue(null));
+            }
+
+            private void deliver(@NonNull List<ResponseData> subscribers, Pair<Integer, String> value) {
+                // Not postValue(), which would drop the cached value if the network one follows quickly.
+                ThreadUtils.postToMainThread(() -> {
+                    for (ResponseData target : subscribers) {
+                        target.setValue(value);
+                    }
+                });
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+        private final Priority priority;
+        private final AtomicInteger number = new AtomicInteger();
+
+        LaneThreadFactory(Priority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            final Thread thread = new Thread(r, "request-loader-" + priority.name().toLowerCase(Locale.US) + "-" + number.getAndIncrement());
+            thread.setPriority(priority.threadPriority);
+            return thread;
+        }
+    }
+}
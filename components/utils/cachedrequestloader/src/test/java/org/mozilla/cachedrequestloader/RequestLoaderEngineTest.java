@@ -0,0 +1,167 @@
+package org.mozilla.cachedrequestloader;
+
+import androidx.core.util.Pair;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class RequestLoaderEngineTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final RequestLoaderEngine engine = new RequestLoaderEngine();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    public void startupLaneDoesNotWaitForBackgroundLane() throws InterruptedException {
+        final RequestLoaderEngine.Lane background = engine.laneOf(RequestLoaderEngine.Priority.BACKGROUND);
+        block(background, "slow1");
+        block(background, "slow2");
+        final CountDownLatch ran = new CountDownLatch(1);
+
+        engine.laneOf(RequestLoaderEngine.Priority.STARTUP).submit("config", ran::countDown);
+
+        assertTrue(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void runsTasksOfAKeyInOrder() throws InterruptedException {
+        final RequestLoaderEngine.Lane lane = engine.laneOf(RequestLoaderEngine.Priority.BACKGROUND);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+
+        for (int i = 0; i < 10; i++) {
+            final int task = i;
+            lane.submit("key", () -> order.add(task));
+        }
+        lane.submit("key", done::countDown);
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void coalescesIdenticalPendingLoads() throws InterruptedException {
+        final RequestLoaderEngine.Lane lane = engine.laneOf(RequestLoaderEngine.Priority.STARTUP);
+        // Loads of the key wait behind this
+        block(lane, "key");
+        final AtomicInteger loads = new AtomicInteger();
+        final List<ResponseData> targets = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch submitted = new CountDownLatch(8);
+
+        // Submitted concurrently, only one of them may be enqueued
+        for (int i = 0; i < 8; i++) {
+            new Thread(() -> {
+                final ResponseData target = new ResponseData();
+                targets.add(target);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                lane.submit("key", LoaderMetrics.TYPE_CACHE, target, new TestLoad(loads, "body"));
+                submitted.countDown();
+            }).start();
+        }
+        start.countDown();
+        assertTrue(submitted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        release.countDown();
+
+        for (ResponseData target : targets) {
+            assertEquals("body", awaitValue(target).second);
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void rejectsLoadsBeyondCapacityButNeverWrites() throws InterruptedException {
+        final RequestLoaderEngine.Lane lane = engine.laneOf(RequestLoaderEngine.Priority.STARTUP);
+        block(lane, "blocker1");
+        block(lane, "blocker2");
+        final AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < RequestLoaderEngine.Priority.STARTUP.getCapacity(); i++) {
+            lane.submit("key" + i, LoaderMetrics.TYPE_CACHE, new ResponseData(), new TestLoad(loads, "body"));
+        }
+
+        final ResponseData rejected = new ResponseData();
+        lane.submit("rejected", LoaderMetrics.TYPE_CACHE, rejected, new TestLoad(loads, "body"));
+        assertNull(awaitValue(rejected).second);
+
+        final CountDownLatch written = new CountDownLatch(1);
+        lane.submit("written", written::countDown);
+        release.countDown();
+        assertTrue(written.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private void block(RequestLoaderEngine.Lane lane, String key) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        lane.submit(key, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private static Pair<Integer, String> awaitValue(ResponseData target) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (System.currentTimeMillis() < deadline) {
+            ShadowLooper.idleMainLooper();
+            final Pair<Integer, String> value = target.getValue();
+            if (value != null) {
+                return value;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No value delivered");
+    }
+
+    private static class TestLoad extends RequestLoaderEngine.Load {
+        private final AtomicInteger loads;
+        private final String body;
+
+        TestLoad(AtomicInteger loads, String body) {
+            this.loads = loads;
+            this.body = body;
+        }
+
+        @Override
+        String run(RequestLoaderEngine.LoadResult result) {
+            loads.incrementAndGet();
+            return body;
+        }
+
+        @Override
+        Pair<Integer, String> toValue(String body) {
+            return new Pair<>(ResponseData.SOURCE_CACHE, body);
+        }
+    }
+}
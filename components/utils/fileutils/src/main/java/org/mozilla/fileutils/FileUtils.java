@@ -464,7 +464,7 @@ public class FileUtils {
         private Future<File> getFileFuture;
 
         private GetFile(WeakReference<Context> contextWeakReference) {
-            getFileFuture = ThreadUtils.postToBackgroundThread(() -> {
+            getFileFuture = ThreadUtils.post(ThreadUtils.Lane.DISK_IO, () -> {
                 Context context = contextWeakReference.get();
                 if (context == null) {
                     return null;
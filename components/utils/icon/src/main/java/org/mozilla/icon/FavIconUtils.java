@@ -14,22 +14,17 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
 import android.net.Uri;
-import android.os.AsyncTask;
 import androidx.annotation.NonNull;
 import android.text.TextUtils;
 
 import org.mozilla.urlutils.UrlUtils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Created by hart on 31/08/2017.
@@ -190,128 +185,6 @@ public class FavIconUtils {
         void accept(T arg);
     }
 
-    public static class SaveBitmapTask extends AsyncTask<Void, Void, String> {
-
-        private File directory;
-        private String url;
-        private Bitmap bitmap;
-        private Consumer<String> callback;
-        private final Bitmap.CompressFormat compressFormat;
-        private final int quality;
-
-
-        public SaveBitmapTask(File directory, String url, Bitmap bitmap, Consumer<String> callback,
-                              Bitmap.CompressFormat compressFormat, int quality) {
-            this.directory = directory;
-            this.url = url;
-            this.bitmap = bitmap;
-            this.callback = callback;
-            this.compressFormat = compressFormat;
-            this.quality = quality;
-        }
-
-        @Override
-        protected void onPostExecute(String result) {
-            callback.accept(result);
-        }
-
-        @Override
-        protected String doInBackground(Void... voids) {
-            return saveBitmapToDirectory(directory, url, bitmap, compressFormat, quality);
-        }
-    }
-
-    public static class SaveBitmapsTask extends AsyncTask<Void, Void, List<String>> {
-
-        private File directory;
-        private List<String> urls;
-        private List<byte[]> bytesList;
-        private FavIconUtils.Consumer<List<String>> callback;
-        private final Bitmap.CompressFormat compressFormat;
-        private final int quality;
-
-        public SaveBitmapsTask(File directory, List<String> urls, List<byte[]> bytesList,
-                               FavIconUtils.Consumer<List<String>> callback,
-                               Bitmap.CompressFormat compressFormat, int quality) {
-            this.directory = directory;
-            this.urls = urls;
-            this.bytesList = bytesList;
-            this.callback = callback;
-            this.compressFormat = compressFormat;
-            this.quality = quality;
-        }
-
-        @Override
-        protected void onPostExecute(List<String> result) {
-            callback.accept(result);
-        }
-
-        @Override
-        protected List<String> doInBackground(Void... voids) {
-            List<String> ret = new ArrayList<>();
-            for (int i = 0 ; i < urls.size() ; i++) {
-                byte[] bytes = bytesList.get(i);
-                Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-                ret.add(FavIconUtils.saveBitmapToDirectory(directory, urls.get(i), bitmap,
-                        compressFormat, quality));
-            }
-            return ret;
-        }
-    }
-
-    public static String saveBitmapToDirectory(@NonNull final File dir,
-                                               @NonNull final String url,
-                                               @NonNull final Bitmap bitmap,
-                                               @NonNull final Bitmap.CompressFormat compressFormat,
-                                               final int quality) {
-        // Use encoded url as default if No MD5 algorithm
-        String fileName = Uri.encode(url);
-        try {
-            fileName = generateMD5(url);
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        }
-
-        return FavIconUtils.saveBitmapToFile(dir, fileName, bitmap, compressFormat, quality);
-    }
-
-    private static String saveBitmapToFile(@NonNull final File dir,
-                                           @NonNull final String fileName,
-                                           @NonNull final Bitmap bitmap,
-                                           @NonNull final Bitmap.CompressFormat compressFormat,
-                                           final int quality) {
-        ensureDir(dir);
-
-        try {
-            //create a file to write bitmap data
-            File file = new File(dir, fileName);
-            if (file.exists() && !file.delete()) {
-                return Uri.fromFile(file).toString();
-            }
-            if (!file.createNewFile()) {
-               if (file.exists()) {
-                   return Uri.fromFile(file).toString();
-               } else {
-                   return null;
-               }
-            }
-            //Convert bitmap to byte array
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            bitmap.compress(compressFormat, quality, bos);
-            byte[] bitmapData = bos.toByteArray();
-
-            //write the bytes in file
-            try (FileOutputStream fos = new FileOutputStream(file) ) {
-                fos.write(bitmapData);
-                fos.flush();
-            }
-            return Uri.fromFile(file).toString();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
-
     public static Bitmap getIconFromAssets(Context context, String path) {
         AssetManager assetManager = context.getAssets();
 
@@ -0,0 +1,21 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+@file:JvmName("LaneDispatchers")
+
+package org.mozilla.threadutils
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
+
+private val dispatchers: List<CoroutineDispatcher> by lazy {
+    ThreadUtils.Lane.values().map { ThreadUtils.getExecutor(it).asCoroutineDispatcher() }
+}
+
+/**
+ * A coroutine dispatcher backed by the lane's threads, so coroutines share the lane's parallelism
+ * limit and instrumentation with the Java callers, e.g. `withContext(ThreadUtils.Lane.DISK_IO.dispatcher)`.
+ */
+val ThreadUtils.Lane.dispatcher: CoroutineDispatcher
+    get() = dispatchers[ordinal]
@@ -0,0 +1,97 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.threadutils;
+
+import android.os.SystemClock;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size pool which measures how long tasks wait in its queue and how long they run, and
+ * reports tasks exceeding the installed {@link SlowTaskPolicy}.
+ */
+class LaneExecutor extends ThreadPoolExecutor {
+
+    private final ThreadUtils.Lane lane;
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+    private final AtomicLong maxRunMillis = new AtomicLong();
+    private final AtomicLong slowTaskCount = new AtomicLong();
+
+    LaneExecutor(ThreadUtils.Lane lane, int threads, ThreadFactory threadFactory) {
+        super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        this.lane = lane;
+        // Idle lanes shouldn't keep threads around.
+        allowCoreThreadTimeOut(lane != ThreadUtils.Lane.BACKGROUND);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        final SlowTaskPolicy policy = ThreadUtils.getSlowTaskPolicy();
+        final Throwable submitter = policy != null && policy.shouldCaptureSubmitter()
+                ? new Throwable("Submitted here")
+                : null;
+        super.execute(new TimedRunnable(command, SystemClock.elapsedRealtime(), submitter));
+    }
+
+    LaneStats getStats() {
+        return new LaneStats(lane, getQueue().size(), getActiveCount(), completedCount.get(),
+                totalWaitMillis.get(), maxWaitMillis.get(), totalRunMillis.get(), maxRunMillis.get(),
+                slowTaskCount.get());
+    }
+
+    private void onTaskFinished(long waitMillis, long runMillis, Throwable submitter) {
+        completedCount.incrementAndGet();
+        totalWaitMillis.addAndGet(waitMillis);
+        totalRunMillis.addAndGet(runMillis);
+        updateMax(maxWaitMillis, waitMillis);
+        updateMax(maxRunMillis, runMillis);
+
+        final SlowTaskPolicy policy = ThreadUtils.getSlowTaskPolicy();
+        if (policy != null && runMillis > policy.getThresholdMillis()) {
+            slowTaskCount.incrementAndGet();
+            policy.onViolation(new SlowTaskPolicy.Violation(lane, runMillis, submitter));
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    private class TimedRunnable implements Runnable {
+        private final Runnable runnable;
+        private final long enqueuedAt;
+        private final Throwable submitter;
+
+        TimedRunnable(Runnable runnable, long enqueuedAt, Throwable submitter) {
+            this.runnable = runnable;
+            this.enqueuedAt = enqueuedAt;
+            this.submitter = submitter;
+        }
+
+        @Override
+        public void run() {
+            final long startedAt = SystemClock.elapsedRealtime();
+            try {
+                runnable.run();
+            } finally {
+                onTaskFinished(startedAt - enqueuedAt, SystemClock.elapsedRealtime() - startedAt, submitter);
+            }
+        }
+    }
+}
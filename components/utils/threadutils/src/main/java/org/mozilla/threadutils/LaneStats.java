@@ -0,0 +1,83 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.threadutils;
+
+/**
+ * A snapshot of the instrumentation of one {@link ThreadUtils.Lane}. Durations are in milliseconds.
+ */
+public class LaneStats {
+
+    private final ThreadUtils.Lane lane;
+    private final int queueDepth;
+    private final int activeCount;
+    private final long completedCount;
+    private final long totalWaitMillis;
+    private final long maxWaitMillis;
+    private final long totalRunMillis;
+    private final long maxRunMillis;
+    private final long slowTaskCount;
+
+    LaneStats(ThreadUtils.Lane lane, int queueDepth, int activeCount, long completedCount,
+              long totalWaitMillis, long maxWaitMillis, long totalRunMillis, long maxRunMillis,
+              long slowTaskCount) {
+        this.lane = lane;
+        this.queueDepth = queueDepth;
+        this.activeCount = activeCount;
+        this.completedCount = completedCount;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.totalRunMillis = totalRunMillis;
+        this.maxRunMillis = maxRunMillis;
+        this.slowTaskCount = slowTaskCount;
+    }
+
+    public ThreadUtils.Lane getLane() {
+        return lane;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getAverageWaitMillis() {
+        return completedCount == 0 ? 0 : totalWaitMillis / completedCount;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public long getAverageRunMillis() {
+        return completedCount == 0 ? 0 : totalRunMillis / completedCount;
+    }
+
+    public long getMaxRunMillis() {
+        return maxRunMillis;
+    }
+
+    public long getSlowTaskCount() {
+        return slowTaskCount;
+    }
+
+    @Override
+    public String toString() {
+        return lane
+                + ": queued=" + queueDepth
+                + ", active=" + activeCount
+                + ", completed=" + completedCount
+                + ", wait avg/max=" + getAverageWaitMillis() + "/" + maxWaitMillis + "ms"
+                + ", run avg/max=" + getAverageRunMillis() + "/" + maxRunMillis + "ms"
+                + ", slow=" + slowTaskCount;
+    }
+}
@@ -0,0 +1,114 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 20; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.threadutils;
+
+import android.util.Log;
+
+/**
+ * A StrictMode-like policy for tasks which occupy a {@link ThreadUtils.Lane} thread for too long.
+ * Install it with {@link ThreadUtils#setSlowTaskPolicy(SlowTaskPolicy)}, usually in debug builds only.
+ */
+public class SlowTaskPolicy {
+
+    public interface Listener {
+        void onSlowTask(Violation violation);
+    }
+
+    public static class Violation extends Throwable {
+        private final ThreadUtils.Lane lane;
+        private final long runMillis;
+
+        Violation(ThreadUtils.Lane lane, long runMillis, Throwable submittedAt) {
+            super("Task on " + lane + " lane ran for " + runMillis + "ms", submittedAt);
+            this.lane = lane;
+            this.runMillis = runMillis;
+        }
+
+        public ThreadUtils.Lane getLane() {
+            return lane;
+        }
+
+        public long getRunMillis() {
+            return runMillis;
+        }
+    }
+
+    private static final String TAG = "SlowTaskPolicy";
+
+    private final long thresholdMillis;
+    private final boolean penaltyLog;
+    private final boolean penaltyDeath;
+    private final boolean captureSubmitter;
+    private final Listener listener;
+
+    private SlowTaskPolicy(Builder builder) {
+        this.thresholdMillis = builder.thresholdMillis;
+        this.penaltyLog = builder.penaltyLog;
+        this.penaltyDeath = builder.penaltyDeath;
+        this.captureSubmitter = builder.captureSubmitter;
+        this.listener = builder.listener;
+    }
+
+    long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    boolean shouldCaptureSubmitter() {
+        return captureSubmitter;
+    }
+
+    void onViolation(Violation violation) {
+        if (penaltyLog) {
+            Log.w(TAG, violation.getMessage(), violation.getCause());
+        }
+        if (listener != null) {
+            listener.onSlowTask(violation);
+        }
+        if (penaltyDeath) {
+            throw new IllegalStateException(violation.getMessage(), violation);
+        }
+    }
+
+    public static class Builder {
+        private final long thresholdMillis;
+        private boolean penaltyLog;
+        private boolean penaltyDeath;
+        private boolean captureSubmitter;
+        private Listener listener;
+
+        public Builder(long thresholdMillis) {
+            this.thresholdMillis = thresholdMillis;
+        }
+
+        public Builder penaltyLog() {
+            penaltyLog = true;
+            return this;
+        }
+
+        public Builder penaltyDeath() {
+            penaltyDeath = true;
+            return this;
+        }
+
+        public Builder penaltyListener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Record the stack trace of every submission, so a violation points at the code which posted
+         * the slow task. This costs a stack capture per task.
+         */
+        public Builder captureSubmitter() {
+            captureSubmitter = true;
+            return this;
+        }
+
+        public SlowTaskPolicy build() {
+            return new SlowTaskPolicy(this);
+        }
+    }
+}
@@ -8,24 +8,117 @@ package org.mozilla.threadutils;
 import android.os.Handler;
 import android.os.Looper;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class ThreadUtils {
-    private static final ExecutorService backgroundExecutorService = Executors.newSingleThreadExecutor(getIoPrioritisedFactory());
+
+    /**
+     * Named background lanes. Each lane has its own bounded set of threads, so a slow task in one
+     * lane never holds back the others.
+     */
+    public enum Lane {
+        /**
+         * A single thread which runs tasks in submission order, for callers relying on that ordering.
+         * This is what {@link #postToBackgroundThread(Runnable)} uses.
+         */
+        BACKGROUND("pool-io-background", Thread.NORM_PRIORITY - 1, 1),
+        /**
+         * Short disk reads and writes, e.g. caches and small files.
+         */
+        DISK_IO("pool-disk-io", Thread.NORM_PRIORITY - 1, 3),
+        /**
+         * CPU bound work such as parsing and image processing.
+         */
+        CPU("pool-cpu", Thread.NORM_PRIORITY, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1))),
+        /**
+         * Long running, low priority clean up such as deleting directories. Tasks may run in parallel.
+         */
+        CLEANUP("pool-cleanup", Thread.MIN_PRIORITY, Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)));
+
+        private final String threadName;
+        private final int threadPriority;
+        private final int parallelism;
+
+        Lane(String threadName, int threadPriority, int parallelism) {
+            this.threadName = threadName;
+            this.threadPriority = threadPriority;
+            this.parallelism = parallelism;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+    }
+
+    private static final LaneExecutor[] laneExecutors = new LaneExecutor[Lane.values().length];
     private static final Handler handler = new Handler(Looper.getMainLooper());
     private static final Thread uiThread = Looper.getMainLooper().getThread();
+    private static volatile SlowTaskPolicy slowTaskPolicy;
 
+    /**
+     * Exceptions thrown by the runnable end up in the discarded Future, as they always did, instead
+     * of crashing the app. Those of tasks posted with {@link #post(Lane, Runnable)} are not caught.
+     */
     public static void postToBackgroundThread(final Runnable runnable) {
-        backgroundExecutorService.submit(runnable);
+        getExecutor(Lane.BACKGROUND).submit(runnable);
     }
 
     public static <V> Future<V> postToBackgroundThread(final Callable<V> callable) {
-        return backgroundExecutorService.submit(callable);
+        return post(Lane.BACKGROUND, callable);
+    }
+
+    public static void post(Lane lane, final Runnable runnable) {
+        getExecutor(lane).execute(runnable);
+    }
+
+    public static <V> Future<V> post(Lane lane, final Callable<V> callable) {
+        return getExecutor(lane).submit(callable);
+    }
+
+    /**
+     * The executor behind a lane, e.g. to build a coroutine dispatcher. Shutting it down is not allowed.
+     */
+    public static ExecutorService getExecutor(Lane lane) {
+        synchronized (laneExecutors) {
+            LaneExecutor executor = laneExecutors[lane.ordinal()];
+            if (executor == null) {
+                executor = new LaneExecutor(lane, lane.parallelism, new CustomThreadFactory(lane.threadName, lane.threadPriority));
+                laneExecutors[lane.ordinal()] = executor;
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * @return the queue depth and latency of every lane which has been used so far
+     */
+    public static List<LaneStats> getLaneStats() {
+        final List<LaneStats> stats = new ArrayList<>();
+        synchronized (laneExecutors) {
+            for (LaneExecutor executor : laneExecutors) {
+                if (executor != null) {
+                    stats.add(executor.getStats());
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Report lane tasks running longer than the policy allows, similar to StrictMode. Pass null to disable.
+     */
+    public static void setSlowTaskPolicy(SlowTaskPolicy policy) {
+        slowTaskPolicy = policy;
+    }
+
+    static SlowTaskPolicy getSlowTaskPolicy() {
+        return slowTaskPolicy;
     }
 
     public static void postToMainThread(final Runnable runnable) {
@@ -48,10 +141,6 @@ public class ThreadUtils {
         throw new IllegalThreadStateException("Expected UI thread, but running on " + currentThread.getName());
     }
 
-    private static ThreadFactory getIoPrioritisedFactory() {
-        return new CustomThreadFactory("pool-io-background", Thread.NORM_PRIORITY - 1);
-    }
-
     private static class CustomThreadFactory implements ThreadFactory {
         private final String threadName;
         private final int threadPriority;
@@ -0,0 +1,100 @@
+package org.mozilla.threadutils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Config(manifest = Config.NONE)
+@RunWith(RobolectricTestRunner.class)
+public class ThreadUtilsTest {
+
+    private final List<Throwable> uncaught = Collections.synchronizedList(new ArrayList<>());
+    private Thread.UncaughtExceptionHandler defaultHandler;
+
+    @Before
+    public void setUp() {
+        defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, throwable) -> uncaught.add(throwable));
+    }
+
+    @After
+    public void tearDown() {
+        Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+    }
+
+    @Test
+    public void lanesHaveTheirSizes() {
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        assertLaneSize(ThreadUtils.Lane.BACKGROUND, 1);
+        assertLaneSize(ThreadUtils.Lane.DISK_IO, 3);
+        assertLaneSize(ThreadUtils.Lane.CPU, Math.max(1, Math.min(4, cpus - 1)));
+        assertLaneSize(ThreadUtils.Lane.CLEANUP, Math.max(1, Math.min(2, cpus - 1)));
+    }
+
+    @Test
+    public void backgroundTasksRunInOrder() throws InterruptedException {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 20; i++) {
+            final int task = i;
+            ThreadUtils.postToBackgroundThread(() -> order.add(task));
+        }
+        ThreadUtils.postToBackgroundThread(done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void backgroundRunnableExceptionsDontCrash() throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        ThreadUtils.postToBackgroundThread((Runnable) () -> {
+            throw new IllegalStateException("failed");
+        });
+        ThreadUtils.postToBackgroundThread(done::countDown);
+
+        // The lane keeps running tasks and nothing reached the uncaught exception handler
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(uncaught.isEmpty());
+    }
+
+    @Test
+    public void callableExceptionsAreKeptInTheFuture() throws Exception {
+        final Future<Object> future = ThreadUtils.post(ThreadUtils.Lane.DISK_IO, () -> {
+            throw new IllegalStateException("failed");
+        });
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(uncaught.isEmpty());
+    }
+
+    private static void assertLaneSize(ThreadUtils.Lane lane, int size) {
+        assertEquals(size, lane.getParallelism());
+        final ThreadPoolExecutor executor = (ThreadPoolExecutor) ThreadUtils.getExecutor(lane);
+        assertEquals(size, executor.getCorePoolSize());
+        assertEquals(size, executor.getMaximumPoolSize());
+    }
+}
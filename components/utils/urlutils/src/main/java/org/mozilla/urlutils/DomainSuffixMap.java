@@ -0,0 +1,148 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.urlutils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Maps domains to values, and finds the value of a host by its longest mapped domain: the host
+ * itself, or else its closest parent domain. "news.example.com" matches "example.com", but
+ * "myexample.com" doesn't.
+ *
+ * Domains are kept in a trie of their labels from right to left, so a lookup costs one step per
+ * label of the host however many domains are mapped. The map is immutable once built and can be
+ * shared between threads.
+ */
+public final class DomainSuffixMap<V> {
+
+    private static final class Node<V> {
+        @Nullable
+        HashMap<String, Node<V>> children;
+        @Nullable
+        V value;
+
+        Node<V> getOrAddChild(String label) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            Node<V> child = children.get(label);
+            if (child == null) {
+                child = new Node<>();
+                children.put(label, child);
+            }
+            return child;
+        }
+    }
+
+    public static final class Builder<V> {
+        private Node<V> root = new Node<>();
+        private int size;
+
+        /**
+         * Maps the domain and its subdomains to the value, replacing the value of the domain if it
+         * was put before. Blank domains are ignored.
+         */
+        public Builder<V> put(@NonNull String domain, @NonNull V value) {
+            if (root == null) {
+                throw new IllegalStateException("Builder is already built");
+            }
+            final String normalized = normalize(domain);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            Node<V> node = root;
+            int end = normalized.length();
+            while (end > 0) {
+                final int start = normalized.lastIndexOf('.', end - 1) + 1;
+                if (start < end) {
+                    node = node.getOrAddChild(normalized.substring(start, end));
+                }
+                end = start - 1;
+            }
+            if (node == root) {
+                // Only dots
+                return this;
+            }
+            if (node.value == null) {
+                size++;
+            }
+            node.value = value;
+            return this;
+        }
+
+        public DomainSuffixMap<V> build() {
+            if (root == null) {
+                throw new IllegalStateException("Builder is already built");
+            }
+            final DomainSuffixMap<V> map = new DomainSuffixMap<>(root, size);
+            root = null;
+            return map;
+        }
+    }
+
+    private final Node<V> root;
+    private final int size;
+
+    private DomainSuffixMap(Node<V> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @param host a host name, without scheme, port or path
+     * @return the value of the longest mapped domain the host is or is a subdomain of, or null
+     */
+    @Nullable
+    public V get(@Nullable String host) {
+        if (host == null || size == 0) {
+            return null;
+        }
+        final String normalized = normalize(host);
+        V match = null;
+        Node<V> node = root;
+        int end = normalized.length();
+        while (end > 0 && node.children != null) {
+            final int start = normalized.lastIndexOf('.', end - 1) + 1;
+            node = node.children.get(normalized.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+            end = start - 1;
+        }
+        return match;
+    }
+
+    /**
+     * @return the number of mapped domains
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static String normalize(String domain) {
+        String normalized = domain.trim().toLowerCase(Locale.ROOT);
+        // A fully qualified "example.com." is the same host as "example.com"
+        if (normalized.endsWith(".")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,75 @@
+/* -*- Mode: Java; c-basic-offset: 4; tab-width: 4; indent-tabs-mode: nil; -*-
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+
+package org.mozilla.urlutils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DomainSuffixMapTest {
+
+    @Test
+    public void matchesDomainAndSubdomains() {
+        final DomainSuffixMap<String> map = DomainSuffixMap.<String>builder()
+                .put("example.com", "Example")
+                .build();
+
+        assertEquals("Example", map.get("example.com"));
+        assertEquals("Example", map.get("news.example.com"));
+        assertEquals("Example", map.get("a.b.example.com"));
+        assertEquals("Example", map.get("Example.COM."));
+        assertNull(map.get("myexample.com"));
+        assertNull(map.get("com"));
+        assertNull(map.get("example.org"));
+        assertNull(map.get(""));
+        assertNull(map.get(null));
+    }
+
+    @Test
+    public void longestDomainWins() {
+        final DomainSuffixMap<String> map = DomainSuffixMap.<String>builder()
+                .put("google.com", "Search")
+                .put("mail.google.com", "Mail")
+                .put("com", "Commercial")
+                .build();
+
+        assertEquals("Mail", map.get("mail.google.com"));
+        assertEquals("Mail", map.get("inbox.mail.google.com"));
+        assertEquals("Search", map.get("www.google.com"));
+        assertEquals("Commercial", map.get("mozilla.com"));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void laterValueReplacesEarlier() {
+        final DomainSuffixMap<String> map = DomainSuffixMap.<String>builder()
+                .put("example.com", "First")
+                .put("EXAMPLE.com", "Second")
+                .put("", "Blank")
+                .put("..", "Dots")
+                .build();
+
+        assertEquals("Second", map.get("example.com"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void emptyMapMatchesNothing() {
+        final DomainSuffixMap<String> map = DomainSuffixMap.<String>builder().build();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get("example.com"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void builderIsSingleUse() {
+        final DomainSuffixMap.Builder<String> builder = DomainSuffixMap.builder();
+        builder.build();
+        builder.put("example.com", "Example");
+    }
+}
@@ -109,8 +109,10 @@ open class FirebaseImp(fromResourceString: HashMap<String, Any>) : FirebaseContr
         remoteConfig.fetch(remoteConfigCacheExpirationInSeconds).addOnCompleteListener { task ->
             if (task.isSuccessful) {
                 Log.d(TAG, "Firebase RemoteConfig Fetch Successfully ")
-                remoteConfig.activate()
-                callback.onRemoteConfigFetched()
+                // Values read before activation completes are still the old ones
+                remoteConfig.activate().addOnCompleteListener {
+                    callback.onRemoteConfigFetched()
+                }
             } else {
                 Log.d(TAG, "Firebase RemoteConfig Fetch Failed: ${task.exception}")
             }
@@ -149,8 +151,9 @@ open class FirebaseImp(fromResourceString: HashMap<String, Any>) : FirebaseContr
         remoteConfig.fetch(0).addOnCompleteListener { task ->
             if (task.isSuccessful) {
                 Log.d(TAG, "Firebase RemoteConfig Fetch Successfully ")
-                callback(true, null)
-                remoteConfig.activate()
+                remoteConfig.activate().addOnCompleteListener {
+                    callback(true, null)
+                }
             } else {
                 Log.d(TAG, "Firebase RemoteConfig Fetch Failed: ${task.exception}")
                 callback(false, task.exception)
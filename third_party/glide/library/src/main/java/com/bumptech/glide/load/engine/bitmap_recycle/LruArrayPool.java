@@ -32,6 +32,9 @@ public final class LruArrayPool implements ArrayPool {
   private final Map<Class<?>, ArrayAdapterInterface<?>> adapters = new HashMap<>();
   private final int maxSize;
   private int currentSize;
+  private int hits;
+  private int misses;
+  private int evictions;
 
   @VisibleForTesting
   public LruArrayPool() {
@@ -62,7 +65,8 @@ public final class LruArrayPool implements ArrayPool {
     Integer current = sizes.get(key.size);
     sizes.put(key.size, current == null ? 1 : current + 1);
     currentSize += arrayBytes;
-    evict();
+    // Only evictions making room for new arrays tell the pool is too small, not those of trims
+    evictions += evict();
   }
 
   @Override
@@ -80,8 +84,11 @@ public final class LruArrayPool implements ArrayPool {
 
       result = getArrayForKey(key);
       if (result != null) {
+        hits++;
         currentSize -= arrayAdapter.getArrayLength(result) * arrayAdapter.getElementSizeInBytes();
         decrementArrayOfSize(arrayAdapter.getArrayLength(result), arrayClass);
+      } else {
+        misses++;
       }
     }
 
@@ -113,6 +120,27 @@ public final class LruArrayPool implements ArrayPool {
     return currentSize == 0 || (maxSize / currentSize >= 2);
   }
 
+  /**
+   * Returns the number of arrays requested which were taken from the pool.
+   */
+  public synchronized int hitCount() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of arrays requested which had to be allocated.
+   */
+  public synchronized int missCount() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of arrays evicted to make room for new ones, trims aren't counted.
+   */
+  public synchronized int evictionCount() {
+    return evictions;
+  }
+
   @Override
   public synchronized void clearMemory() {
     evictToSize(0);
@@ -127,21 +155,27 @@ public final class LruArrayPool implements ArrayPool {
     }
   }
 
-  private void evict() {
-    evictToSize(maxSize);
+  private int evict() {
+    return evictToSize(maxSize);
   }
 
-  private void evictToSize(int size) {
+  /**
+   * Returns the number of arrays evicted.
+   */
+  private int evictToSize(int size) {
+    int evictedCount = 0;
     while (currentSize > size) {
       Object evicted = groupedMap.removeLast();
       Preconditions.checkNotNull(evicted);
       ArrayAdapterInterface<Object> arrayAdapter = getAdapterFromObject(evicted);
       currentSize -= arrayAdapter.getArrayLength(evicted) * arrayAdapter.getElementSizeInBytes();
       decrementArrayOfSize(arrayAdapter.getArrayLength(evicted), evicted.getClass());
+      evictedCount++;
       if (Log.isLoggable(arrayAdapter.getTag(), Log.VERBOSE)) {
         Log.v(arrayAdapter.getTag(), "evicted: " + arrayAdapter.getArrayLength(evicted));
       }
     }
+    return evictedCount;
   }
 
   private void decrementArrayOfSize(int size, Class<?> arrayClass) {
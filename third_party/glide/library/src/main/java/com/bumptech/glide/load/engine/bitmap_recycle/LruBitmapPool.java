@@ -35,6 +35,7 @@ public class LruBitmapPool implements BitmapPool {
   private int misses;
   private int puts;
   private int evictions;
+  private int capacityEvictions;
 
   // Exposed for testing only.
   LruBitmapPool(int maxSize, LruPoolStrategy strategy, Set<Bitmap.Config> allowedConfigs) {
@@ -71,6 +72,27 @@ public class LruBitmapPool implements BitmapPool {
     return maxSize;
   }
 
+  /**
+   * Returns the number of bitmaps requested which were taken from the pool.
+   */
+  public synchronized int hitCount() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of bitmaps requested which had to be allocated.
+   */
+  public synchronized int missCount() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of bitmaps evicted to make room for new ones, trims aren't counted.
+   */
+  public synchronized int evictionCount() {
+    return capacityEvictions;
+  }
+
   @Override
   public synchronized void setSizeMultiplier(float sizeMultiplier) {
     maxSize = Math.round(initialMaxSize * sizeMultiplier);
@@ -109,7 +131,8 @@ public class LruBitmapPool implements BitmapPool {
     }
     dump();
 
-    evict();
+    // Only evictions making room for new bitmaps tell the pool is too small, not those of trims
+    capacityEvictions += trimToSize(maxSize);
   }
 
   private void evict() {
@@ -216,7 +239,11 @@ public class LruBitmapPool implements BitmapPool {
     }
   }
 
-  private synchronized void trimToSize(int size) {
+  /**
+   * Returns the number of bitmaps evicted.
+   */
+  private synchronized int trimToSize(int size) {
+    int evicted = 0;
     while (currentSize > size) {
       final Bitmap removed = strategy.removeLast();
       // TODO: This shouldn't ever happen, see #331.
@@ -226,17 +253,19 @@ public class LruBitmapPool implements BitmapPool {
           dumpUnchecked();
         }
         currentSize = 0;
-        return;
+        return evicted;
       }
       tracker.remove(removed);
       currentSize -= strategy.getSize(removed);
       evictions++;
+      evicted++;
       if (Log.isLoggable(TAG, Log.DEBUG)) {
         Log.d(TAG, "Evicting bitmap=" + strategy.logBitmap(removed));
       }
       dump();
       removed.recycle();
     }
+    return evicted;
   }
 
   private void dump() {
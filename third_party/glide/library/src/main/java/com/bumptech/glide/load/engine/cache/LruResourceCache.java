@@ -10,6 +10,10 @@ import com.bumptech.glide.util.LruCache;
  */
 public class LruResourceCache extends LruCache<Key, Resource<?>> implements MemoryCache {
   private ResourceRemovedListener listener;
+  private int hits;
+  private int misses;
+  private int evictions;
+  private boolean putting;
 
   /**
    * Constructor for LruResourceCache.
@@ -25,8 +29,34 @@ public class LruResourceCache extends LruCache<Key, Resource<?>> implements Memo
     this.listener = listener;
   }
 
+  @Override
+  public synchronized Resource<?> remove(Key key) {
+    // The engine takes resources out of the cache when they are used.
+    Resource<?> removed = super.remove(key);
+    if (removed != null) {
+      hits++;
+    } else {
+      misses++;
+    }
+    return removed;
+  }
+
+  @Override
+  public synchronized Resource<?> put(Key key, Resource<?> item) {
+    // Only evictions making room for new resources tell the cache is too small, not those of trims
+    putting = true;
+    try {
+      return super.put(key, item);
+    } finally {
+      putting = false;
+    }
+  }
+
   @Override
   protected void onItemEvicted(Key key, Resource<?> item) {
+    if (putting) {
+      evictions++;
+    }
     if (listener != null) {
       listener.onResourceRemoved(item);
     }
@@ -37,6 +67,27 @@ public class LruResourceCache extends LruCache<Key, Resource<?>> implements Memo
     return item.getSize();
   }
 
+  /**
+   * Returns the number of lookups which found their resource in the cache.
+   */
+  public synchronized int hitCount() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of lookups which didn't find their resource in the cache.
+   */
+  public synchronized int missCount() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of resources evicted to make room for new ones, trims aren't counted.
+   */
+  public synchronized int evictionCount() {
+    return evictions;
+  }
+
   @SuppressLint("InlinedApi")
   @Override
   public void trimMemory(int level) {
@@ -34,7 +34,9 @@ import android.media.ExifInterface;
 import android.net.Uri;
 import android.os.AsyncTask;
 import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
 import android.os.Handler;
+import android.os.Looper;
 import android.os.Message;
 import android.provider.MediaStore;
 import androidx.annotation.AnyThread;
@@ -57,10 +59,9 @@ import com.davemorrissey.labs.subscaleview.decoder.SkiaImageDecoder;
 import com.davemorrissey.labs.subscaleview.decoder.SkiaImageRegionDecoder;
 
 import java.lang.ref.WeakReference;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -185,6 +186,30 @@ public class SubsamplingScaleImageView extends View {
     // Whether to use the thread pool executor to load tiles
     private boolean parallelLoadingEnabled;
 
+    // Executor set by the app to load tiles, overrides the shared ones
+    private Executor tileExecutor;
+    private static Executor serialTileExecutor;
+    private static Executor parallelTileExecutor;
+
+    // Tiles loaded in parallel by the shared executor
+    private static final int PARALLEL_TILE_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    // Where tile bitmaps come from and go back to, null to allocate and recycle them
+    private volatile TileBitmapPool tileBitmapPool;
+
+    // Bitmap config of decoded tiles, bitmaps from the pool must match it
+    private static final Bitmap.Config TILE_CONFIG = Bitmap.Config.RGB_565;
+
+    // Decoded tiles that left the screen, kept in case they come back into view
+    private static final int DEFAULT_TILE_CACHE_SIZE = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+    private final TileCache tileCache = new TileCache(DEFAULT_TILE_CACHE_SIZE);
+
+    // Incremented when the tiles are discarded, so tiles loaded for a previous image are thrown away
+    private int tileGeneration;
+
+    // Order in which tiles of the same priority are loaded
+    private long tileSequence;
+
     // Gesture detection settings
     private boolean panEnabled = true;
     private boolean zoomEnabled = true;
@@ -508,14 +533,20 @@ public class SubsamplingScaleImageView extends View {
             for (Map.Entry<Integer, List<Tile>> tileMapEntry : tileMap.entrySet()) {
                 for (Tile tile : tileMapEntry.getValue()) {
                     tile.visible = false;
+                    if (tile.task != null) {
+                        tile.task.cancel();
+                        tile.task = null;
+                    }
                     if (tile.bitmap != null) {
-                        tile.bitmap.recycle();
+                        releaseTileBitmap(tile.bitmap);
                         tile.bitmap = null;
                     }
                 }
             }
             tileMap = null;
         }
+        tileCache.clear();
+        tileGeneration++;
         setGestureDetector(getContext());
     }
 
@@ -1231,8 +1262,7 @@ public class SubsamplingScaleImageView extends View {
 
             List<Tile> baseGrid = tileMap.get(fullImageSampleSize);
             for (Tile baseTile : baseGrid) {
-                TileLoadTask task = new TileLoadTask(this, decoder, baseTile);
-                execute(task);
+                loadTile(baseTile);
             }
             refreshRequiredTiles(true);
 
@@ -1242,7 +1272,8 @@ public class SubsamplingScaleImageView extends View {
 
     /**
      * Loads the optimum tiles for display at the current scale and translate, so the screen can be filled with tiles
-     * that are at least as high resolution as the screen. Frees up bitmaps that are now off the screen.
+     * that are at least as high resolution as the screen. Moves bitmaps that are now off the screen to the tile cache,
+     * and cancels loading them. Tiles coming back on screen are taken from the cache even while panning.
      * @param load Whether to load the new tiles needed. Use false while scrolling/panning for performance.
      */
     private void refreshRequiredTiles(boolean load) {
@@ -1256,24 +1287,20 @@ public class SubsamplingScaleImageView extends View {
             for (Tile tile : tileMapEntry.getValue()) {
                 if (tile.sampleSize < sampleSize || (tile.sampleSize > sampleSize && tile.sampleSize != fullImageSampleSize)) {
                     tile.visible = false;
-                    if (tile.bitmap != null) {
-                        tile.bitmap.recycle();
-                        tile.bitmap = null;
-                    }
+                    discardTile(tile);
                 }
                 if (tile.sampleSize == sampleSize) {
                     if (tileVisible(tile)) {
                         tile.visible = true;
-                        if (!tile.loading && tile.bitmap == null && load) {
-                            TileLoadTask task = new TileLoadTask(this, decoder, tile);
-                            execute(task);
+                        if (!tile.loading && tile.bitmap == null) {
+                            tile.bitmap = tileCache.remove(tile);
+                            if (tile.bitmap == null && load) {
+                                loadTile(tile);
+                            }
                         }
                     } else if (tile.sampleSize != fullImageSampleSize) {
                         tile.visible = false;
-                        if (tile.bitmap != null) {
-                            tile.bitmap.recycle();
-                            tile.bitmap = null;
-                        }
+                        discardTile(tile);
                     }
                 } else if (tile.sampleSize == fullImageSampleSize) {
                     tile.visible = true;
@@ -1283,6 +1310,86 @@ public class SubsamplingScaleImageView extends View {
 
     }
 
+    /**
+     * Queue a tile for loading. The base layer comes first, then tiles closest to the center of the view.
+     */
+    private void loadTile(Tile tile) {
+        long priority = 0;
+        if (tile.sampleSize != fullImageSampleSize && vTranslate != null) {
+            float dx = tile.sRect.exactCenterX() - viewToSourceX(getWidth()/2f);
+            float dy = tile.sRect.exactCenterY() - viewToSourceY(getHeight()/2f);
+            priority = 1 + (long) (dx * dx + dy * dy);
+        }
+        getTileExecutor().execute(new TileLoadTask(this, decoder, tile, priority, tileSequence++));
+    }
+
+    /**
+     * Cancel loading a tile that left the screen, or move its bitmap to the tile cache.
+     */
+    private void discardTile(Tile tile) {
+        if (tile.task != null) {
+            tile.task.cancel();
+            tile.task = null;
+            tile.loading = false;
+        }
+        if (tile.bitmap != null) {
+            tileCache.put(tile, tile.bitmap);
+            tile.bitmap = null;
+        }
+    }
+
+    /**
+     * Decode a tile, into a bitmap from the pool when there is one. Called on a tile loading thread.
+     */
+    private Bitmap decodeTile(ImageRegionDecoder decoder, Rect fileSRect, int sampleSize) {
+        TileBitmapPool pool = tileBitmapPool;
+        Bitmap inBitmap = null;
+        if (pool != null && VERSION.SDK_INT >= VERSION_CODES.N) {
+            // Region decoders don't resize reused bitmaps, so it must have the size Skia decodes, which older
+            // versions round differently depending on the image format.
+            inBitmap = pool.get(Math.max(1, fileSRect.width()/sampleSize), Math.max(1, fileSRect.height()/sampleSize), TILE_CONFIG);
+        }
+        Bitmap bitmap = null;
+        try {
+            bitmap = decoder.decodeRegion(fileSRect, sampleSize, inBitmap);
+            return bitmap;
+        } finally {
+            if (inBitmap != null && bitmap != inBitmap) {
+                pool.put(inBitmap);
+            }
+        }
+    }
+
+    /**
+     * Give a tile bitmap back to the pool, or recycle it.
+     */
+    private void releaseTileBitmap(Bitmap bitmap) {
+        TileBitmapPool pool = tileBitmapPool;
+        if (pool != null) {
+            pool.put(bitmap);
+        } else {
+            bitmap.recycle();
+        }
+    }
+
+    private Executor getTileExecutor() {
+        if (tileExecutor != null) {
+            return tileExecutor;
+        }
+        synchronized (SubsamplingScaleImageView.class) {
+            if (parallelLoadingEnabled) {
+                if (parallelTileExecutor == null) {
+                    parallelTileExecutor = new PriorityTileExecutor(PARALLEL_TILE_THREADS);
+                }
+                return parallelTileExecutor;
+            }
+            if (serialTileExecutor == null) {
+                serialTileExecutor = new PriorityTileExecutor(1);
+            }
+            return serialTileExecutor;
+        }
+    }
+
     /**
      * Determine whether tile is visible.
      */
@@ -1577,62 +1684,171 @@ public class SubsamplingScaleImageView extends View {
     }
 
     /**
-     * Async task used to load images without blocking the UI thread.
+     * Task used to load tiles without blocking the UI thread. Tasks run on the tile executor, which starts them by
+     * priority, then in the order they were queued.
      */
-    private static class TileLoadTask extends AsyncTask<Void, Void, Bitmap> {
+    private static class TileLoadTask implements Runnable, Comparable<TileLoadTask> {
+        private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
         private final WeakReference<SubsamplingScaleImageView> viewRef;
         private final WeakReference<ImageRegionDecoder> decoderRef;
         private final WeakReference<Tile> tileRef;
-        private Exception exception;
+        private final long priority;
+        private final long sequence;
+        private final int generation;
+        private volatile boolean cancelled;
 
-        TileLoadTask(SubsamplingScaleImageView view, ImageRegionDecoder decoder, Tile tile) {
+        TileLoadTask(SubsamplingScaleImageView view, ImageRegionDecoder decoder, Tile tile, long priority, long sequence) {
             this.viewRef = new WeakReference<>(view);
             this.decoderRef = new WeakReference<>(decoder);
             this.tileRef = new WeakReference<>(tile);
+            this.priority = priority;
+            this.sequence = sequence;
+            this.generation = view.tileGeneration;
             tile.loading = true;
+            tile.task = this;
+        }
+
+        /**
+         * Skip decoding if the task hasn't started yet. A tile decoded anyway goes to the tile cache.
+         */
+        void cancel() {
+            cancelled = true;
         }
 
         @Override
-        protected Bitmap doInBackground(Void... params) {
+        public int compareTo(@NonNull TileLoadTask other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+
+        @Override
+        public void run() {
+            Bitmap bitmap = null;
+            Exception exception = null;
             try {
                 SubsamplingScaleImageView view = viewRef.get();
                 ImageRegionDecoder decoder = decoderRef.get();
                 Tile tile = tileRef.get();
-                if (decoder != null && tile != null && view != null && decoder.isReady() && tile.visible) {
-                    view.debug("TileLoadTask.doInBackground, tile.sRect=%s, tile.sampleSize=%d", tile.sRect, tile.sampleSize);
+                if (!cancelled && decoder != null && tile != null && view != null && decoder.isReady() && tile.visible) {
+                    view.debug("TileLoadTask.run, tile.sRect=%s, tile.sampleSize=%d", tile.sRect, tile.sampleSize);
                     synchronized (view.decoderLock) {
                         // Update tile's file sRect according to rotation
                         view.fileSRect(tile.sRect, tile.fileSRect);
                         if (view.sRegion != null) {
                             tile.fileSRect.offset(view.sRegion.left, view.sRegion.top);
                         }
-                        return decoder.decodeRegion(tile.fileSRect, tile.sampleSize);
+                        bitmap = view.decodeTile(decoder, tile.fileSRect, tile.sampleSize);
                     }
-                } else if (tile != null) {
-                    tile.loading = false;
                 }
             } catch (Exception e) {
                 Log.e(TAG, "Failed to decode tile", e);
-                this.exception = e;
+                exception = e;
             } catch (OutOfMemoryError e) {
                 Log.e(TAG, "Failed to decode tile - OutOfMemoryError", e);
-                this.exception = new RuntimeException(e);
+                exception = new RuntimeException(e);
             }
-            return null;
+
+            final Bitmap result = bitmap;
+            final Exception error = exception;
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    onLoaded(result, error);
+                }
+            });
         }
 
-        @Override
-        protected void onPostExecute(Bitmap bitmap) {
+        private void onLoaded(Bitmap bitmap, Exception exception) {
             final SubsamplingScaleImageView subsamplingScaleImageView = viewRef.get();
             final Tile tile = tileRef.get();
-            if (subsamplingScaleImageView != null && tile != null) {
+            if (subsamplingScaleImageView == null || tile == null || subsamplingScaleImageView.tileGeneration != generation) {
+                // The image changed, the tile doesn't belong to it anymore
                 if (bitmap != null) {
-                    tile.bitmap = bitmap;
-                    tile.loading = false;
-                    subsamplingScaleImageView.onTileLoaded();
-                } else if (exception != null && subsamplingScaleImageView.onImageEventListener != null) {
+                    if (subsamplingScaleImageView != null) {
+                        subsamplingScaleImageView.releaseTileBitmap(bitmap);
+                    } else {
+                        bitmap.recycle();
+                    }
+                }
+                return;
+            }
+            if (tile.task != this) {
+                // Cancelled while decoding, keep the bitmap in case the tile comes back into view
+                if (bitmap != null) {
+                    if (!tile.loading && tile.bitmap == null) {
+                        subsamplingScaleImageView.tileCache.put(tile, bitmap);
+                    } else {
+                        subsamplingScaleImageView.releaseTileBitmap(bitmap);
+                    }
+                }
+                return;
+            }
+            if (bitmap != null) {
+                tile.task = null;
+                tile.bitmap = bitmap;
+                tile.loading = false;
+                subsamplingScaleImageView.onTileLoaded();
+            } else if (exception != null) {
+                if (subsamplingScaleImageView.onImageEventListener != null) {
                     subsamplingScaleImageView.onImageEventListener.onTileLoadError(exception);
                 }
+            } else {
+                // Skipped, because the tile or the decoder went away before it started
+                tile.task = null;
+                tile.loading = false;
+            }
+        }
+    }
+
+    /**
+     * Least recently used decoded tiles which left the screen, up to a size in bytes. Only used on the UI thread.
+     */
+    private class TileCache {
+        private final LinkedHashMap<Tile, Bitmap> bitmaps = new LinkedHashMap<>(16, 0.75f, true);
+        private int maxSize;
+        private int size;
+
+        TileCache(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        void put(Tile tile, Bitmap bitmap) {
+            Bitmap previous = bitmaps.put(tile, bitmap);
+            if (previous != null) {
+                size -= previous.getAllocationByteCount();
+                releaseTileBitmap(previous);
+            }
+            size += bitmap.getAllocationByteCount();
+            trimToSize(maxSize);
+        }
+
+        Bitmap remove(Tile tile) {
+            Bitmap bitmap = bitmaps.remove(tile);
+            if (bitmap != null) {
+                size -= bitmap.getAllocationByteCount();
+            }
+            return bitmap;
+        }
+
+        void resize(int maxSize) {
+            this.maxSize = maxSize;
+            trimToSize(maxSize);
+        }
+
+        void clear() {
+            trimToSize(-1);
+        }
+
+        private void trimToSize(int maxSize) {
+            Iterator<Bitmap> iterator = bitmaps.values().iterator();
+            while (size > maxSize && iterator.hasNext()) {
+                Bitmap bitmap = iterator.next();
+                iterator.remove();
+                size -= bitmap.getAllocationByteCount();
+                releaseTileBitmap(bitmap);
             }
         }
     }
@@ -1825,18 +2041,11 @@ public class SubsamplingScaleImageView extends View {
     }
 
     private void execute(AsyncTask<Void, Void, ?> asyncTask) {
-        if (parallelLoadingEnabled && VERSION.SDK_INT >= 11) {
-            try {
-                Field executorField = AsyncTask.class.getField("THREAD_POOL_EXECUTOR");
-                Executor executor = (Executor)executorField.get(null);
-                Method executeMethod = AsyncTask.class.getMethod("executeOnExecutor", Executor.class, Object[].class);
-                executeMethod.invoke(asyncTask, executor, null);
-                return;
-            } catch (Exception e) {
-                Log.i(TAG, "Failed to execute AsyncTask on thread pool executor, falling back to single threaded executor", e);
-            }
+        if (parallelLoadingEnabled) {
+            asyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        } else {
+            asyncTask.execute();
         }
-        asyncTask.execute();
     }
 
     private static class Tile {
@@ -1846,6 +2055,7 @@ public class SubsamplingScaleImageView extends View {
         private Bitmap bitmap;
         private boolean loading;
         private boolean visible;
+        private TileLoadTask task;
 
         // Volatile fields instantiated once then updated before use to reduce GC.
         private Rect vRect;
@@ -2613,16 +2823,44 @@ public class SubsamplingScaleImageView extends View {
     }
 
     /**
-     * Toggle parallel loading. When enabled, tiles are loaded using the thread pool executor available
-     * in SDK 11+. In older versions this has no effect. Parallel loading may use more memory and there
-     * is a possibility that it will make the tile loading unreliable, but it reduces the chances of
-     * an app's background processes blocking loading.
-     * @param parallelLoadingEnabled Whether to run AsyncTasks using a thread pool executor.
+     * Toggle parallel loading. When enabled, the image is initialised on the AsyncTask thread pool executor, and
+     * tiles are loaded by a shared executor with several threads instead of one. Parallel loading may use more
+     * memory, but it reduces the chances of an app's background processes blocking loading. Has no effect on tiles
+     * if an executor was set with {@link #setTileExecutor(Executor)}.
+     * @param parallelLoadingEnabled Whether to load using several threads.
      */
     public void setParallelLoadingEnabled(boolean parallelLoadingEnabled) {
         this.parallelLoadingEnabled = parallelLoadingEnabled;
     }
 
+    /**
+     * Set the executor tiles are loaded on, for example to bound the number of threads across several views.
+     * A {@link PriorityTileExecutor} loads the base layer first, then the tiles closest to the center of the view.
+     * Other executors run them in the order they are queued.
+     * @param tileExecutor Executor to use, or null to use the shared one.
+     */
+    public void setTileExecutor(Executor tileExecutor) {
+        this.tileExecutor = tileExecutor;
+    }
+
+    /**
+     * Set a pool to decode tiles into bitmaps it provides, and to give back the bitmaps of discarded tiles instead
+     * of recycling them.
+     * @param tileBitmapPool Pool to use, or null to allocate and recycle tile bitmaps.
+     */
+    public void setTileBitmapPool(TileBitmapPool tileBitmapPool) {
+        this.tileBitmapPool = tileBitmapPool;
+    }
+
+    /**
+     * Set how many bytes of decoded tiles are kept after they leave the screen, so panning back to them doesn't
+     * decode them again. Defaults to a sixteenth of the maximum heap size.
+     * @param maxSize Size in bytes, 0 to only keep tiles on screen.
+     */
+    public void setTileCacheSize(int maxSize) {
+        tileCache.resize(Math.max(0, maxSize));
+    }
+
     /**
      * Enables visual debugging, showing tile boundaries and sizes.
      */
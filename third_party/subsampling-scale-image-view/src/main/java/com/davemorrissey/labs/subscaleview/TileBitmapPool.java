@@ -0,0 +1,42 @@
+/*
+Copyright 2013-2015 David Morrissey
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.davemorrissey.labs.subscaleview;
+
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Source of bitmaps to decode tiles into, and destination of tile bitmaps no longer needed. Lets the
+ * view share memory with an app's image loader instead of allocating a bitmap for every tile.
+ * Implementations must be thread safe, {@link #get(int, int, Bitmap.Config)} is called by tile
+ * loading threads.
+ */
+public interface TileBitmapPool {
+
+    /**
+     * @return a mutable bitmap of exactly the given size and config, or null to let the decoder allocate one.
+     */
+    @Nullable
+    Bitmap get(int width, int height, @NonNull Bitmap.Config config);
+
+    /**
+     * Take back a bitmap the view doesn't use anymore, the pool may recycle it.
+     */
+    void put(@NonNull Bitmap bitmap);
+
+}
@@ -21,6 +21,7 @@ import android.graphics.Bitmap;
 import android.graphics.Point;
 import android.graphics.Rect;
 import android.net.Uri;
+import androidx.annotation.Nullable;
 
 /**
  * Interface for image decoding classes, allowing the default {@link android.graphics.BitmapRegionDecoder}
@@ -43,15 +44,26 @@ public interface ImageRegionDecoder {
 
     /**
      * Decode a region of the image with the given sample size. This method is called off the UI thread so it can safely
-     * load the image on the current thread. It is called from an {@link android.os.AsyncTask} running in a single
-     * threaded executor, and while a synchronization lock is held on this object, so will never be called concurrently
-     * even if the decoder implementation supports it.
+     * load the image on the current thread. It is called from the view's tile executor, and while a synchronization
+     * lock is held on this object, so will never be called concurrently even if the decoder implementation supports it.
      * @param sRect Source image rectangle to decode.
      * @param sampleSize Sample size.
      * @return The decoded region. It is safe to return null if decoding fails.
      */
     Bitmap decodeRegion(Rect sRect, int sampleSize);
 
+    /**
+     * Decode a region of the image into a bitmap taken from the view's {@link com.davemorrissey.labs.subscaleview.TileBitmapPool}.
+     * Decoders which can't reuse bitmaps may ignore it, it is then given back to the pool.
+     * @param sRect Source image rectangle to decode.
+     * @param sampleSize Sample size.
+     * @param inBitmap Mutable RGB_565 bitmap of the size of the decoded region, or null.
+     * @return The decoded region. It is safe to return null if decoding fails.
+     */
+    default Bitmap decodeRegion(Rect sRect, int sampleSize, @Nullable Bitmap inBitmap) {
+        return decodeRegion(sRect, sampleSize);
+    }
+
     /**
      * Status check. Should return false before initialisation and after recycle.
      * @return true if the decoder is ready to be used.
@@ -93,11 +93,24 @@ public class SkiaImageRegionDecoder implements ImageRegionDecoder {
 
     @Override
     public Bitmap decodeRegion(Rect sRect, int sampleSize) {
+        return decodeRegion(sRect, sampleSize, null);
+    }
+
+    @Override
+    public Bitmap decodeRegion(Rect sRect, int sampleSize, Bitmap inBitmap) {
         synchronized (decoderLock) {
             BitmapFactory.Options options = new BitmapFactory.Options();
             options.inSampleSize = sampleSize;
             options.inPreferredConfig = Config.RGB_565;
-            Bitmap bitmap = decoder.decodeRegion(sRect, options);
+            options.inBitmap = inBitmap;
+            Bitmap bitmap;
+            try {
+                bitmap = decoder.decodeRegion(sRect, options);
+            } catch (IllegalArgumentException e) {
+                // The bitmap can't be reused for this image, decode into a new one
+                options.inBitmap = null;
+                bitmap = decoder.decodeRegion(sRect, options);
+            }
             if (bitmap == null) {
                 throw new RuntimeException("Skia image decoder returned null bitmap - image format may not be supported");
             }